@@ -51,7 +51,9 @@ public interface Selectable {
     Select select(long id);
 
     /**
-     * Select multiple ids
+     * Select multiple ids.
+     * More than 500 ids are queried in chunks: such a select cannot be sorted or paged
+     * (<code>UnsupportedOperationException</code>)
      * @param ids array id
      * @return {@link com.bingzer.android.dbv.content.contracts.Selectable.Select}
      */
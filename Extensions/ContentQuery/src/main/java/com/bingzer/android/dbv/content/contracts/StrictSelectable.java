@@ -42,7 +42,9 @@ public interface StrictSelectable {
     Select select(long id);
 
     /**
-     * Select multiple ids
+     * Select multiple ids.
+     * More than 500 ids are queried in chunks: such a select cannot be sorted
+     * (<code>UnsupportedOperationException</code>)
      * @param ids array id
      * @return {@link com.bingzer.android.dbv.queries.Select}
      */
@@ -24,6 +24,9 @@ import com.bingzer.android.dbv.queries.IQuery;
 import com.bingzer.android.dbv.queries.InsertInto;
 import com.bingzer.android.dbv.utils.ContentValuesUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by Ricky on 8/20/13.
  */
@@ -40,16 +43,49 @@ public class InsertIntoImpl extends QueryImpl<Long> implements InsertInto {
 
     @Override
     public IQuery<Long> val(Object... values) {
-        ContentValues contentValues = new ContentValues();
-        for(int i = 0; i < columnNames.length; i++){
-            ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columnNames[i], values[i]);
-        }
-
-        query.onContentValuesSet(this, contentValues);
+        query.onContentValuesSet(this, toContentValues(values));
 
         return this;
     }
 
+    /**
+     * ContentProvider has no compiled statement. The rows are
+     * collected and sent with a single
+     * {@link android.content.ContentResolver#bulkInsert(android.net.Uri, android.content.ContentValues[])}
+     * when {@link com.bingzer.android.dbv.queries.InsertInto.Batch#query()} is called
+     */
+    @Override
+    public Batch batch() {
+        return new Batch() {
+            final List<ContentValues> rows = new ArrayList<ContentValues>();
+            long numInserted = -1;
+            long nano;
+
+            @Override
+            public Batch val(Object... values) {
+                if(numInserted >= 0) throw new IllegalStateException("Batch is already finished");
+                rows.add(toContentValues(values));
+                return this;
+            }
+
+            @Override
+            public Long query() {
+                if(numInserted < 0){
+                    nano = System.nanoTime();
+                    numInserted = query.onBulkContentValuesSet(rows.toArray(new ContentValues[rows.size()]));
+                    nano = System.nanoTime() - nano;
+                    rows.clear();
+                }
+                return numInserted;
+            }
+
+            @Override
+            public double getRowsPerSecond() {
+                return nano > 0 ? numInserted * 1E9 / nano : 0;
+            }
+        };
+    }
+
     @Override
     public Long query() {
         return UriUtils.parseIdFromUri(value);
@@ -59,9 +95,19 @@ public class InsertIntoImpl extends QueryImpl<Long> implements InsertInto {
         this.value = value;
     }
 
+    ContentValues toContentValues(Object... values){
+        ContentValues contentValues = new ContentValues();
+        for(int i = 0; i < columnNames.length; i++){
+            ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columnNames[i], values[i]);
+        }
+        return contentValues;
+    }
+
     public static interface ContentSet {
 
         void onContentValuesSet(InsertIntoImpl query, ContentValues contentValues);
 
+        int onBulkContentValuesSet(ContentValues[] contentValues);
+
     }
 }
@@ -24,7 +24,12 @@ import com.bingzer.android.dbv.queries.ISequence;
 import com.bingzer.android.dbv.queries.IQuery;
 import com.bingzer.android.dbv.utils.Utils;
 import com.bingzer.android.dbv.content.resolvers.IBaseResolver;
+import com.bingzer.android.dbv.internal.queries.QueryFutureImpl;
 import com.bingzer.android.dbv.queries.Paging;
+import com.bingzer.android.dbv.queries.QueryFuture;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Ricky on 8/20/13.
@@ -226,6 +231,29 @@ public abstract class SelectImpl implements Selectable.Select, Selectable.Select
             query(pageNumber, entityList);
         }
 
+        @Override
+        public QueryFuture<Cursor> queryAsync(Executor executor) {
+            return QueryFutureImpl.submit(ensureExecutor(executor), new Callable<Cursor>() {
+                @Override
+                public Cursor call() {
+                    Cursor cursor = query();
+                    cursor.getCount();
+                    return cursor;
+                }
+            });
+        }
+
+        @Override
+        public <E extends IEntity> QueryFuture<IEntityList<E>> queryAsync(final IEntityList<E> entityList, Executor executor) {
+            return QueryFutureImpl.submit(ensureExecutor(executor), new Callable<IEntityList<E>>() {
+                @Override
+                public IEntityList<E> call() {
+                    query(entityList);
+                    return entityList;
+                }
+            });
+        }
+
         int getOffset(){
             return pageNumber * rowLimit;
         }
@@ -236,6 +264,13 @@ public abstract class SelectImpl implements Selectable.Select, Selectable.Select
             this.pageNumber = pageNumber;
         }
 
+        Executor ensureExecutor(Executor executor){
+            // there's no database (nor its reader executor) behind a content provider
+            if(executor == null)
+                throw new IllegalArgumentException("An executor is required to query a ContentProvider");
+            return executor;
+        }
+
         SelectImpl fixSelect(){
             select.limitString = new StringBuilder();
             select.limitString.append(" LIMIT ").append(rowLimit).append(" OFFSET ").append(getOffset());
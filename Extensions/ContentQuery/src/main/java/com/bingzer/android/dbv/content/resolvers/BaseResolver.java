@@ -20,6 +20,8 @@ import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.MergeCursor;
 import android.net.Uri;
 
 import com.bingzer.android.dbv.Delegate;
@@ -31,10 +33,14 @@ import com.bingzer.android.dbv.content.queries.InsertImpl;
 import com.bingzer.android.dbv.content.queries.InsertIntoImpl;
 import com.bingzer.android.dbv.content.queries.UpdateImpl;
 import com.bingzer.android.dbv.content.utils.UriUtils;
+import com.bingzer.android.dbv.internal.queries.BatchUpdateImpl;
+import com.bingzer.android.dbv.internal.queries.UpsertImpl;
+import com.bingzer.android.dbv.queries.BatchUpdate;
 import com.bingzer.android.dbv.queries.Delete;
 import com.bingzer.android.dbv.queries.Insert;
 import com.bingzer.android.dbv.queries.InsertInto;
 import com.bingzer.android.dbv.queries.Update;
+import com.bingzer.android.dbv.queries.Upsert;
 import com.bingzer.android.dbv.utils.CollectionUtils;
 import com.bingzer.android.dbv.utils.ContentValuesUtils;
 import com.bingzer.android.dbv.utils.Utils;
@@ -51,6 +57,11 @@ import java.util.regex.Pattern;
 abstract class BaseResolver implements IBaseResolver {
 
     final Config config;
+    /**
+     * Ids are bound as parameters, at most this many per statement
+     */
+    static final int MAX_BOUND_IDS = 500;
+
     final Uri uri;
     final ContentResolver contentResolver;
 
@@ -116,19 +127,15 @@ abstract class BaseResolver implements IBaseResolver {
     @Override
     public Delete delete(long... ids) {
         if(ids != null && ids.length > 0){
-            StringBuilder whereClause = new StringBuilder();
-
-            whereClause.append(getPrimaryKeyColumn()).append(" ");
-            whereClause.append("IN (");
-            for(int i = 0; i < ids.length; i++){
-                whereClause.append(ids[i]);
-                if(i < ids.length - 1){
-                    whereClause.append(",");
-                }
+            int count = 0;
+            for(int from = 0; from < ids.length; from += MAX_BOUND_IDS){
+                int to = Math.min(ids.length, from + MAX_BOUND_IDS);
+                count += contentResolver.delete(uri, generateParamInIds(to - from), toSelectionArgs(ids, from, to));
             }
-            whereClause.append(")");
 
-            return delete(whereClause.toString(), (Object)null);
+            DeleteImpl query = new DeleteImpl();
+            query.val(count);
+            return query;
         }
         else{
             // delete all
@@ -193,9 +200,43 @@ abstract class BaseResolver implements IBaseResolver {
             public void onContentValuesSet(InsertIntoImpl query, ContentValues contentValues) {
                 query.setUri(contentResolver.insert(uri, contentValues));
             }
+
+            @Override
+            public int onBulkContentValuesSet(ContentValues[] contentValues) {
+                return contentResolver.bulkInsert(uri, contentValues);
+            }
         }, columns);
     }
 
+    /**
+     * ContentProvider decides how the rows are stored,
+     * they are sent with a single {@link ContentResolver#bulkInsert(Uri, ContentValues[])}
+     */
+    @Override
+    public Insert bulkInsert(String[] columns, Iterable<Object[]> rows) {
+        final ArrayList<ContentValues> contentValuesList = new ArrayList<ContentValues>();
+        for(Object[] row : rows){
+            final ContentValues contentValues = new ContentValues();
+            for(int i = 0; i < columns.length; i++){
+                ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columns[i], i < row.length ? row[i] : null);
+            }
+            contentValuesList.add(contentValues);
+        }
+
+        final long numInserted = contentResolver.bulkInsert(uri, contentValuesList.toArray(new ContentValues[contentValuesList.size()]));
+        return new InsertImpl(){
+            @Override
+            public Long query(){
+                return numInserted;
+            }
+
+            @Override
+            public String toString(){
+                return uri.toString();
+            }
+        };
+    }
+
     @Override
     public Insert insert(ContentValues contents) {
         return new InsertImpl().setUri(contentResolver.insert(uri, contents));
@@ -234,6 +275,27 @@ abstract class BaseResolver implements IBaseResolver {
         return insert;
     }
 
+    @Override
+    public Upsert upsert(IEntity entity) {
+        UpsertImpl query = new UpsertImpl();
+        if(upsertEntity(entity)) query.setCounts(1, 0);
+        else query.setCounts(0, 1);
+        return query;
+    }
+
+    @Override
+    public <E extends IEntity> Upsert upsert(IEntityList<E> entityList) {
+        int insertedCount = 0, updatedCount = 0;
+        for(E entity : entityList){
+            if(upsertEntity(entity)) insertedCount++;
+            else updatedCount++;
+        }
+
+        UpsertImpl query = new UpsertImpl();
+        query.setCounts(insertedCount, updatedCount);
+        return query;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <E extends IEntity> Insert insert(IEntityList<E> entityList) {
@@ -308,20 +370,19 @@ abstract class BaseResolver implements IBaseResolver {
     }
 
     @Override
-    public Update update(long... ids) {
+    public Update update(final long... ids) {
         if(ids != null && ids.length > 0){
-            StringBuilder whereClause = new StringBuilder();
-            whereClause.append(getPrimaryKeyColumn()).append(" ");
-            whereClause.append(" IN (");
-            for(int i = 0; i < ids.length; i++){
-                whereClause.append(ids[i]);
-                if(i < ids.length - 1){
-                    whereClause.append(",");
+            return new UpdateImpl(new UpdateImpl.ContentSet(){
+                @Override
+                public void onContentValuesSet(UpdateImpl query, ContentValues contentValues) {
+                    int count = 0;
+                    for(int from = 0; from < ids.length; from += MAX_BOUND_IDS){
+                        int to = Math.min(ids.length, from + MAX_BOUND_IDS);
+                        count += contentResolver.update(uri, contentValues, generateParamInIds(to - from), toSelectionArgs(ids, from, to));
+                    }
+                    query.setValue(count);
                 }
-            }
-            whereClause.append(")");
-
-            return update(whereClause.toString());
+            });
         }
         else{
             // select all
@@ -386,11 +447,35 @@ abstract class BaseResolver implements IBaseResolver {
     }
 
     @Override
-    public <E extends IEntity> Update update(IEntityList<E> entityList) {
+    public Update update(IEntity entity, String... columns) {
+        if(entity.getId() < 0) throw new IllegalArgumentException("Id has to be over than 0");
+
+        final Delegate.Mapper mapper = new Delegate.Mapper(this);
+        final ContentValues contentValues = new ContentValues();
+        entity.map(mapper);
+
+        for (String key : columns) {
+            // ignore if "Id"
+            if (key.equalsIgnoreCase(getPrimaryKeyColumn())) continue;
+
+            Delegate delegate = mapper.get(key);
+            if (delegate != null) {
+                ContentValuesUtils.mapContentValuesFromDelegate(contentValues, key, delegate);
+            }
+        }
+
+        // nothing to update
+        if(contentValues.size() == 0) return new UpdateImpl();
+
+        return update(contentValues, entity.getId());
+    }
+
+    @Override
+    public <E extends IEntity> BatchUpdate update(IEntityList<E> entityList) {
         if(getConfig().getDefaultAuthority() == null)
             throw new IllegalArgumentException("Authority has not been set. Use IResolver.setDefaultAuthority() to set");
 
-        final UpdateImpl query = new UpdateImpl();
+        final BatchUpdateImpl query = new BatchUpdateImpl();
         final ArrayList<ContentProviderOperation> operationList = new ArrayList<ContentProviderOperation>();
 
         for(E entity : entityList){
@@ -420,13 +505,13 @@ abstract class BaseResolver implements IBaseResolver {
         }
 
         try{
-            int count = 0;
             ContentProviderResult[] results =
                     contentResolver.applyBatch(getConfig().getDefaultAuthority(), operationList);
-            for(ContentProviderResult result : results){
-                count += result.count;
+            int[] counts = new int[results.length];
+            for(int i = 0; i < results.length; i++){
+                counts[i] = results[i].count != null ? results[i].count : 0;
             }
-            query.setValue(count);
+            query.setCounts(counts);
         }
         catch (Exception e){
             throw new Error(e);
@@ -463,6 +548,50 @@ abstract class BaseResolver implements IBaseResolver {
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Generates Id IN (?,?,?) with a parameter for each id
+     */
+    String generateParamInIds(int count){
+        StringBuilder builder = new StringBuilder(getPrimaryKeyColumn().length() + 6 + count * 2);
+        builder.append(getPrimaryKeyColumn()).append(" IN (");
+        for(int i = 0; i < count; i++){
+            if(i > 0) builder.append(",");
+            builder.append("?");
+        }
+        builder.append(")");
+
+        return builder.toString();
+    }
+
+    String[] toSelectionArgs(long[] ids, int from, int to){
+        String[] args = new String[to - from];
+        for(int i = from; i < to; i++){
+            args[i - from] = Long.toString(ids[i]);
+        }
+        return args;
+    }
+
+    /**
+     * Queries more than {@link #MAX_BOUND_IDS} ids in chunks and merges the cursors.
+     * Rows come in the order of the chunks, that's why there's no sort order
+     */
+    Cursor queryIds(String[] projections, long[] ids){
+        Cursor[] cursors = new Cursor[(ids.length + MAX_BOUND_IDS - 1) / MAX_BOUND_IDS];
+        for(int i = 0, from = 0; from < ids.length; i++, from += MAX_BOUND_IDS){
+            int to = Math.min(ids.length, from + MAX_BOUND_IDS);
+            cursors[i] = contentResolver.query(uri, projections, generateParamInIds(to - from), toSelectionArgs(ids, from, to), null);
+        }
+        return new MergeCursor(cursors);
+    }
+
+    /**
+     * Thrown by the selects of more than {@link #MAX_BOUND_IDS} ids when they're sorted or paged
+     */
+    UnsupportedOperationException newChunkedIdsException(){
+        return new UnsupportedOperationException("More than " + MAX_BOUND_IDS +
+                " ids are queried in chunks, they cannot be sorted or paged");
+    }
+
     String generateParamId(long id){
         return getPrimaryKeyColumn() + " = " + id;
     }
@@ -470,4 +599,22 @@ abstract class BaseResolver implements IBaseResolver {
     Pattern getUriPattern(){
         return Pattern.compile("(content://)(.+)/(\\w+)/?((\\d+)|(#)|(\\*))?");
     }
+
+    /**
+     * Updates the entity if it has an id and exists,
+     * otherwise inserts it (keeping its id)
+     * @return true if inserted
+     */
+    private boolean upsertEntity(IEntity entity){
+        if(entity.getId() <= 0){
+            insert(entity);
+            return true;
+        }
+
+        if(update(entity).query() > 0) return false;
+
+        ContentValues contentValues = ContentValuesUtils.generateContentValuesFromEntity(this, entity);
+        insert(contentValues).query();
+        return true;
+    }
 }
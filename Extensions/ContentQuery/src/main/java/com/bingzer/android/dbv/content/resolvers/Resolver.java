@@ -24,6 +24,7 @@ import com.bingzer.android.dbv.IEntityList;
 import com.bingzer.android.dbv.content.IResolver;
 import com.bingzer.android.dbv.content.queries.Config;
 import com.bingzer.android.dbv.content.queries.SelectImpl;
+import com.bingzer.android.dbv.queries.Paging;
 import com.bingzer.android.dbv.utils.EntityUtils;
 
 /**
@@ -106,19 +107,11 @@ public final class Resolver extends BaseResolver implements IResolver {
 
     @Override
     public Select select(long... ids) {
-        if(ids != null && ids.length > 0){
-            StringBuilder whereClause = new StringBuilder();
-            whereClause.append(getPrimaryKeyColumn()).append(" ");
-            whereClause.append(" IN (");
-            for(int i = 0; i < ids.length; i++){
-                whereClause.append(ids[i]);
-                if(i < ids.length - 1){
-                    whereClause.append(",");
-                }
-            }
-            whereClause.append(")");
-
-            return select(whereClause.toString());
+        if(ids != null && ids.length > MAX_BOUND_IDS){
+            return newSelect(-1, ids);
+        }
+        else if(ids != null && ids.length > 0){
+            return newSelect(-1, null).where(generateParamInIds(ids.length), (Object[]) toSelectionArgs(ids, 0, ids.length));
         }
         else{
             // select all
@@ -128,9 +121,18 @@ public final class Resolver extends BaseResolver implements IResolver {
 
     @Override
     public Select select(final int top, final String whereClause, final Object... args) {
+        return newSelect(top, null).where(whereClause, args);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private SelectImpl newSelect(int top, final long[] ids){
         return new SelectImpl(this, top) {
             @Override
             public Cursor query() {
+                // ids are queried in chunks
+                if(ids != null) return queryIds(getProjections(), ids);
+
                 String[] projections = getProjections();
                 String selection = getSelection();
                 String[] selectionArgs = getSelectionArgs();
@@ -138,6 +140,18 @@ public final class Resolver extends BaseResolver implements IResolver {
                 return contentResolver.query(uri, projections, selection, selectionArgs, sortOrder);
             }
 
+            @Override
+            public OrderBy orderBy(String... columns) {
+                if(ids != null) throw newChunkedIdsException();
+                return super.orderBy(columns);
+            }
+
+            @Override
+            public Paging paging(int row) {
+                if(ids != null) throw newChunkedIdsException();
+                return super.paging(row);
+            }
+
             @Override
             public void query(IEntity entity) {
                 final Cursor cursor = query();
@@ -157,7 +171,7 @@ public final class Resolver extends BaseResolver implements IResolver {
 
                 cursor.close();
             }
-        }.where(whereClause, args);
+        };
     }
 
 }
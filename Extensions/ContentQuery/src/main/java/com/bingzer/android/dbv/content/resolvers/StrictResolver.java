@@ -95,19 +95,11 @@ public final class StrictResolver extends BaseResolver implements IStrictResolve
 
     @Override
     public Select select(long... ids) {
-        if(ids != null && ids.length > 0){
-            StringBuilder whereClause = new StringBuilder();
-            whereClause.append(getPrimaryKeyColumn()).append(" ");
-            whereClause.append(" IN (");
-            for(int i = 0; i < ids.length; i++){
-                whereClause.append(ids[i]);
-                if(i < ids.length - 1){
-                    whereClause.append(",");
-                }
-            }
-            whereClause.append(")");
-
-            return select(whereClause.toString());
+        if(ids != null && ids.length > MAX_BOUND_IDS){
+            return newSelect(ids);
+        }
+        else if(ids != null && ids.length > 0){
+            return newSelect(null).where(generateParamInIds(ids.length), (Object[]) toSelectionArgs(ids, 0, ids.length));
         }
         else{
             // select all
@@ -117,9 +109,18 @@ public final class StrictResolver extends BaseResolver implements IStrictResolve
 
     @Override
     public Select select(String whereClause, Object... args) {
+        return newSelect(null).where(whereClause, args);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private StrictSelectImpl newSelect(final long[] ids){
         return new StrictSelectImpl(this) {
             @Override
             public Cursor query() {
+                // ids are queried in chunks
+                if(ids != null) return queryIds(getProjections(), ids);
+
                 String[] projections = getProjections();
                 String selection = getSelection();
                 String[] selectionArgs = getSelectionArgs();
@@ -127,6 +128,12 @@ public final class StrictResolver extends BaseResolver implements IStrictResolve
                 return contentResolver.query(uri, projections, selection, selectionArgs, sortOrder);
             }
 
+            @Override
+            public OrderBy orderBy(String... columns) {
+                if(ids != null) throw newChunkedIdsException();
+                return super.orderBy(columns);
+            }
+
             @Override
             public void query(IEntity entity) {
                 final Cursor cursor = query();
@@ -146,6 +153,6 @@ public final class StrictResolver extends BaseResolver implements IStrictResolve
 
                 cursor.close();
             }
-        }.where(whereClause, args);
+        };
     }
 }
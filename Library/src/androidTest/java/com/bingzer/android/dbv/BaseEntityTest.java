@@ -4,6 +4,9 @@ import android.content.Context;
 import android.database.Cursor;
 import android.test.AndroidTestCase;
 
+import com.bingzer.android.dbv.annotations.Bindable;
+import com.bingzer.android.dbv.annotations.Column;
+
 import java.util.UUID;
 
 import static org.mockito.Mockito.mock;
@@ -191,4 +194,228 @@ public class BaseEntityTest extends AndroidTestCase {
         assertEquals(2, loadCallbackCounter);
     }
 
+    public void test_save_load_binder(){
+        BoundOrmPerson person = new BoundOrmPerson();
+        person.name = UUID.randomUUID().toString();
+        person.age = 45;
+        assertTrue(person.save());
+        assertTrue(person.getId() > 0);
+
+        person.age = 46;
+        assertTrue(person.save());
+
+        BoundOrmPerson other = new BoundOrmPerson();
+        assertTrue(other.load(person.getId()));
+        assertEquals(person.name, other.name);
+        assertEquals(46, other.age);
+    }
+
+    public void test_save_load_inheritedBinder(){
+        BoundOrmPersonWithAddress person = new BoundOrmPersonWithAddress();
+        person.name = UUID.randomUUID().toString();
+        person.address = "Turin".getBytes();
+        assertTrue(person.save());
+
+        BoundOrmPersonWithAddress other = new BoundOrmPersonWithAddress();
+        assertTrue(other.load(person.getId()));
+        assertEquals(person.name, other.name);
+        assertEquals("Turin", new String(other.address));
+
+        // anonymous subclass, uses the binder of BoundOrmPerson
+        BoundOrmPerson anonymous = new BoundOrmPerson(){};
+        assertTrue(anonymous.load(person.getId()));
+        assertEquals(person.name, anonymous.name);
+    }
+
+    public void test_dirtyTracking(){
+        OrmPerson person = new OrmPerson();
+        person.setDirtyTracking(true);
+        assertTrue(person.load(person1Id));
+        assertFalse(person.isDirty());
+
+        person.setAge(77);
+        String[] columns = person.getDirtyColumns();
+        assertEquals(1, columns.length);
+        assertEquals("Age", columns[0]);
+
+        // someone else changes the name, only the age should be written
+        db.get("Person").update(person1Id).val("Name", "Changed").query();
+        assertTrue(person.save());
+        assertFalse(person.isDirty());
+
+        OrmPerson other = new OrmPerson();
+        assertTrue(other.load(person1Id));
+        assertEquals("Changed", other.getName());
+        assertEquals(77, other.getAge());
+
+        // nothing has changed, no sql should be executed
+        db.get("Person").update(person1Id).val("Age", 1).query();
+        assertTrue(person.save());
+        assertTrue(other.load(person1Id));
+        assertEquals(1, other.getAge());
+    }
+
+    public void test_dirtyTracking_deletedRow(){
+        OrmPerson person = new OrmPerson(UUID.randomUUID().toString(), 50);
+        person.setDirtyTracking(true);
+        assertTrue(person.save());
+
+        // deleted elsewhere, nothing is stored
+        db.get("Person").delete(person.getId()).query();
+        person.setAge(51);
+        assertFalse(person.save());
+        assertTrue(person.isDirty());
+        assertFalse(person.save());
+    }
+
+    public void test_save_upsert(){
+        db.get("Person").delete(999999).query();
+
+        OrmPerson person = new OrmPerson("Synced", 10);
+        person.setId(999999);
+        assertFalse(person.save()); // nothing to update
+
+        person.setUpsertOnSave(true);
+        assertTrue(person.save());
+        assertTrue(db.get("Person").has(999999));
+
+        person.setAge(11);
+        assertTrue(person.save());
+        assertEquals(1, db.get("Person").count("Id = ? AND Age = ?", 999999, 11));
+    }
+
+    public void test_save_upsert_dirtyTracking(){
+        db.get("Person").delete(999998).query();
+
+        OrmPerson person = new OrmPerson("SyncedDirty", 10);
+        person.setId(999998);
+        person.setDirtyTracking(true);
+        person.setUpsertOnSave(true);
+        assertTrue(person.save());
+        assertTrue(db.get("Person").has(999998));
+
+        // deleted elsewhere, nothing has changed but the row is stored again
+        db.get("Person").delete(999998).query();
+        assertTrue(person.save());
+        assertEquals(1, db.get("Person").count("Id = ? AND Name = ?", 999998, "SyncedDirty"));
+    }
+
+    public void test_entityCache(){
+        db.getConfig().setEntityCacheSize(10);
+        try{
+            OrmPerson person = new OrmPerson();
+            assertTrue(person.load(person2Id));
+            long hitCount = db.getConfig().getEntityCacheHitCount();
+
+            OrmPerson cached = new OrmPerson();
+            assertTrue(cached.load(person2Id));
+            assertEquals(hitCount + 1, db.getConfig().getEntityCacheHitCount());
+            assertEquals(person2Id, cached.getId());
+            assertEquals(person.getName(), cached.getName());
+            assertEquals(person.getAge(), cached.getAge());
+
+            // saved values are cached
+            cached.setAge(22);
+            assertTrue(cached.save());
+            assertTrue(person.load(person2Id));
+            assertEquals(22, person.getAge());
+            assertEquals(hitCount + 2, db.getConfig().getEntityCacheHitCount());
+
+            // any other write to the table invalidates
+            db.get("Person").update("Name = ?", person.getName()).val("Age", 2).query();
+            assertTrue(person.load(person2Id));
+            assertEquals(2, person.getAge());
+            assertEquals(hitCount + 2, db.getConfig().getEntityCacheHitCount());
+
+            assertFalse(person.load(-1));
+        }
+        finally {
+            db.getConfig().setEntityCacheSize(0);
+        }
+    }
+
+    public void test_entityCache_partialUpdate(){
+        db.getConfig().setEntityCacheSize(10);
+        try{
+            OrmPerson person = new OrmPerson();
+            person.setDirtyTracking(true);
+            assertTrue(person.load(person2Id));
+
+            // only the age is written, the name is not cached
+            person.setAge(33);
+            person.setName("NeverSaved");
+            assertTrue(db.get("Person").update(person, "Age").query() == 1);
+
+            OrmPerson other = new OrmPerson();
+            assertTrue(other.load(person2Id));
+            assertEquals("Person2", other.getName());
+            assertEquals(33, other.getAge());
+        }
+        finally {
+            db.getConfig().setEntityCacheSize(0);
+        }
+    }
+
+    public void test_entityCache_deletedRow(){
+        db.getConfig().setEntityCacheSize(10);
+        try{
+            OrmPerson person = new OrmPerson(UUID.randomUUID().toString(), 60);
+            assertTrue(person.save());
+            long id = person.getId();
+            db.get("Person").delete(id).query();
+
+            // no row, the stale values are not cached
+            person.load(id);
+            long hitCount = db.getConfig().getEntityCacheHitCount();
+            OrmPerson other = new OrmPerson();
+            assertFalse(other.load(id));
+            assertEquals(hitCount, db.getConfig().getEntityCacheHitCount());
+        }
+        finally {
+            db.getConfig().setEntityCacheSize(0);
+        }
+    }
+
+    public void test_entityCache_transaction(){
+        db.getConfig().setEntityCacheSize(10);
+        try{
+            final OrmPerson person = new OrmPerson();
+            assertTrue(person.load(person1Id));
+            final int age = person.getAge();
+
+            // rolled back, nothing written in the transaction is cached
+            assertFalse(db.begin(new IDatabase.Batch() {
+                @Override
+                public void exec(IDatabase database) {
+                    person.setAge(age + 100);
+                    assertTrue(person.save());
+                    throw new Error("Fake error so it will throw");
+                }
+            }).execute());
+
+            OrmPerson other = new OrmPerson();
+            assertTrue(other.load(person1Id));
+            assertEquals(age, other.getAge());
+        }
+        finally {
+            db.getConfig().setEntityCacheSize(0);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////
+
+    @Bindable
+    static class BoundOrmPerson extends BaseEntity {
+        @Column("Name") String name;
+        @Column("Age") int age;
+
+        @Override
+        public String getTableName() {
+            return "Person";
+        }
+    }
+
+    static class BoundOrmPersonWithAddress extends BoundOrmPerson {
+        @Column("Address") byte[] address;
+    }
 }
@@ -0,0 +1,28 @@
+package com.bingzer.android.dbv;
+
+import com.bingzer.android.dbv.annotations.Bindable;
+import com.bingzer.android.dbv.annotations.Column;
+import com.bingzer.android.dbv.annotations.Id;
+import com.bingzer.android.dbv.utils.EntityUtils;
+
+/**
+ * Same as Person, but uses the generated binder
+ */
+@Bindable
+public class BoundPerson implements IEntity {
+
+    @Id long id = -1;
+    @Column("Name") String name;
+    @Column("Age") int age;
+    @Column("Address") byte[] address;
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void map(Mapper mapper) {
+        EntityUtils.getBinder(BoundPerson.class).map(this, mapper);
+    }
+}
@@ -58,4 +58,14 @@ public class ConfigTest extends AndroidTestCase {
         db.getConfig().setReadOnly(false);
         assertTrue(!db.getConfig().isReadOnly());
     }
+
+    public void testStatementCacheSize(){
+        // default
+        assertEquals(25, db.getConfig().getStatementCacheSize());
+
+        db.getConfig().setStatementCacheSize(0);
+        assertEquals(0, db.getConfig().getStatementCacheSize());
+        db.getConfig().setStatementCacheSize(25);
+        assertEquals(25, db.getConfig().getStatementCacheSize());
+    }
 }
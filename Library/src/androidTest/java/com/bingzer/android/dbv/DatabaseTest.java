@@ -21,9 +21,12 @@ import android.database.Cursor;
 import android.test.AndroidTestCase;
 
 import com.bingzer.android.dbv.internal.Database;
+import com.bingzer.android.dbv.queries.QueryFuture;
 import com.bingzer.android.dbv.utils.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by Ricky Tobing on 7/18/13.
@@ -118,4 +121,73 @@ public class DatabaseTest extends AndroidTestCase {
         File dbFile = new File(db.getPath());
         assertTrue(dbFile.exists());
     }
+
+    public void testClose_CommitsQueuedWrites() throws Exception {
+        db.get("Customers").delete("Name = ?", "Queued").query();
+        db.getConfig().setWriteQueueBatchSize(8);
+        List<QueryFuture<Long>> futures = new ArrayList<QueryFuture<Long>>();
+        try{
+            for(int i = 0; i < 20; i++){
+                futures.add(db.enqueue(new IDatabase.Write<Long>() {
+                    @Override
+                    public Long exec(IDatabase database) {
+                        return database.get("Customers").insert("Name", "Queued").query();
+                    }
+                }));
+            }
+            db.close();
+        }
+        finally {
+            db.getConfig().setWriteQueueBatchSize(0);
+        }
+
+        for(QueryFuture<Long> future : futures){
+            assertTrue(future.isDone());
+            assertTrue(future.get() > 0);
+        }
+
+        // executors are created again
+        setUp();
+        assertEquals(20, db.get("Customers").count("Name = ?", "Queued"));
+        QueryFuture<Integer> deleted = db.enqueue(new IDatabase.Write<Integer>() {
+            @Override
+            public Integer exec(IDatabase database) {
+                return database.get("Customers").delete("Name = ?", "Queued").query();
+            }
+        });
+        assertEquals(20, deleted.get().intValue());
+    }
+
+    public void testWal_TempTable(){
+        IDatabase walDb = DbQuery.getDatabase("WalTempTableDb");
+        walDb.getConfig().setWriteAheadLogging(true);
+        walDb.open(1, new SQLiteBuilder() {
+            @Override
+            public Context getContext() {
+                return DatabaseTest.this.getContext();
+            }
+
+            @Override
+            public void onModelCreate(IDatabase database, IDatabase.Modeling modeling) {
+                modeling.add("Item")
+                        .addPrimaryKey("Id")
+                        .addText("Name");
+            }
+        });
+
+        try{
+            // only exists on the writer connection
+            walDb.execSql("CREATE TEMP TABLE IF NOT EXISTS TempItem (Id INTEGER PRIMARY KEY, Name TEXT)");
+            walDb.execSql("INSERT INTO TempItem (Name) VALUES ('Temp')");
+
+            assertEquals(1, walDb.get("TempItem").count("Name = ?", "Temp"));
+            Cursor cursor = walDb.get("TempItem").select("Name = ?", "Temp").query();
+            assertEquals(1, cursor.getCount());
+            cursor.close();
+        }
+        finally {
+            walDb.close();
+            walDb.getConfig().setWriteAheadLogging(false);
+        }
+    }
 }
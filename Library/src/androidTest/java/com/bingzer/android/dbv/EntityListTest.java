@@ -3,7 +3,9 @@ package com.bingzer.android.dbv;
 import android.content.Context;
 import android.test.AndroidTestCase;
 
+import com.bingzer.android.dbv.queries.BatchUpdate;
 import com.bingzer.android.dbv.queries.InsertInto;
+import com.bingzer.android.dbv.queries.Upsert;
 
 /**
  * Created by Ricky Tobing on 8/12/13.
@@ -101,6 +103,29 @@ public class EntityListTest extends AndroidTestCase{
         assertEquals("Messi", personList.get(2).getName());
     }
 
+    public void testBulkUpdate_Counts(){
+        PersonList personList = new PersonList();
+        db.get("Person").select().query(personList);
+
+        // Messi no longer exists
+        db.get("Person").delete(personList.get(2).getId()).query();
+        personList.get(0).setAge(1000);
+
+        BatchUpdate update = db.get("Person").update(personList);
+        assertEquals(5, (int) update.query());
+
+        int[] counts = update.getCounts();
+        assertEquals(6, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(0, counts[2]);
+        assertEquals(1, counts[5]);
+
+        personList = new PersonList();
+        db.get("Person").select().query(personList);
+        assertEquals(1000, personList.get(0).getAge());
+    }
+
     public void testBulkInsert(){
         PersonList personList = new PersonList();
         personList.add(new Person("Person7", 77, "Whatever".getBytes()));
@@ -114,6 +139,87 @@ public class EntityListTest extends AndroidTestCase{
         assertTrue(personList.get(personList.size() - 1).getName().equals("Person8"));
     }
 
+    public void testBulkInsert_AssignsIds(){
+        PersonList personList = new PersonList();
+        personList.add(new Person("Person9", 99, "Whatever".getBytes()));
+        personList.add(new Person("Person10", 100, "Whatever too".getBytes()));
+
+        assertEquals(2, (long) db.get("Person").insert(personList).query());
+        assertEquals(personList.get(0).getId(), db.get("Person").selectId("Name = ?", "Person9"));
+        assertEquals(personList.get(1).getId(), db.get("Person").selectId("Name = ?", "Person10"));
+    }
+
+    public void testBulkInsert_Error_ShouldRollback(){
+        PersonList personList = new PersonList();
+        Person person = new Person("Person13", 13, "Whatever".getBytes());
+        personList.add(person);
+        personList.add(new Person("Person14", 14, "Whatever too".getBytes()){
+            @Override
+            public void map(Mapper mapper) {
+                throw new IllegalStateException("Failed");
+            }
+        });
+
+        assertEquals(-1, (long) db.get("Person").insert(personList).query());
+        assertEquals(-1, person.getId());
+        assertEquals(0, db.get("Person").count("Name = ?", "Person13"));
+    }
+
+    public void testUpsert(){
+        PersonList personList = new PersonList();
+        db.get("Person").select().query(personList);
+        personList.get(0).setAge(1000);
+
+        Person newPerson = new Person("Person11", 11, "Whatever".getBytes());
+        Person syncedPerson = new Person("Person12", 12, "Whatever too".getBytes());
+        syncedPerson.setId(100000);
+        personList.add(newPerson);
+        personList.add(syncedPerson);
+
+        Upsert upsert = db.get("Person").upsert(personList);
+        assertEquals(8, (int) upsert.query());
+        assertEquals(2, upsert.getInsertedCount());
+        assertEquals(6, upsert.getUpdatedCount());
+
+        assertTrue(newPerson.getId() > 0);
+        assertEquals(100000, syncedPerson.getId());
+        assertTrue(db.get("Person").has("Name = ? AND Id = ?", "Person12", 100000));
+        assertTrue(db.get("Person").has("Name = ? AND Age = ?", "John", 1000));
+
+        // second time everything is updated
+        upsert = db.get("Person").upsert(personList);
+        assertEquals(0, upsert.getInsertedCount());
+        assertEquals(8, upsert.getUpdatedCount());
+    }
+
+    public void testUpsert_IdOnly(){
+        final long johnId = db.get("Person").selectId("Name = ?", "John");
+        IEntity idOnly = new IEntity() {
+            long id = johnId;
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public void map(Mapper mapper) {
+                mapper.mapId(new Delegate.TypeId(this) {
+                    @Override
+                    public void set(Long value) {
+                        id = value;
+                    }
+                });
+            }
+        };
+
+        // nothing to update but the row exists
+        Upsert upsert = db.get("Person").upsert(idOnly);
+        assertEquals(1, (int) upsert.query());
+        assertEquals(1, upsert.getUpdatedCount());
+        assertEquals(0, upsert.getInsertedCount());
+    }
+
     public void testBulkDelete(){
         PersonList personList = new PersonList();
         db.get("Person").select().query(personList);
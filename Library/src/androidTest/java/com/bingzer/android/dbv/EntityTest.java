@@ -1,9 +1,14 @@
 package com.bingzer.android.dbv;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.test.AndroidTestCase;
 
 import com.bingzer.android.dbv.queries.InsertInto;
+import com.bingzer.android.dbv.queries.PreparedSelect;
+import com.bingzer.android.dbv.utils.EntityUtils;
+
+import java.util.ArrayList;
 
 /**
  * Created by Ricky Tobing on 8/9/13.
@@ -52,6 +57,34 @@ public class EntityTest extends AndroidTestCase {
     }
 
 
+    public void testPreparedSelect(){
+        PreparedSelect byName = db.get("Person").prepare("Name = ?");
+
+        Person person = new Person();
+        byName.query(person, "Messi");
+        assertTrue(person.getName().equals("Messi"));
+        assertTrue(person.getAge() == 25);
+
+        byName.query(person, "Ronaldo");
+        assertTrue(person.getName().equals("Ronaldo"));
+        assertTrue(person.getAge() == 40);
+    }
+
+    public void testPreparedSelect_EntityList(){
+        PreparedSelect olderThan = db.get("Person").prepare(
+                db.get("Person").select("Age > ?").orderBy("Age"));
+
+        PersonList personList = new PersonList();
+        olderThan.query(personList, 24);
+        assertEquals(2, personList.size());
+        assertTrue(personList.get(0).getName().equals("Messi"));
+
+        personList = new PersonList();
+        olderThan.query(personList, 30);
+        assertEquals(1, personList.size());
+        assertTrue(personList.get(0).getName().equals("Ronaldo"));
+    }
+
     public void testInsertEntity(){
         Person person = new Person();
         person.setName("Andrea Pirlo");
@@ -63,6 +96,81 @@ public class EntityTest extends AndroidTestCase {
         assertTrue(db.get("Person").count("Name = ?", "Andrea Pirlo") > 0);
     }
 
+    public void testInsertUpdateEntity_PrimitiveDelegates(){
+        PrimitivePerson person = new PrimitivePerson();
+        person.name = "Andrea Pirlo";
+        person.age = 35;
+
+        long pirloId = db.get("Person").insert(person).query();
+        assertTrue(pirloId == person.id);
+
+        person.age = 36;
+        assertEquals(1, (int) db.get("Person").update(person).query());
+
+        PrimitivePerson p2 = new PrimitivePerson();
+        db.get("Person").select(pirloId).query(p2);
+        assertEquals(pirloId, p2.id);
+        assertEquals("Andrea Pirlo", p2.name);
+        assertEquals(36, p2.age);
+    }
+
+    public void testBinder_Generated(){
+        assertNotNull(EntityUtils.getBinder(BoundPerson.class));
+        assertNull(EntityUtils.getBinder(Person.class));
+    }
+
+    public void testBinder_InsertSelectUpdate(){
+        BoundPerson person = new BoundPerson();
+        person.name = "Xavi";
+        person.age = 34;
+        person.address = "Barcelona".getBytes();
+
+        long xaviId = db.get("Person").insert(person).query();
+        assertTrue(xaviId > 0);
+        assertEquals(xaviId, person.id);
+
+        person.age = 35;
+        assertEquals(1, (int) db.get("Person").update(person).query());
+
+        BoundPerson p2 = new BoundPerson();
+        db.get("Person").select(xaviId).query(p2);
+        assertEquals(xaviId, p2.id);
+        assertEquals("Xavi", p2.name);
+        assertEquals(35, p2.age);
+        assertEquals("Barcelona", new String(p2.address));
+    }
+
+    public void testBinder_EntityList(){
+        BoundPersonList list = new BoundPersonList();
+        db.get("Person").select("Age > ?", 24).orderBy("Age").query(list);
+
+        assertEquals(2, list.size());
+        assertEquals("Messi", list.get(0).name);
+        assertEquals("Ronaldo", list.get(1).name);
+    }
+
+    public void testEntityList_Merge(){
+        PersonList personList = new PersonList();
+        db.get("Person").select("Name = ? OR Name = ?", "John", "Messi").query(personList);
+        assertEquals(2, personList.size());
+        Person john = personList.get(0);
+
+        db.get("Person").update("Name = ?", "John").val("Age", 24);
+        Cursor cursor = db.get("Person").select("Name = ? OR Name = ?", "John", "Ronaldo").query();
+        EntityUtils.MergeReport<Person> report = new EntityUtils.MergeReport<Person>();
+        EntityUtils.mapEntityListFromCursor(db.get("Person"), personList, cursor, report);
+        cursor.close();
+
+        assertEquals(3, personList.size());
+        assertEquals(1, report.getUpdated().size());
+        assertTrue(report.getUpdated().get(0) == john);
+        assertEquals(24, john.getAge());
+        assertEquals(1, report.getAdded().size());
+        assertEquals("Ronaldo", report.getAdded().get(0).getName());
+        assertEquals(1, report.getUntouched().size());
+        assertEquals("Messi", report.getUntouched().get(0).getName());
+    }
+
     public void testUpdateEntity(){
         Person person = new Person();
         person.setName("Messi");
@@ -124,5 +232,61 @@ public class EntityTest extends AndroidTestCase {
 
 
 
-}
 
+    ////////////////////////////////////////////////////////////////////////
+
+    static class PrimitivePerson implements IEntity {
+        long id = -1;
+        String name;
+        int age;
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public void map(Mapper mapper) {
+            mapper.mapId(new Delegate.LongDelegate() {
+                @Override
+                public void setLong(long value) {
+                    id = value;
+                }
+
+                @Override
+                public long getLong() {
+                    return id;
+                }
+            });
+            mapper.map("Name", new Delegate.TypeString() {
+                @Override
+                public void set(String value) {
+                    name = value;
+                }
+
+                @Override
+                public String get() {
+                    return name;
+                }
+            });
+            mapper.map("Age", new Delegate.IntDelegate() {
+                @Override
+                public void setInt(int value) {
+                    age = value;
+                }
+
+                @Override
+                public int getInt() {
+                    return age;
+                }
+            });
+        }
+    }
+
+    static class BoundPersonList extends ArrayList<BoundPerson> implements IEntityList<BoundPerson> {
+        @Override
+        public BoundPerson newEntity() {
+            return new BoundPerson();
+        }
+    }
+}
@@ -85,4 +85,45 @@ public class ForeignKeyTest2 extends AndroidTestCase {
 
         assertFalse(db.get("Orders").has("CustomerId = ? AND ProductId = ?", baloteliId, computerId));
     }
+
+    public void testDeleteCascade_QueryCache(){
+        db.getConfig().setQueryCacheSize(10);
+        try{
+            long computerId = db.get("Products").selectId("Name = ?", "Computer");
+
+            // cached
+            assertEquals(1, db.get("Orders").count("ProductId = ?", computerId));
+            assertEquals(1, db.get("Orders").count("ProductId = ?", computerId));
+
+            // the orders are deleted by the foreign key
+            assertEquals(1, (int) db.get("Products").delete(computerId).query());
+            assertEquals(0, db.get("Orders").count("ProductId = ?", computerId));
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+        }
+    }
+
+    public void testTrigger_QueryCache(){
+        db.execSql("CREATE TRIGGER IF NOT EXISTS DeletePirloOrders AFTER UPDATE ON Customers " +
+                "BEGIN DELETE FROM Orders WHERE CustomerId = NEW.Id; END");
+        db.getConfig().setQueryCacheSize(10);
+        try{
+            long pirloId = db.get("Customers").selectId("Name = ?", "Pirlo");
+            long computerId = db.get("Products").selectId("Name = ?", "Computer");
+            db.get("Orders").insertInto("Quantity", "CustomerId", "ProductId").val(1, pirloId, computerId);
+
+            // cached
+            assertEquals(1, db.get("Orders").count("CustomerId = ?", pirloId));
+            assertEquals(1, db.get("Orders").count("CustomerId = ?", pirloId));
+
+            // the trigger deletes the orders
+            db.get("Customers").update(pirloId).val("Address", "Milan").query();
+            assertEquals(0, db.get("Orders").count("CustomerId = ?", pirloId));
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+            db.execSql("DROP TRIGGER IF EXISTS DeletePirloOrders");
+        }
+    }
 }
@@ -3,12 +3,20 @@ package com.bingzer.android.dbv;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.os.Debug;
 import android.test.AndroidTestCase;
 
 import com.bingzer.android.dbv.internal.Database;
+import com.bingzer.android.dbv.queries.InsertInto;
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.utils.CollectionUtils;
+import com.bingzer.android.dbv.utils.Utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Created by Ricky on 8/18/13.
@@ -108,6 +116,394 @@ public class PerformanceTest extends AndroidTestCase{
         assertTrue(true);
     }
 
+    public void testPerformance_SelectEntityList(){
+        db.getConfig().setAppendTableNameForId(true);
+
+        long rawNano = System.nanoTime();
+        TrackList rawList = new TrackList();
+        Cursor cursor = sqLiteDatabase.rawQuery("SELECT * FROM Track", null);
+        while(cursor.moveToNext()){
+            Track track = new Track();
+            track.id = cursor.getLong(0);
+            track.name = cursor.getString(1);
+            track.albumId = cursor.getInt(2);
+            track.mediaTypeId = cursor.getInt(3);
+            track.genreId = cursor.getInt(4);
+            track.composer = cursor.getString(5);
+            track.milliseconds = cursor.getLong(6);
+            track.bytes = cursor.getLong(7);
+            track.unitPrice = cursor.getDouble(8);
+            rawList.add(track);
+        }
+        cursor.close();
+        rawNano = System.nanoTime() - rawNano;
+
+        long rawDbQuery = System.nanoTime();
+        TrackList trackList = new TrackList();
+        db.get("Track").select().query(trackList);
+        rawDbQuery = System.nanoTime() - rawDbQuery;
+
+        long diff = rawDbQuery - rawNano;
+        System.out.println("Raw nano     : " + rawNano);
+        System.out.println("Db Query nano: " + rawDbQuery);
+        System.out.println("Differences  : " + diff);
+        System.out.println();
+
+        db.getConfig().setAppendTableNameForId(false);
+        assertEquals(rawList.size(), trackList.size());
+        assertEquals(rawList.get(0).name, trackList.get(0).name);
+        assertEquals(rawList.get(0).unitPrice, trackList.get(0).unitPrice);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void testPerformance_PrimitiveDelegateAllocations(){
+        db.getConfig().setAppendTableNameForId(true);
+
+        // warm up (mapping plan, statements)
+        db.get("Track").select().query(new TrackList());
+        db.get("Track").select().query(new PrimitiveTrackList());
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        TrackList boxedList = new TrackList();
+        db.get("Track").select().query(boxedList);
+        int boxedAllocs = Debug.getThreadAllocCount();
+
+        Debug.resetThreadAllocCount();
+        PrimitiveTrackList primitiveList = new PrimitiveTrackList();
+        db.get("Track").select().query(primitiveList);
+        int primitiveAllocs = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        System.out.println("Boxed allocations    : " + boxedAllocs);
+        System.out.println("Primitive allocations: " + primitiveAllocs);
+        System.out.println();
+
+        db.getConfig().setAppendTableNameForId(false);
+        assertEquals(boxedList.size(), primitiveList.size());
+        assertEquals(boxedList.get(0).id, primitiveList.get(0).id);
+        assertEquals(boxedList.get(0).milliseconds, primitiveList.get(0).milliseconds);
+        assertEquals(boxedList.get(0).unitPrice, primitiveList.get(0).unitPrice);
+        assertTrue(primitiveAllocs <= boxedAllocs);
+    }
+
+    public void testPerformance_RefreshEntityList(){
+        db.getConfig().setAppendTableNameForId(true);
+
+        TrackList trackList = new TrackList();
+        db.get("Track").select().query(trackList);
+        int size = trackList.size();
+
+        // every row is merged to the entity already in the list
+        long nano = System.nanoTime();
+        db.get("Track").select().query(trackList);
+        nano = System.nanoTime() - nano;
+
+        System.out.println("Refresh nano : " + nano);
+        System.out.println();
+
+        db.getConfig().setAppendTableNameForId(false);
+        assertEquals(size, trackList.size());
+    }
+
+    public void testPerformance_BulkInsert(){
+        db.getConfig().setAppendTableNameForId(true);
+
+        TrackList trackList = new TrackList();
+        db.get("Track").select().query(trackList);
+
+        // inserted as new rows (new ids are assigned back)
+        long nano = System.nanoTime();
+        long numInserted = db.get("Track").insert(trackList).query();
+        nano = System.nanoTime() - nano;
+
+        // remove the copies
+        assertEquals(trackList.size(), (int) db.get("Track").delete(trackList).query());
+
+        System.out.println("Bulk insert nano : " + nano);
+        System.out.println("Rows/sec         : " + (long) (numInserted * 1E9 / nano));
+        System.out.println();
+
+        db.getConfig().setAppendTableNameForId(false);
+        assertEquals(trackList.size(), numInserted);
+    }
+
+    public void testPerformance_BulkUpdate(){
+        db.getConfig().setAppendTableNameForId(true);
+
+        final TrackList trackList = new TrackList();
+        db.get("Track").select().query(trackList);
+
+        // one update (and statement) per entity
+        long singleNano = System.nanoTime();
+        db.begin(new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                for(Track track : trackList){
+                    database.get("Track").update(track).query();
+                }
+            }
+        }).execute();
+        singleNano = System.nanoTime() - singleNano;
+
+        // one compiled statement for the whole list
+        long bulkNano = System.nanoTime();
+        int numUpdated = db.get("Track").update(trackList).query();
+        bulkNano = System.nanoTime() - bulkNano;
+
+        System.out.println("Single update nano : " + singleNano);
+        System.out.println("Bulk update nano   : " + bulkNano);
+        System.out.println("Differences        : " + (singleNano - bulkNano));
+        System.out.println();
+
+        db.getConfig().setAppendTableNameForId(false);
+        assertEquals(trackList.size(), numUpdated);
+    }
+
+    public void testPerformance_MultiRowInsert(){
+        String[] columns = new String[]{ "Name", "AlbumId", "MediaTypeId", "GenreId", "Composer", "Milliseconds", "Bytes", "UnitPrice" };
+        List<Object[]> rows = new ArrayList<Object[]>();
+        Cursor cursor = sqLiteDatabase.rawQuery("SELECT " + Utils.join(",", columns) + " FROM Track", null);
+        while(cursor.moveToNext()){
+            rows.add(new Object[]{ cursor.getString(0), cursor.getInt(1), cursor.getInt(2), cursor.getInt(3),
+                    cursor.getString(4), cursor.getLong(5), cursor.getLong(6), cursor.getDouble(7) });
+        }
+        cursor.close();
+        long maxId = db.get("Track").max("TrackId").asLong();
+
+        // single row: one statement execution per row
+        long singleNano = System.nanoTime();
+        InsertInto.Batch batch = db.get("Track").insertInto(columns).batch();
+        for(Object[] row : rows){
+            batch.val(row);
+        }
+        long singleCount = batch.query();
+        singleNano = System.nanoTime() - singleNano;
+        db.get("Track").delete("TrackId > ?", maxId).query();
+
+        // multi row: up to 124 rows (999 / 8 columns) per statement
+        long multiNano = System.nanoTime();
+        long multiCount = db.get("Track").bulkInsert(columns, rows).query();
+        multiNano = System.nanoTime() - multiNano;
+        db.get("Track").delete("TrackId > ?", maxId).query();
+
+        System.out.println("Single row insert nano: " + singleNano);
+        System.out.println("Multi row insert nano : " + multiNano);
+        System.out.println("Differences           : " + (singleNano - multiNano));
+        System.out.println();
+
+        assertEquals(rows.size(), singleCount);
+        assertEquals(rows.size(), multiCount);
+        assertEquals(rows.size(), db.get("Track").count());
+    }
+
+    public void testPerformance_OpenLazySchema(){
+        IDatabase startupDb = DbQuery.getDatabase("StartupBenchmark");
+        SQLiteBuilder builder = new SQLiteBuilder() {
+            @Override
+            public Context getContext() {
+                return PerformanceTest.this.getContext();
+            }
+
+            @Override
+            public void onModelCreate(IDatabase database, IDatabase.Modeling modeling) {
+                for(int i = 0; i < 200; i++){
+                    modeling.add("Table" + i)
+                            .addPrimaryKey("Id")
+                            .addText("Name")
+                            .addInteger("Value")
+                            .addReal("Amount");
+                }
+            }
+        };
+        startupDb.open(1, builder);
+        startupDb.close();
+
+        // open: one sqlite_master query, no PRAGMA
+        long openNano = System.nanoTime();
+        startupDb.open(1, builder);
+        openNano = System.nanoTime() - openNano;
+
+        // what open used to pay up front: one PRAGMA table_info per table
+        long columnsNano = System.nanoTime();
+        for(ITable table : startupDb.getTables()){
+            assertTrue(table.getColumnCount() > 0);
+        }
+        columnsNano = System.nanoTime() - columnsNano;
+        startupDb.close();
+
+        // prewarmed: open returns right away, columns are loaded in the background
+        startupDb.getConfig().setSchemaPrewarm(true);
+        long prewarmNano = System.nanoTime();
+        startupDb.open(1, builder);
+        prewarmNano = System.nanoTime() - prewarmNano;
+        assertEquals(4, startupDb.get("Table199").getColumnCount());
+        startupDb.getConfig().setSchemaPrewarm(false);
+        startupDb.close();
+
+        System.out.println("Lazy open nano        : " + openNano);
+        System.out.println("Prewarmed open nano   : " + prewarmNano);
+        System.out.println("Load all columns nano : " + columnsNano);
+        System.out.println("Eager open (approx.)  : " + (openNano + columnsNano));
+        System.out.println();
+
+        assertTrue(CollectionUtils.size(startupDb.getTables()) >= 200);
+    }
+
+    public void testPerformance_WalReaders() throws Exception {
+        final IDatabase walDb = DbQuery.getDatabase("WalBenchmark");
+        walDb.getConfig().setWriteAheadLogging(true);
+        walDb.getConfig().setReadConnectionPoolSize(3);
+        walDb.open(1, new SQLiteBuilder() {
+            @Override
+            public Context getContext() {
+                return PerformanceTest.this.getContext();
+            }
+
+            @Override
+            public void onModelCreate(IDatabase database, IDatabase.Modeling modeling) {
+                modeling.add("Item")
+                        .addPrimaryKey("Id")
+                        .addText("Name")
+                        .addInteger("Value");
+            }
+        });
+
+        try{
+            final int rowCount = 2000;
+            if(walDb.get("Item").count() != rowCount){
+                walDb.get("Item").delete().query();
+                List<Object[]> rows = new ArrayList<Object[]>();
+                for(int i = 0; i < rowCount; i++){
+                    rows.add(new Object[]{ "Item " + i, i });
+                }
+                walDb.get("Item").bulkInsert(new String[]{ "Name", "Value" }, rows).query();
+            }
+
+            // one writer holds a long transaction (i.e: a background sync)
+            Thread writer = new Thread(){
+                @Override
+                public void run() {
+                    walDb.begin(new IDatabase.Batch() {
+                        @Override
+                        public void exec(IDatabase database) {
+                            for(int i = 0; i < rowCount; i++){
+                                database.get("Item").update("Name = ?", "Item " + i).val("Value", i + 1).query();
+                            }
+                        }
+                    }).execute();
+                }
+            };
+
+            // N readers (i.e: the UI) keep reading
+            final long[] maxReadNanos = new long[3];
+            final int[] badCounts = new int[1];
+            Thread[] readers = new Thread[maxReadNanos.length];
+            for(int i = 0; i < readers.length; i++){
+                final int index = i;
+                readers[i] = new Thread(){
+                    @Override
+                    public void run() {
+                        for(int j = 0; j < 50; j++){
+                            long nano = System.nanoTime();
+                            Cursor cursor = walDb.get("Item").select("Value >= ?", 0).query();
+                            if(cursor.getCount() != rowCount) badCounts[0]++;
+                            cursor.close();
+                            nano = System.nanoTime() - nano;
+                            maxReadNanos[index] = Math.max(maxReadNanos[index], nano);
+                        }
+                    }
+                };
+            }
+
+            long totalNano = System.nanoTime();
+            writer.start();
+            for(Thread reader : readers) reader.start();
+            for(Thread reader : readers) reader.join();
+            writer.join();
+            totalNano = System.nanoTime() - totalNano;
+
+            long maxReadNano = 0;
+            for(long nano : maxReadNanos) maxReadNano = Math.max(maxReadNano, nano);
+            System.out.println("Readers                 : " + readers.length);
+            System.out.println("Max read nano (WAL)     : " + maxReadNano);
+            System.out.println("Total nano              : " + totalNano);
+            System.out.println("Checkpoint complete     : " + walDb.checkpoint());
+            System.out.println();
+
+            assertEquals(0, badCounts[0]);
+            assertEquals(rowCount, walDb.get("Item").count("Value > ?", 0));
+        }
+        finally {
+            walDb.close();
+            walDb.getConfig().setWriteAheadLogging(false);
+            walDb.getConfig().setReadConnectionPoolSize(2);
+        }
+    }
+
+    public void testPerformance_WriteQueue() throws Exception {
+        final IDatabase queueDb = DbQuery.getDatabase("WriteQueueBenchmark");
+        queueDb.open(1, new SQLiteBuilder() {
+            @Override
+            public Context getContext() {
+                return PerformanceTest.this.getContext();
+            }
+
+            @Override
+            public void onModelCreate(IDatabase database, IDatabase.Modeling modeling) {
+                modeling.add("Log")
+                        .addPrimaryKey("Id")
+                        .addText("Message");
+            }
+        });
+
+        try{
+            queueDb.get("Log").delete().query();
+            final int writeCount = 400;
+
+            // one transaction per write
+            queueDb.getConfig().setWriteQueueBatchSize(0);
+            long singleNano = System.nanoTime();
+            List<QueryFuture<Long>> futures = enqueueLogs(queueDb, writeCount);
+            for(QueryFuture<Long> future : futures) assertTrue(future.get() > 0);
+            singleNano = System.nanoTime() - singleNano;
+
+            // group commits
+            queueDb.getConfig().setWriteQueueBatchSize(64);
+            long groupNano = System.nanoTime();
+            futures = enqueueLogs(queueDb, writeCount);
+            // a failing write doesn't fail the others of its group
+            QueryFuture<Long> failed = queueDb.enqueue(new IDatabase.Write<Long>() {
+                @Override
+                public Long exec(IDatabase database) {
+                    throw new IllegalStateException("Failed write");
+                }
+            });
+            futures.addAll(enqueueLogs(queueDb, 10));
+            for(QueryFuture<Long> future : futures) assertTrue(future.get() > 0);
+            groupNano = System.nanoTime() - groupNano;
+
+            try{
+                failed.get();
+                fail("The write has failed");
+            }
+            catch (ExecutionException e){
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+
+            System.out.println("Writes                  : " + writeCount);
+            System.out.println("One transaction nano    : " + singleNano);
+            System.out.println("Group commit nano       : " + groupNano);
+            System.out.println();
+
+            assertEquals(writeCount * 2 + 10, queueDb.get("Log").count());
+        }
+        finally {
+            queueDb.getConfig().setWriteQueueBatchSize(0);
+            queueDb.close();
+        }
+    }
+
     // TODO: More tests
 
     ////////////////////////////////////////////////////////////////////////
@@ -123,7 +519,258 @@ public class PerformanceTest extends AndroidTestCase{
         }
     }
 
+    private List<QueryFuture<Long>> enqueueLogs(IDatabase database, int count){
+        List<QueryFuture<Long>> futures = new ArrayList<QueryFuture<Long>>();
+        for(int i = 0; i < count; i++){
+            final String message = "Message " + i;
+            futures.add(database.enqueue(new IDatabase.Write<Long>() {
+                @Override
+                public Long exec(IDatabase database) {
+                    return database.get("Log").insert("Message", message).query();
+                }
+            }));
+        }
+        return futures;
+    }
+
     private void checkNano(long nano){
         assertTrue("Slow performance", (Math.abs(nano)*1E+6) > 100);
     }
+
+    ////////////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////
+
+    static class Track implements IEntity {
+        long id;
+        String name;
+        int albumId;
+        int mediaTypeId;
+        int genreId;
+        String composer;
+        long milliseconds;
+        long bytes;
+        double unitPrice;
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public void map(Mapper mapper) {
+            mapper.mapId(new Delegate.TypeId(this) {
+                @Override
+                public void set(Long value) {
+                    id = value;
+                }
+            });
+            mapper.map("Name", new Delegate.TypeString() {
+                @Override
+                public void set(String value) {
+                    name = value;
+                }
+
+                @Override
+                public String get() {
+                    return name;
+                }
+            });
+            mapper.map("AlbumId", new Delegate.TypeInteger() {
+                @Override
+                public void set(Integer value) {
+                    albumId = value;
+                }
+
+                @Override
+                public Integer get() {
+                    return albumId;
+                }
+            });
+            mapper.map("MediaTypeId", new Delegate.TypeInteger() {
+                @Override
+                public void set(Integer value) {
+                    mediaTypeId = value;
+                }
+
+                @Override
+                public Integer get() {
+                    return mediaTypeId;
+                }
+            });
+            mapper.map("GenreId", new Delegate.TypeInteger() {
+                @Override
+                public void set(Integer value) {
+                    genreId = value;
+                }
+
+                @Override
+                public Integer get() {
+                    return genreId;
+                }
+            });
+            mapper.map("Composer", new Delegate.TypeString() {
+                @Override
+                public void set(String value) {
+                    composer = value;
+                }
+
+                @Override
+                public String get() {
+                    return composer;
+                }
+            });
+            mapper.map("Milliseconds", new Delegate.TypeLong() {
+                @Override
+                public void set(Long value) {
+                    milliseconds = value;
+                }
+
+                @Override
+                public Long get() {
+                    return milliseconds;
+                }
+            });
+            mapper.map("Bytes", new Delegate.TypeLong() {
+                @Override
+                public void set(Long value) {
+                    bytes = value;
+                }
+
+                @Override
+                public Long get() {
+                    return bytes;
+                }
+            });
+            mapper.map("UnitPrice", new Delegate.TypeDouble() {
+                @Override
+                public void set(Double value) {
+                    unitPrice = value;
+                }
+
+                @Override
+                public Double get() {
+                    return unitPrice;
+                }
+            });
+        }
+    }
+
+    static class TrackList extends ArrayList<Track> implements IEntityList<Track> {
+        @Override
+        public Track newEntity() {
+            return new Track();
+        }
+    }
+
+    static class PrimitiveTrack extends Track {
+        @Override
+        public void map(Mapper mapper) {
+            mapper.mapId(new Delegate.LongDelegate() {
+                @Override
+                public void setLong(long value) {
+                    id = value;
+                }
+
+                @Override
+                public long getLong() {
+                    return id;
+                }
+            });
+            mapper.map("Name", new Delegate.TypeString() {
+                @Override
+                public void set(String value) {
+                    name = value;
+                }
+
+                @Override
+                public String get() {
+                    return name;
+                }
+            });
+            mapper.map("AlbumId", new Delegate.IntDelegate() {
+                @Override
+                public void setInt(int value) {
+                    albumId = value;
+                }
+
+                @Override
+                public int getInt() {
+                    return albumId;
+                }
+            });
+            mapper.map("MediaTypeId", new Delegate.IntDelegate() {
+                @Override
+                public void setInt(int value) {
+                    mediaTypeId = value;
+                }
+
+                @Override
+                public int getInt() {
+                    return mediaTypeId;
+                }
+            });
+            mapper.map("GenreId", new Delegate.IntDelegate() {
+                @Override
+                public void setInt(int value) {
+                    genreId = value;
+                }
+
+                @Override
+                public int getInt() {
+                    return genreId;
+                }
+            });
+            mapper.map("Composer", new Delegate.TypeString() {
+                @Override
+                public void set(String value) {
+                    composer = value;
+                }
+
+                @Override
+                public String get() {
+                    return composer;
+                }
+            });
+            mapper.map("Milliseconds", new Delegate.LongDelegate() {
+                @Override
+                public void setLong(long value) {
+                    milliseconds = value;
+                }
+
+                @Override
+                public long getLong() {
+                    return milliseconds;
+                }
+            });
+            mapper.map("Bytes", new Delegate.LongDelegate() {
+                @Override
+                public void setLong(long value) {
+                    bytes = value;
+                }
+
+                @Override
+                public long getLong() {
+                    return bytes;
+                }
+            });
+            mapper.map("UnitPrice", new Delegate.DoubleDelegate() {
+                @Override
+                public void setDouble(double value) {
+                    unitPrice = value;
+                }
+
+                @Override
+                public double getDouble() {
+                    return unitPrice;
+                }
+            });
+        }
+    }
+
+    static class PrimitiveTrackList extends ArrayList<PrimitiveTrack> implements IEntityList<PrimitiveTrack> {
+        @Override
+        public PrimitiveTrack newEntity() {
+            return new PrimitiveTrack();
+        }
+    }
 }
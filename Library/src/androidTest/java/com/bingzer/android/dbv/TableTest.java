@@ -21,14 +21,25 @@ import android.content.Context;
 import android.database.Cursor;
 import android.test.AndroidTestCase;
 
+import com.bingzer.android.dbv.queries.Aggregate;
 import com.bingzer.android.dbv.queries.ISequence;
 import com.bingzer.android.dbv.queries.InsertInto;
+import com.bingzer.android.dbv.queries.PreparedSelect;
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.queries.Subscription;
 import com.bingzer.android.dbv.utils.CollectionUtils;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -116,6 +127,61 @@ public class TableTest extends AndroidTestCase{
         assertTrue(table.getAlias().equals("T ~!@#$%^&*()_ +"));
     }
 
+    public void testTableAliases_Immutable(){
+        ITable customers = db.get("Customers");
+        ITable aliased = db.get("Customers C");
+        assertNotSame(customers, aliased);
+        assertSame(customers, db.get("customers"));
+        assertSame(aliased, db.get("Customers C"));
+        assertNull(customers.getAlias());
+        assertEquals("C", aliased.getAlias());
+        assertEquals(customers.getColumns(), aliased.getColumns());
+
+        try{
+            aliased.setAlias("X");
+            fail();
+        }
+        catch (UnsupportedOperationException e){
+            assertEquals("C", aliased.getAlias());
+        }
+
+        assertNull(db.get("NoSuchTable"));
+        assertNull(db.get("NoSuchTable"));
+    }
+
+    public void testTableAliases_Generated(){
+        ITable customers = db.get("Customers");
+        for(int i = 0; i < 1000; i++){
+            ITable aliased = db.get("Customers c" + i);
+            assertEquals("c" + i, aliased.getAlias());
+            assertEquals(customers.getName(), aliased.getName());
+        }
+        assertSame(customers, db.get("Customers"));
+    }
+
+    public void testTableAliases_Threads() throws Exception {
+        final String[] failure = new String[1];
+        Thread[] threads = new Thread[4];
+        for(int i = 0; i < threads.length; i++){
+            final String alias = "C" + i;
+            threads[i] = new Thread(){
+                @Override
+                public void run() {
+                    for(int j = 0; j < 200; j++){
+                        ITable table = db.get("Customers " + alias);
+                        if(!alias.equals(table.getAlias())) failure[0] = table.getAlias();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for(Thread thread : threads){
+            thread.join();
+        }
+        assertNull(failure[0]);
+    }
+
     public void testGetCustomerId(){
         assertTrue(getCustomerId("Andrea Pirlo") > 0);
         assertTrue(getCustomerId("Christiano Ronaldo") > 0);
@@ -170,6 +236,238 @@ public class TableTest extends AndroidTestCase{
 
     ///////////////////////////////////////////////
     // ----------------- count() ------------------//
+    public void testScalars_ReuseCompiledStatement(){
+        ITable productTable = db.get("Products");
+        long messiId = getCustomerId("Lionel Messi");
+        productTable.count("Price > ?", 100);
+        productTable.sum("Price", "Price > ?", 100);
+        customerTable.has(messiId);
+        customerTable.selectId("Name = ?", "Lionel Messi");
+
+        long hitCount = db.getConfig().getStatementCacheHitCount();
+        long missCount = db.getConfig().getStatementCacheMissCount();
+        assertEquals(5, productTable.count("Price > ?", 100));
+        assertEquals(26700, productTable.sum("Price", "Price > ?", 100).asInt());
+        assertTrue(customerTable.has(messiId));
+        assertFalse(customerTable.has(-1));
+        assertEquals(messiId, customerTable.selectId("Name = ?", "Lionel Messi"));
+        assertEquals(-1, customerTable.selectId("Name = ?", "Nobody"));
+
+        assertEquals(hitCount + 6, db.getConfig().getStatementCacheHitCount());
+        assertEquals(missCount, db.getConfig().getStatementCacheMissCount());
+    }
+
+    public void testQueryCache_Hit(){
+        db.getConfig().setQueryCacheSize(10);
+        try{
+            ITable productTable = db.get("Products");
+            long hitCount = db.getConfig().getQueryCacheHitCount();
+
+            assertEquals(5, productTable.count("Price > ?", 100));
+            assertEquals(5, productTable.count("Price > ?", 100));
+            assertEquals(26700, productTable.sum("Price", "Price > ?", 100).asInt());
+            assertEquals(26700, productTable.sum("Price", "Price > ?", 100).asInt());
+
+            Cursor cursor = productTable.select("Price > ?", 100).orderBy("Price").query();
+            int count = cursor.getCount();
+            cursor.close();
+            cursor = productTable.select("Price > ?", 100).orderBy("Price").query();
+            assertEquals(count, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertTrue(cursor.getInt(cursor.getColumnIndex("Price")) > 100);
+            cursor.close();
+
+            assertEquals(hitCount + 3, db.getConfig().getQueryCacheHitCount());
+            assertTrue(db.getConfig().getQueryCacheHitRatio() > 0);
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+        }
+    }
+
+    public void testQueryCache_TooBig(){
+        db.getConfig().setQueryCacheSize(10);
+        db.getConfig().setQueryCacheMaxBytes(256);
+        try{
+            Cursor cursor = customerTable.select().orderBy("Name").query();
+            int count = customerTable.count();
+            assertEquals(count, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertNotNull(cursor.getString(cursor.getColumnIndex("Name")));
+            cursor.close();
+
+            // never cached
+            long hitCount = db.getConfig().getQueryCacheHitCount();
+            cursor = customerTable.select().orderBy("Name").query();
+            assertEquals(count, cursor.getCount());
+            cursor.close();
+            assertEquals(hitCount, db.getConfig().getQueryCacheHitCount());
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+            db.getConfig().setQueryCacheMaxBytes(1024 * 1024);
+        }
+    }
+
+    public void testQueryCache_Invalidate(){
+        db.getConfig().setQueryCacheSize(10);
+        try{
+            long messiId = getCustomerId("Lionel Messi");
+            assertEquals(1, customerTable.count("Name = ?", "Lionel Messi"));
+            int productCount = db.get("Products").count("Price > ?", 0);
+
+            customerTable.update(messiId).columns("Name").val("Leo Messi").query();
+            assertEquals(0, customerTable.count("Name = ?", "Lionel Messi"));
+
+            long hitCount = db.getConfig().getQueryCacheHitCount();
+            // products has not been written
+            assertEquals(productCount, db.get("Products").count("Price > ?", 0));
+            assertEquals(hitCount + 1, db.getConfig().getQueryCacheHitCount());
+
+            customerTable.update(messiId).columns("Name").val("Lionel Messi").query();
+            assertEquals(1, customerTable.count("Name = ?", "Lionel Messi"));
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+        }
+    }
+
+    public void testQueryCache_Transaction(){
+        db.getConfig().setQueryCacheSize(10);
+        try{
+            assertEquals(7, customerTable.count());
+            db.begin(new IDatabase.Batch() {
+                @Override
+                public void exec(IDatabase database) {
+                    database.get("Customers").insert("Name", "Cache Customer").query();
+                }
+            }).execute();
+            assertEquals(8, customerTable.count());
+
+            customerTable.delete("Name = ?", "Cache Customer").query();
+            assertEquals(7, customerTable.count());
+        }
+        finally {
+            db.getConfig().setQueryCacheSize(0);
+        }
+    }
+
+    public void testQueryAsync() throws Exception {
+        QueryFuture<Cursor> future = customerTable.select("Name = ?", "Kaka").queryAsync(null);
+        Cursor cursor = future.get();
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+
+        Aggregate.Result result = db.get("Products").aggregate().count().queryAsync(null).get();
+        assertEquals(db.get("Products").count(), result.get(0).asLong());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long[] count = new long[1];
+        customerTable.select().queryAsync(null).setCallback(new QueryFuture.Callback<Cursor>() {
+            @Override
+            public void onResult(Cursor result) {
+                count[0] = result.getCount();
+                result.close();
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(customerTable.count(), count[0]);
+    }
+
+    public void testQueryAsync_Cancel() throws Exception {
+        final List<Runnable> tasks = new LinkedList<Runnable>();
+        QueryFuture<Cursor> future = customerTable.select().queryAsync(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+
+        final Throwable[] error = new Throwable[1];
+        future.setCallback(new QueryFuture.Callback<Cursor>() {
+            @Override
+            public void onResult(Cursor result) {
+                fail("Cancelled");
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                error[0] = e;
+            }
+        });
+        assertTrue(future.cancel(true));
+        for(Runnable task : tasks) task.run();
+
+        assertTrue(future.isCancelled());
+        assertTrue(error[0] instanceof CancellationException);
+    }
+
+    public void testExecuteAsync() throws Exception {
+        int count = customerTable.count();
+        boolean committed = db.executeAsync(new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                database.get("Customers").insert("Name", "Async Customer").query();
+            }
+        }).get();
+        assertTrue(committed);
+        assertEquals(count + 1, customerTable.count());
+
+        customerTable.delete("Name = ?", "Async Customer").query();
+        assertEquals(count, customerTable.count());
+    }
+
+    public void testObserve() throws Exception {
+        final BlockingQueue<Integer> counts = new LinkedBlockingQueue<Integer>();
+        Subscription subscription = customerTable.select().observe(new QueryFuture.Callback<Cursor>() {
+            @Override
+            public void onResult(Cursor result) {
+                counts.add(result.getCount());
+                result.close();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                counts.add(-1);
+            }
+        }, null);
+
+        try{
+            int count = customerTable.count();
+            assertEquals(count, (int) counts.poll(10, TimeUnit.SECONDS));
+
+            customerTable.insert("Name", "Observed Customer").query();
+            assertEquals(count + 1, (int) counts.poll(10, TimeUnit.SECONDS));
+
+            // once per transaction
+            db.begin(new IDatabase.Batch() {
+                @Override
+                public void exec(IDatabase database) {
+                    database.get("Customers").insert("Name", "Observed Customer").query();
+                    database.get("Customers").insert("Name", "Observed Customer").query();
+                }
+            }).execute();
+            assertEquals(count + 3, (int) counts.poll(10, TimeUnit.SECONDS));
+
+            // another table
+            db.get("Products").update("Name = ?", "Computer").val("Price", 1000).query();
+            assertNull(counts.poll(500, TimeUnit.MILLISECONDS));
+        }
+        finally {
+            subscription.unsubscribe();
+            customerTable.delete("Name = ?", "Observed Customer").query();
+        }
+
+        assertTrue(subscription.isUnsubscribed());
+        assertNull(counts.poll(500, TimeUnit.MILLISECONDS));
+    }
+
     public void testCount(){
         assertEquals(7, db.get("Customers").count());
         assertEquals(10, db.get("Products").count());
@@ -309,6 +607,52 @@ public class TableTest extends AndroidTestCase{
         c.close();
     }
 
+    public void testPrepare_Cursor(){
+        PreparedSelect byName = customerTable.prepare(customerTable.select("Name = ?").columns("Name", "Country"));
+
+        Cursor c = byName.query("Lionel Messi");
+        assertTrue(c.moveToFirst());
+        assertTrue(c.getString(0).equals("Lionel Messi"));
+        c.close();
+
+        c = byName.query("Mario Baloteli");
+        assertTrue(c.moveToFirst());
+        assertTrue(c.getString(1).equals("Italy"));
+        c.close();
+
+        // no args: the select's own args (none here, bound as null)
+        c = byName.query();
+        assertEquals(0, c.getCount());
+        c.close();
+
+        try{
+            byName.query("Lionel Messi", "Italy");
+            fail("Should throw");
+        }
+        catch (IllegalArgumentException e){
+            // good
+        }
+    }
+
+    public void testPrepare_SelectArgs(){
+        PreparedSelect byName = customerTable.prepare(customerTable.select("Name = ?", "Lionel Messi").columns("Name"));
+
+        Cursor c = byName.query();
+        assertTrue(c.moveToFirst());
+        assertEquals("Lionel Messi", c.getString(0));
+        c.close();
+    }
+
+    public void testPrepare_Paging_ShouldThrow(){
+        try{
+            customerTable.prepare(customerTable.select().orderBy("Name").paging(2));
+            fail("Should throw");
+        }
+        catch (IllegalArgumentException e){
+            // good
+        }
+    }
+
     public void testSelect_Top(){
         Cursor c = db.get("Orders")
                 .select(2, "CustomerId = ?", getCustomerId("Christiano Ronaldo")).query();
@@ -507,6 +851,17 @@ public class TableTest extends AndroidTestCase{
         assertTrue(db.get("Products").delete("Name = ?", "Dodol").query() > 0);
     }
 
+    public void testInsert_Columns_MissingValues(){
+        try{
+            db.get("Products").insertInto("Name", "Price").val("Dodol").query();
+            fail("Should throw");
+        }
+        catch (IllegalArgumentException e){
+            // good
+        }
+        assertEquals(0, db.get("Products").count("Name = ?", "Dodol"));
+    }
+
     public void testInsert_ContentValues(){
         ContentValues contentValues = new ContentValues();
         contentValues.put("Name", "Dodol");
@@ -526,6 +881,77 @@ public class TableTest extends AndroidTestCase{
         assertTrue(db.get("Products").delete("Name = ?", "Dodol").query() > 0);
     }
 
+    public void testInsert_ReusesCompiledStatement(){
+        InsertInto insert = db.get("Products").insertInto("Name", "Price");
+        insert.val("Dodol", 1);
+
+        long hitCount = db.getConfig().getStatementCacheHitCount();
+        long missCount = db.getConfig().getStatementCacheMissCount();
+        insert.val("Dodol", 2);
+        insert.val("Dodol", 3);
+
+        assertEquals(hitCount + 2, db.getConfig().getStatementCacheHitCount());
+        assertEquals(missCount, db.getConfig().getStatementCacheMissCount());
+        assertEquals(3, (int) db.get("Products").delete("Name = ?", "Dodol").query());
+    }
+
+    public void testInsertInto_Batch(){
+        InsertInto.Batch batch = db.get("Products").insertInto("Name", "Price").batch();
+        for(int i = 0; i < 100; i++){
+            batch.val("Dodol", i);
+        }
+
+        assertEquals(100, (long) batch.query());
+        assertTrue(batch.getRowsPerSecond() > 0);
+        assertEquals(100, db.get("Products").count("Name = ?", "Dodol"));
+        assertEquals(100, (int) db.get("Products").delete("Name = ?", "Dodol").query());
+    }
+
+    public void testInsertInto_Batch_Error_ShouldRollback(){
+        InsertInto.Batch batch = db.get("Products").insertInto("Name", "NoSuchColumn").batch();
+        try{
+            batch.val("Dodol", 1);
+            fail("Should throw");
+        }
+        catch (RuntimeException e){
+            // good
+        }
+
+        assertEquals(0, (long) batch.query());
+        assertEquals(0, db.get("Products").count("Name = ?", "Dodol"));
+    }
+
+    public void testBulkInsert_Chunked(){
+        // 999 variables / 2 columns = 499 rows per statement
+        List<Object[]> rows = new LinkedList<Object[]>();
+        for(int i = 0; i < 1200; i++){
+            rows.add(new Object[]{ "Dodol", i });
+        }
+
+        assertEquals(1200, (long) db.get("Products").bulkInsert(new String[]{"Name", "Price"}, rows).query());
+        assertEquals(1200, db.get("Products").count("Name = ?", "Dodol"));
+        assertEquals(1199, db.get("Products").max("Price", "Name = ?", "Dodol").asInt());
+        assertEquals(1200, (int) db.get("Products").delete("Name = ?", "Dodol").query());
+    }
+
+    public void testBulkInsert_Error_ShouldRollback(){
+        List<Object[]> rows = new LinkedList<Object[]>();
+        rows.add(new Object[]{ "Dodol", 1 });
+
+        assertEquals(-1, (long) db.get("Products").bulkInsert(new String[]{"Name", "NoSuchColumn"}, rows).query());
+        assertEquals(0, db.get("Products").count("Name = ?", "Dodol"));
+    }
+
+    public void testIds_Chunked(){
+        // more than 500 ids, bound in chunks
+        assertIds(1200);
+    }
+
+    public void testIds_TempTable(){
+        // more than 10000 ids, stored in a temp table
+        assertIds(12000);
+    }
+
     ///////////////////////////////////////////////
     ///////////////////////////////////////////////
     // ------------------ Update ----------------//
@@ -949,6 +1375,57 @@ public class TableTest extends AndroidTestCase{
         assertEquals(average, "2688.1");
     }
 
+    public void testAggregate(){
+        Aggregate.Result result = db.get("Products").aggregate("Price > ?", 100)
+                .avg("Price").sum("Price").max("Price").min("Price").count()
+                .query();
+
+        assertEquals(5, result.size());
+        assertEquals(5340, result.get(0).asDouble(), 0.01);
+        assertEquals(26700, result.get(1).asDouble(), 0.01);
+        assertEquals(20000, result.get(2).asInt());
+        assertEquals(200, result.get(3).asInt());
+        assertEquals(5, result.get(4).asInt());
+        assertTrue(result.get(4).value() instanceof Long);
+    }
+
+    public void testAggregate_GroupBy(){
+        Map<Object, Aggregate.Result> results = db.get("Customers").aggregate("Country IS NOT NULL")
+                .count()
+                .groupBy("Country")
+                .query();
+
+        assertEquals(3, results.get("Italy").get(0).asInt());
+        assertEquals(1, results.get("UK").get(0).asInt());
+    }
+
+    public void testSum_LargeLong(){
+        // 2^53 + 1 can't be stored in a double
+        long large = 9007199254740993L;
+        db.get("Orders").insert(new String[]{"CustomerId", "ProductId"}, new Object[]{ large, -1 });
+        try{
+            assertEquals(large, db.get("Orders").sum("CustomerId", "ProductId = ?", -1).asLong());
+            assertEquals(large, db.get("Orders").aggregate("ProductId = ?", -1).sum("CustomerId").query().get(0).asLong());
+        }
+        finally {
+            db.get("Orders").delete("ProductId = ?", -1);
+        }
+    }
+
+    public void testSum_Real(){
+        // 0.1 + 0.2 = 0.30000000000000004 (more digits than sqlite prints)
+        db.get("Orders").insert(new String[]{"CustomerId", "ProductId"}, new Object[]{ 0.1, -1 });
+        db.get("Orders").insert(new String[]{"CustomerId", "ProductId"}, new Object[]{ 0.2, -1 });
+        try{
+            assertEquals(0.1 + 0.2, db.get("Orders").sum("CustomerId", "ProductId = ?", -1).asDouble());
+            assertEquals(0.1 + 0.2, db.get("Orders").total("CustomerId", "ProductId = ?", -1).asDouble());
+            assertEquals((0.1 + 0.2) / 2, db.get("Orders").avg("CustomerId", "ProductId = ?", -1).asDouble());
+        }
+        finally {
+            db.get("Orders").delete("ProductId = ?", -1);
+        }
+    }
+
     public void testAvg_Condition(){
         ITable productTable = db.get("Products");
 
@@ -1272,6 +1749,30 @@ public class TableTest extends AndroidTestCase{
      * Do modeling here
      * @param modeling
      */
+    private void assertIds(int size){
+        List<Object[]> rows = new LinkedList<Object[]>();
+        for(int i = 0; i < size; i++){
+            rows.add(new Object[]{ "Dodol", i });
+        }
+        assertEquals(size, (long) db.get("Products").bulkInsert(new String[]{"Name", "Price"}, rows).query());
+
+        long[] ids = new long[size];
+        Cursor cursor = db.get("Products").select("Name = ?", "Dodol").columns("Id").query();
+        for(int i = 0; cursor.moveToNext(); i++){
+            ids[i] = cursor.getLong(0);
+        }
+        cursor.close();
+
+        cursor = db.get("Products").select(ids).query();
+        assertEquals(size, cursor.getCount());
+        cursor.close();
+
+        assertEquals(size, (int) db.get("Products").update(ids).columns("Price").val(1).query());
+        assertEquals(size, (int) db.get("Products").count("Name = ? AND Price = ?", "Dodol", 1));
+        assertEquals(size, (int) db.get("Products").delete(ids).query());
+        assertEquals(0, db.get("Products").count("Name = ?", "Dodol"));
+    }
+
     private void createDatabaseModeling(IDatabase.Modeling modeling){
         modeling.add("Customers")
                 .addPrimaryKey("Id")
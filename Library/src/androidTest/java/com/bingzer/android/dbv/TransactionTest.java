@@ -3,6 +3,9 @@ package com.bingzer.android.dbv;
 import android.content.Context;
 import android.test.AndroidTestCase;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by Ricky Tobing on 8/12/13.
  */
@@ -115,4 +118,141 @@ public class TransactionTest extends AndroidTestCase {
         assertTrue(p.getName().equals("NewPersonExecute"));
         assertTrue(p.getAge() == 100);
     }
+
+    public void testNested_Rollback(){
+        assertTrue(db.begin(new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                database.get("Person").insertInto("Name", "Age", "Address").val("NestedOuter", 100, "Batlimore".getBytes());
+
+                // only the inner changes are rolled back
+                assertFalse(database.begin(new IDatabase.Batch() {
+                    @Override
+                    public void exec(IDatabase database) {
+                        database.get("Person").insertInto("Name", "Age", "Address").val("NestedInner", 100, "Batlimore".getBytes());
+                        throw new Error("Fake error so it will throw");
+                    }
+                }).execute());
+                assertEquals(0, database.get("Person").count("Name = ?", "NestedInner"));
+                assertEquals(1, database.get("Person").count("Name = ?", "NestedOuter"));
+            }
+        }).execute());
+
+        assertEquals(1, db.get("Person").count("Name = ?", "NestedOuter"));
+        assertEquals(0, db.get("Person").count("Name = ?", "NestedInner"));
+    }
+
+    public void testNested_Retry(){
+        final int[] attempts = new int[1];
+        final IDatabase.Batch chunk = new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                database.get("Person").insertInto("Name", "Age", "Address").val("NestedRetry", 100, "Batlimore".getBytes());
+                if(++attempts[0] == 1) throw new Error("Fake error so it will throw");
+            }
+        };
+
+        assertTrue(db.begin(new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                if(!database.begin(chunk).execute()) assertTrue(database.begin(chunk).execute());
+            }
+        }).execute());
+
+        assertEquals(2, attempts[0]);
+        assertEquals(1, db.get("Person").count("Name = ?", "NestedRetry"));
+    }
+
+    public void testNested_OuterRollback(){
+        IDatabase.Transaction transaction = db.begin(new IDatabase.Batch() {
+            @Override
+            public void exec(IDatabase database) {
+                assertTrue(database.begin(new IDatabase.Batch() {
+                    @Override
+                    public void exec(IDatabase database) {
+                        database.get("Person").insertInto("Name", "Age", "Address").val("NestedCommitted", 100, "Batlimore".getBytes());
+                    }
+                }).execute());
+            }
+        });
+        try{
+            transaction.commit();
+            // nothing is stored until the outermost transaction is committed
+            transaction.rollback();
+        }
+        finally {
+            transaction.end();
+        }
+
+        assertEquals(0, db.get("Person").count("Name = ?", "NestedCommitted"));
+    }
+
+    public void testYield_Progress(){
+        assertFalse(db.yieldIfContended());
+
+        final List<Long> progress = new ArrayList<Long>();
+        db.getConfig().setTransactionYieldRows(10);
+        try{
+            assertTrue(db.begin(new IDatabase.Batch() {
+                @Override
+                public void exec(IDatabase database) {
+                    List<Object[]> rows = new ArrayList<Object[]>();
+                    for(int i = 0; i < 25; i++){
+                        rows.add(new Object[]{ "YieldPerson", i });
+                    }
+                    database.get("Person").bulkInsert(new String[]{ "Name", "Age" }, rows).query();
+                    // a yield point, nested transactions go on
+                    database.yieldIfContended();
+
+                    database.get("Person").bulkInsert(new String[]{ "Name", "Age" }, rows).query();
+                }
+            }).setProgressListener(new IDatabase.ProgressListener() {
+                @Override
+                public void onProgress(long rowCount) {
+                    progress.add(rowCount);
+                }
+            }).execute());
+        }
+        finally {
+            db.getConfig().setTransactionYieldRows(0);
+        }
+
+        assertFalse(progress.isEmpty());
+        assertEquals(50, (long) progress.get(progress.size() - 1));
+        assertEquals(50, db.get("Person").count("Name = ?", "YieldPerson"));
+    }
+
+    public void testYield_NestedRollback(){
+        db.getConfig().setTransactionYieldRows(10);
+        try{
+            assertTrue(db.begin(new IDatabase.Batch() {
+                @Override
+                public void exec(IDatabase database) {
+                    database.get("Person").insertInto("Name", "Age", "Address").val("YieldOuter", 100, "Batlimore".getBytes());
+
+                    // a nested transaction is never yielded, the whole inner batch is rolled back
+                    assertFalse(database.begin(new IDatabase.Batch() {
+                        @Override
+                        public void exec(IDatabase database) {
+                            List<Object[]> rows = new ArrayList<Object[]>();
+                            for(int i = 0; i < 25; i++){
+                                rows.add(new Object[]{ "YieldInner", i });
+                            }
+                            database.get("Person").bulkInsert(new String[]{ "Name", "Age" }, rows).query();
+                            assertFalse(database.yieldIfContended());
+                            database.get("Person").bulkInsert(new String[]{ "Name", "Age" }, rows).query();
+                            throw new Error("Fake error so it will throw");
+                        }
+                    }).execute());
+                    assertEquals(0, database.get("Person").count("Name = ?", "YieldInner"));
+                }
+            }).execute());
+        }
+        finally {
+            db.getConfig().setTransactionYieldRows(0);
+        }
+
+        assertEquals(1, db.get("Person").count("Name = ?", "YieldOuter"));
+        assertEquals(0, db.get("Person").count("Name = ?", "YieldInner"));
+    }
 }
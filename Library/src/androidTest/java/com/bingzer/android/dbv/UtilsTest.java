@@ -46,6 +46,30 @@ public class UtilsTest extends AndroidTestCase{
 
     }
 
+    public void testToBindArgs(){
+        Object[] args = Utils.toBindArgs("Name = ? AND Age = ? OR Address is ?", "Whatever", 2, null);
+        assertEquals(3, args.length);
+        assertEquals("Whatever", args[0]);
+        assertEquals(2, args[1]);
+        assertNull(args[2]);
+    }
+
+    public void testToBindArgs_WithMissingArgs(){
+        Object[] args = Utils.toBindArgs("Hello ?, how are you ?", "World");
+        assertEquals(2, args.length);
+        assertEquals("World", args[0]);
+        assertNull(args[1]);
+
+        args = Utils.toBindArgs("Hello ?", "World", "Extra");
+        assertEquals(1, args.length);
+    }
+
+    public void testToBindArgs_IgnoreQuotedQuestionMark(){
+        Object[] args = Utils.toBindArgs("Name = 'You?' AND Age = ?", 2);
+        assertEquals(1, args.length);
+        assertEquals(2, args[0]);
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
 
     public void testArguments(){
@@ -70,5 +94,10 @@ public class UtilsTest extends AndroidTestCase{
                 .select("Name = ?", "$Yo$")
                 .query();
         cursor.close();
+
+        db.get("Customers").insert("Name", "Who?");
+        assertTrue(db.get("Customers").has("Name = ?", "Who?"));
+        assertEquals(1, db.get("Customers").count("Name = ? AND Name <> '?'", "Who?"));
+        db.get("Customers").delete("Name = ?", "Who?");
     }
 }
@@ -19,14 +19,29 @@ import android.database.Cursor;
 
 import com.bingzer.android.dbv.utils.EntityUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Represents the very basic of ORM entity.
  * You should use this or implement IBaseEntity yourself.
+ * <p>
+ * Dirty tracking is opt-in (see {@link #setDirtyTracking(boolean)}).
+ * When it's on, a snapshot of the mapped values is taken every time the entity
+ * is loaded or saved and {@link #save()} only updates the columns that have changed
+ * since. A save with nothing changed does not execute any sql.
+ * </p>
  */
 public abstract class BaseEntity implements IBaseEntity {
 
     protected long id = -1;
     protected final IEnvironment environment;
+    private boolean dirtyTracking;
+    private boolean upsertOnSave;
+    private Map<String, Object> snapshot;
 
     //////////////////////////////////////////////////////////////////////////////////////////
 
@@ -66,6 +81,92 @@ public abstract class BaseEntity implements IBaseEntity {
         return id;
     }
 
+    /**
+     * Maps this entity with the binder generated for it
+     * (see {@link com.bingzer.android.dbv.annotations.Bindable}).
+     * Entities that are not annotated must override this method.
+     * @param mapper the mapper object
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void map(Mapper mapper) {
+        EntityBinder binder = EntityUtils.getBinder(getClass());
+        if(binder == null)
+            throw new IllegalStateException(getClass().getName() + " must override map() or be annotated with @Bindable");
+        binder.map(this, mapper);
+    }
+
+    /**
+     * Turns dirty tracking on/off. Off by default.
+     * The snapshot is taken on the next load/save
+     * @param on true to turn it on
+     */
+    public final void setDirtyTracking(boolean on){
+        dirtyTracking = on;
+        if(!on) snapshot = null;
+    }
+
+    /**
+     * Returns true if dirty tracking is on
+     * @return true if dirty tracking is on
+     */
+    public final boolean isDirtyTracking(){
+        return dirtyTracking;
+    }
+
+    /**
+     * When on, {@link #save()} on an entity with an id uses
+     * {@link ITable#upsert(IEntity)}: the row is inserted (keeping the id)
+     * if it does not exist yet. Useful when ids come from a server.
+     * The whole entity is written, even with dirty tracking on.
+     * Off by default.
+     * @param on true to turn it on
+     */
+    public final void setUpsertOnSave(boolean on){
+        upsertOnSave = on;
+    }
+
+    /**
+     * Returns true if {@link #save()} updates or inserts
+     * @return true if {@link #save()} updates or inserts
+     */
+    public final boolean isUpsertOnSave(){
+        return upsertOnSave;
+    }
+
+    /**
+     * Returns the columns that have changed since the last load/save.
+     * If there's no snapshot (dirty tracking is off or the entity has never
+     * been loaded/saved) all the mapped columns are returned.
+     * @return the changed columns (never includes the primary key)
+     */
+    public final String[] getDirtyColumns(){
+        ITable table = environment.getDatabase().get(getTableName());
+        Delegate.Mapper mapper = new Delegate.Mapper(table);
+        map(mapper);
+
+        List<String> columns = new ArrayList<String>(mapper.size());
+        for(Map.Entry<String, Delegate> entry : mapper.entrySet()){
+            String column = entry.getKey();
+            if(column.equals(table.getPrimaryKeyColumn()) || entry.getValue() == null) continue;
+
+            if(snapshot == null || !snapshot.containsKey(column) ||
+                    !isEqual(snapshot.get(column), entry.getValue().get())){
+                columns.add(column);
+            }
+        }
+
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    /**
+     * Returns true if any column has changed since the last load/save
+     * @return true if any column has changed
+     */
+    public final boolean isDirty(){
+        return getDirtyColumns().length > 0;
+    }
+
     /////////////////////////////////////////////////////////////////////////////////////////
 
     /**
@@ -81,19 +182,38 @@ public abstract class BaseEntity implements IBaseEntity {
      * Save any changes.
      * If {@code getId()} is anything lower than or equal to 0 (Id <= 0)
      * then, an INSERTION operation will be performed.
-     * Otherwise, it is an UPDATE operation.
+     * Otherwise, it is an UPDATE operation (or an UPSERT, see {@link #setUpsertOnSave(boolean)}).
      */
     @Override
     public final boolean save(){
         if(id <= 0) {
             onBeforeInsert();
             id = environment.getDatabase().get(getTableName()).insert(this).query();
+            // only what has been stored is clean
+            if(id > 0) takeSnapshot();
             onAfterInsert();
             return id > 0;
         }
         else {
             onBeforeUpdate();
-            int numUpdated = environment.getDatabase().get(getTableName()).update(this).query();
+            int numUpdated;
+            if(upsertOnSave){
+                // the whole entity, the row may have to be inserted
+                numUpdated = environment.getDatabase().get(getTableName()).upsert(this).query();
+            }
+            else if(snapshot != null){
+                String[] columns = getDirtyColumns();
+                // nothing has changed
+                if(columns.length == 0) {
+                    onAfterUpdate();
+                    return true;
+                }
+                numUpdated = environment.getDatabase().get(getTableName()).update(this, columns).query();
+            }
+            else {
+                numUpdated = environment.getDatabase().get(getTableName()).update(this).query();
+            }
+            if(numUpdated == 1) takeSnapshot();
             onAfterUpdate();
             return numUpdated == 1;
         }
@@ -109,6 +229,7 @@ public abstract class BaseEntity implements IBaseEntity {
             onBeforeDelete();
             int numDeleted = environment.getDatabase().get(getTableName()).delete(this).query();
             id = -1;
+            snapshot = null;
             onAfterDelete();
 
             return numDeleted == 1;
@@ -127,12 +248,15 @@ public abstract class BaseEntity implements IBaseEntity {
     }
 
     /**
-     * Load by Id.
+     * Load by Id. When the entity cache is on (see {@link IConfig#setEntityCacheSize(int)})
+     * the values may be copied from the cache without running any sql.
      */
     @Override
     public final boolean load(long id){
         onBeforeLoad();
         environment.getDatabase().get(getTableName()).select(id).query(this);
+        if(this.id == id) takeSnapshot();
+        else snapshot = null;
         onAfterLoad();
         return this.id == id;
     }
@@ -156,6 +280,7 @@ public abstract class BaseEntity implements IBaseEntity {
             onBeforeLoad();
             ITable table = environment.getDatabase().get(getTableName());
             EntityUtils.mapEntityFromCursor(table, this, cursor);
+            takeSnapshot();
             onAfterLoad();
             return true;
         }
@@ -235,4 +360,30 @@ public abstract class BaseEntity implements IBaseEntity {
         });
     }
 
+    /////////////////////////////////////////////////////////////////////////////////////////
+
+    private void takeSnapshot(){
+        if(!dirtyTracking) return;
+
+        ITable table = environment.getDatabase().get(getTableName());
+        Delegate.Mapper mapper = new Delegate.Mapper(table);
+        map(mapper);
+
+        snapshot = new HashMap<String, Object>(mapper.size());
+        for(Map.Entry<String, Delegate> entry : mapper.entrySet()){
+            if(entry.getKey().equals(table.getPrimaryKeyColumn()) || entry.getValue() == null) continue;
+
+            Object value = entry.getValue().get();
+            // copy arrays, they can be modified in place
+            if(value instanceof byte[]) value = ((byte[]) value).clone();
+            snapshot.put(entry.getKey(), value);
+        }
+    }
+
+    private static boolean isEqual(Object a, Object b){
+        if(a instanceof byte[] && b instanceof byte[])
+            return Arrays.equals((byte[]) a, (byte[]) b);
+        return a == null ? b == null : a.equals(b);
+    }
+
 }
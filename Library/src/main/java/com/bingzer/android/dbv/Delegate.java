@@ -36,6 +36,10 @@ import java.util.HashMap;
  *   <li>{@link com.bingzer.android.dbv.Delegate.TypeObject Delegate.TypeObject} for <code>any object</code> getter/setter</li>
  *   <li>{@link com.bingzer.android.dbv.Delegate.TypeShort Delegate.TypeShort} for <code>Short</code> getter/setter</li>
  *   <li>{@link com.bingzer.android.dbv.Delegate.TypeString Delegate.TypeString} for <code>String</code> getter/setter</li>
+ *   <li>{@link com.bingzer.android.dbv.Delegate.IntDelegate Delegate.IntDelegate} for primitive <code>int</code> getter/setter</li>
+ *   <li>{@link com.bingzer.android.dbv.Delegate.LongDelegate Delegate.LongDelegate} for primitive <code>long</code> getter/setter</li>
+ *   <li>{@link com.bingzer.android.dbv.Delegate.DoubleDelegate Delegate.DoubleDelegate} for primitive <code>double</code> getter/setter</li>
+ *   <li>{@link com.bingzer.android.dbv.Delegate.BooleanDelegate Delegate.BooleanDelegate} for primitive <code>boolean</code> getter/setter</li>
  * </ul>
  *
  * <p>
@@ -239,6 +243,150 @@ public abstract class Delegate<T> {
         }
     }
 
+    /**
+     * Delegate type for primitive <code>int</code>.
+     * Values are read from the cursor and bound to statements
+     * without boxing them into <code>Integer</code>.
+     * A <code>null</code> column is read as <code>0</code>
+     * @see com.bingzer.android.dbv.IEntity.Mapper
+     * @see Delegate
+     */
+    public static abstract class IntDelegate extends Delegate<Integer> {
+        public IntDelegate() {
+            super(Integer.class);
+        }
+
+        /**
+         * Sets the value
+         * @param value the value to set
+         */
+        public abstract void setInt(int value);
+
+        /**
+         * Returns the value
+         * @return the value
+         */
+        public abstract int getInt();
+
+        @Override
+        public final void set(Integer value) {
+            setInt(value == null ? 0 : value);
+        }
+
+        @Override
+        public final Integer get() {
+            return getInt();
+        }
+    }
+
+    /**
+     * Delegate type for primitive <code>long</code>.
+     * Values are read from the cursor and bound to statements
+     * without boxing them into <code>Long</code>.
+     * A <code>null</code> column is read as <code>0</code>
+     * @see com.bingzer.android.dbv.IEntity.Mapper
+     * @see Delegate
+     */
+    public static abstract class LongDelegate extends Delegate<Long> {
+        public LongDelegate() {
+            super(Long.class);
+        }
+
+        /**
+         * Sets the value
+         * @param value the value to set
+         */
+        public abstract void setLong(long value);
+
+        /**
+         * Returns the value
+         * @return the value
+         */
+        public abstract long getLong();
+
+        @Override
+        public final void set(Long value) {
+            setLong(value == null ? 0 : value);
+        }
+
+        @Override
+        public final Long get() {
+            return getLong();
+        }
+    }
+
+    /**
+     * Delegate type for primitive <code>double</code>.
+     * Values are read from the cursor and bound to statements
+     * without boxing them into <code>Double</code>.
+     * A <code>null</code> column is read as <code>0</code>
+     * @see com.bingzer.android.dbv.IEntity.Mapper
+     * @see Delegate
+     */
+    public static abstract class DoubleDelegate extends Delegate<Double> {
+        public DoubleDelegate() {
+            super(Double.class);
+        }
+
+        /**
+         * Sets the value
+         * @param value the value to set
+         */
+        public abstract void setDouble(double value);
+
+        /**
+         * Returns the value
+         * @return the value
+         */
+        public abstract double getDouble();
+
+        @Override
+        public final void set(Double value) {
+            setDouble(value == null ? 0 : value);
+        }
+
+        @Override
+        public final Double get() {
+            return getDouble();
+        }
+    }
+
+    /**
+     * Delegate type for primitive <code>boolean</code>.
+     * Values are read from the cursor and bound to statements
+     * without boxing them into <code>Boolean</code>.
+     * A <code>null</code> column is read as <code>false</code>
+     * @see com.bingzer.android.dbv.IEntity.Mapper
+     * @see Delegate
+     */
+    public static abstract class BooleanDelegate extends Delegate<Boolean> {
+        public BooleanDelegate() {
+            super(Boolean.class);
+        }
+
+        /**
+         * Sets the value
+         * @param value the value to set
+         */
+        public abstract void setBoolean(boolean value);
+
+        /**
+         * Returns the value
+         * @return the value
+         */
+        public abstract boolean getBoolean();
+
+        @Override
+        public final void set(Boolean value) {
+            setBoolean(value == null ? false : value);
+        }
+
+        @Override
+        public final Boolean get() {
+            return getBoolean();
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////////////
 
     /**
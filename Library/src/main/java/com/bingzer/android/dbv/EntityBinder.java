@@ -0,0 +1,112 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteProgram;
+
+import com.bingzer.android.dbv.contracts.PrimaryKeyIdentifier;
+
+/**
+ * Reads and writes an entity without going through {@link Delegate}.
+ * Binders are generated by the DbQuery annotation processor for every entity
+ * annotated with {@link com.bingzer.android.dbv.annotations.Bindable}
+ * and picked up by {@link com.bingzer.android.dbv.utils.EntityUtils#getBinder(Class)}.
+ * When an entity has a binder, it is used instead of {@link IEntity#map(IEntity.Mapper)}
+ * to select, insert and update the entity.
+ *
+ * @param <E> the entity type
+ * @see com.bingzer.android.dbv.annotations.Bindable
+ *
+ * Created by Ricky Tobing on 8/5/14.
+ */
+public abstract class EntityBinder<E extends IEntity> {
+
+    private final String[] columns;
+
+    /**
+     * @param columns the columns (other than the id) in the order they are bound
+     */
+    protected EntityBinder(String... columns){
+        this.columns = columns;
+    }
+
+    /**
+     * Returns the columns other than the id.
+     * The order is the same order used by {@link #bindToProgram(IEntity, SQLiteProgram, int)}
+     * @return the columns
+     */
+    public final String[] getColumns(){
+        return columns;
+    }
+
+    /**
+     * Returns the index of every column in the cursor.
+     * Index 0 is the id column, followed by each of {@link #getColumns()}.
+     * A column missing in the cursor has the index of -1.
+     * @param identifier the table
+     * @param cursor the cursor
+     * @return the indexes
+     */
+    public int[] getColumnIndexes(PrimaryKeyIdentifier identifier, Cursor cursor){
+        int[] indexes = new int[columns.length + 1];
+        indexes[0] = cursor.getColumnIndex(identifier.getPrimaryKeyColumn());
+        for(int i = 0; i < columns.length; i++){
+            indexes[i + 1] = cursor.getColumnIndex(columns[i]);
+        }
+        return indexes;
+    }
+
+    /**
+     * Sets the id of the entity
+     * @param entity the entity
+     * @param id the id
+     */
+    public abstract void setId(E entity, long id);
+
+    /**
+     * Reads the current row of the cursor to the entity
+     * @param entity the entity
+     * @param cursor the cursor, already moved to the row
+     * @param indexes the indexes returned by {@link #getColumnIndexes(PrimaryKeyIdentifier, Cursor)}
+     */
+    public abstract void readFromCursor(E entity, Cursor cursor, int[] indexes);
+
+    /**
+     * Puts every column (other than the id) to the content values
+     * @param entity the entity
+     * @param contentValues the content values
+     */
+    public abstract void writeToContentValues(E entity, ContentValues contentValues);
+
+    /**
+     * Binds every column (other than the id) to a compiled statement
+     * @param entity the entity
+     * @param program the compiled statement
+     * @param startIndex the index of the first parameter (starts at 1)
+     */
+    public abstract void bindToProgram(E entity, SQLiteProgram program, int startIndex);
+
+    /**
+     * Maps the entity to a {@link IEntity.Mapper}.
+     * Used where a {@link IEntity.Mapper} is still needed.
+     * @param entity the entity
+     * @param mapper the mapper
+     */
+    public abstract void map(E entity, IEntity.Mapper mapper);
+
+}
@@ -92,6 +92,119 @@ public interface IConfig {
      */
     boolean getDebug();
 
+    /**
+     * Sets the maximum number of compiled statements to keep
+     * for inserts, updates and deletes. Statements are reused
+     * when the same table and columns are written again.
+     * The default is 25. Set to 0 to turn off the cache.
+     * @param size the maximum number of statements
+     */
+    void setStatementCacheSize(int size);
+
+    /**
+     * Returns the maximum number of compiled statements to keep
+     * @return the maximum number of statements
+     */
+    int getStatementCacheSize();
+
+    /**
+     * Returns the number of times a compiled statement was reused
+     * @return hit count
+     */
+    long getStatementCacheHitCount();
+
+    /**
+     * Returns the number of times a statement had to be compiled
+     * @return miss count
+     */
+    long getStatementCacheMissCount();
+
+    /**
+     * Sets the maximum number of query results to cache.
+     * Cached results are dropped as soon as a table they read is written.
+     * Default is 0 (no caching)
+     * @param size the maximum number of results
+     */
+    void setQueryCacheSize(int size);
+
+    /**
+     * Returns the maximum number of query results to cache
+     * @return the maximum number of results
+     */
+    int getQueryCacheSize();
+
+    /**
+     * Sets the (estimated) maximum number of bytes held by the query cache.
+     * Default is 1MB
+     * @param maxBytes the maximum number of bytes
+     */
+    void setQueryCacheMaxBytes(long maxBytes);
+
+    /**
+     * Returns the (estimated) maximum number of bytes held by the query cache
+     * @return the maximum number of bytes
+     */
+    long getQueryCacheMaxBytes();
+
+    /**
+     * Returns the number of times a query was served from the cache
+     * @return hit count
+     */
+    long getQueryCacheHitCount();
+
+    /**
+     * Returns the number of times a cacheable query had to be run
+     * @return miss count
+     */
+    long getQueryCacheMissCount();
+
+    /**
+     * Returns the ratio of hits to all cacheable queries (0 to 1)
+     * @return hit ratio
+     */
+    double getQueryCacheHitRatio();
+
+    /**
+     * Sets the maximum number of entities to cache per table.
+     * Entities loaded by id or saved are cached, and loading them again
+     * by id copies the cached values without running any sql.
+     * A table's cached entities are dropped as soon as the table is written
+     * by anything else. Default is 0 (no caching)
+     * @param size the maximum number of entities per table
+     */
+    void setEntityCacheSize(int size);
+
+    /**
+     * Returns the maximum number of entities to cache per table
+     * @return the maximum number of entities per table
+     */
+    int getEntityCacheSize();
+
+    /**
+     * Sets how long (in milliseconds) a cached entity stays valid.
+     * Default is 0 (until it's evicted or invalidated)
+     * @param millis the time to live
+     */
+    void setEntityCacheTtl(long millis);
+
+    /**
+     * Returns how long (in milliseconds) a cached entity stays valid
+     * @return the time to live, 0 if forever
+     */
+    long getEntityCacheTtl();
+
+    /**
+     * Returns the number of times an entity was loaded from the cache
+     * @return hit count
+     */
+    long getEntityCacheHitCount();
+
+    /**
+     * Returns the number of times an entity had to be loaded from the database
+     * @return miss count
+     */
+    long getEntityCacheMissCount();
+
     ////////////////////////////////////////////////////////////////////////
     /////////////////////////// Pre-open configs ///////////////////////////
     //////////// This needs to be called before open() /////////////////////
@@ -124,4 +237,152 @@ public interface IConfig {
      * @return true if read-only, false otherwise
      */
     boolean isReadOnly();
+
+    /**
+     * Tables and views are known as soon as the database is opened,
+     * but their columns are only loaded when they're first needed.
+     * Turn this on to load them on a background thread right after
+     * the database is opened. Off by default.
+     * <b>Warning</b>
+     * This should be called before opening {@link IDatabase}
+     * @param on true to turn on, false to turn off
+     */
+    void setSchemaPrewarm(boolean on);
+
+    /**
+     * Turn on/off write-ahead logging (WAL). When on, reads that are not part of
+     * a transaction run on a pool of read connections
+     * (see {@link #setReadConnectionPoolSize(int)}) and no longer wait for the writer.
+     * Writes and transactions always go through the one writer connection.
+     * Temp tables, temp views and attached databases only exist on the connection
+     * that made them: once one is made through {@link IDatabase#execSql(String)}
+     * every read goes to the writer until the database is closed.
+     * Needs Honeycomb or later, ignored on older devices and read-only databases.
+     * Off by default.
+     * <b>Warning</b>
+     * This should be called before opening {@link IDatabase}
+     * @param on true to turn on, false to turn off
+     */
+    void setWriteAheadLogging(boolean on);
+
+    /**
+     * True if write-ahead logging is on
+     * @return true if on, false otherwise
+     */
+    boolean getWriteAheadLogging();
+
+    /**
+     * Sets the maximum number of read connections used when
+     * write-ahead logging is on. 0 to read on the writer connection.
+     * Default is 2.
+     * <b>Warning</b>
+     * This should be called before opening {@link IDatabase}
+     * @param size the maximum number of read connections
+     */
+    void setReadConnectionPoolSize(int size);
+
+    /**
+     * Returns the maximum number of read connections
+     * @return the maximum number of read connections
+     */
+    int getReadConnectionPoolSize();
+
+    /**
+     * Sets the number of pages the write-ahead log may grow to before it's
+     * automatically copied back into the database (<code>PRAGMA wal_autocheckpoint</code>).
+     * 0 keeps SQLite's default (1000 pages).
+     * See {@link IDatabase#checkpoint()} to do it manually.
+     * <b>Warning</b>
+     * This should be called before opening {@link IDatabase}
+     * @param pages the number of pages
+     */
+    void setWalAutoCheckpoint(int pages);
+
+    /**
+     * Returns the number of pages before the write-ahead log is automatically checkpointed
+     * @return the number of pages, 0 for SQLite's default
+     */
+    int getWalAutoCheckpoint();
+
+    /**
+     * True if the columns are loaded on a background thread when the database is opened
+     * @return true if on, false otherwise
+     */
+    boolean getSchemaPrewarm();
+
+    /**
+     * Sets the maximum number of writes given to
+     * {@link IDatabase#enqueue(com.bingzer.android.dbv.IDatabase.Write)}
+     * that are committed together in one transaction (group commit).
+     * 0 or 1 commits every write in its own transaction. Default is 0.
+     * @param size the maximum number of writes per transaction
+     * @see #setWriteQueueLatency(long)
+     */
+    void setWriteQueueBatchSize(int size);
+
+    /**
+     * Returns the maximum number of queued writes committed in one transaction
+     * @return the maximum number of writes per transaction
+     */
+    int getWriteQueueBatchSize();
+
+    /**
+     * Sets how long (in milliseconds) a queued write may wait for others
+     * to join its transaction. Only used when the batch size is over 1.
+     * Default is 10 ms.
+     * @param millis the maximum latency in milliseconds
+     * @see #setWriteQueueBatchSize(int)
+     */
+    void setWriteQueueLatency(long millis);
+
+    /**
+     * Returns how long a queued write may wait for others to join its transaction
+     * @return the maximum latency in milliseconds
+     */
+    long getWriteQueueLatency();
+
+    /**
+     * Sets the number of rows the bulk writers write in a transaction before they
+     * yield it to other threads (see {@link IDatabase#yieldIfContended()}).
+     * 0 to never yield after a number of rows. Default is 0.
+     * Nested transactions (savepoints) are not yielded.
+     * @param rows the number of rows
+     */
+    void setTransactionYieldRows(int rows);
+
+    /**
+     * Returns the number of rows written before a transaction is yielded
+     * @return the number of rows, 0 if off
+     */
+    int getTransactionYieldRows();
+
+    /**
+     * Sets how long (in milliseconds) the bulk writers may hold a transaction before
+     * they yield it to other threads (see {@link IDatabase#yieldIfContended()}).
+     * 0 to never yield after a time. Default is 0.
+     * Nested transactions (savepoints) are not yielded.
+     * @param millis the time in milliseconds
+     */
+    void setTransactionYieldMillis(long millis);
+
+    /**
+     * Returns how long a transaction is held before it's yielded
+     * @return the time in milliseconds, 0 if off
+     */
+    long getTransactionYieldMillis();
+
+    /**
+     * Sets how long (in milliseconds) an observed query waits after a write
+     * before it runs again. Writes made meanwhile are seen by the same run.
+     * Default is 50 ms.
+     * @param millis the time in milliseconds
+     * @see com.bingzer.android.dbv.contracts.ObservableQueryable
+     */
+    void setObserveDebounce(long millis);
+
+    /**
+     * Returns how long an observed query waits after a write before it runs again
+     * @return the time in milliseconds
+     */
+    long getObserveDebounce();
 }
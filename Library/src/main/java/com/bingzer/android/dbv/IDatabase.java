@@ -17,8 +17,10 @@ package com.bingzer.android.dbv;
 
 import com.bingzer.android.dbv.contracts.RawQueryable;
 import com.bingzer.android.dbv.contracts.SqlExecutable;
+import com.bingzer.android.dbv.queries.QueryFuture;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Represents a database. {@linkplain IDatabase} provides access
@@ -115,6 +117,12 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
      * common CRUD operations.
      * Note: you must first <code>open</code> the database.
      * <p>
+     * The name may be followed by an alias (i.e: <code>"Customers C"</code>).
+     * Every alias gets its own table, which can't be changed, so tables can be
+     * shared between threads. Lookups (including misses) are cached
+     * until the schema changes, only the most recent aliases are kept.
+     * </p>
+     * <p>
      * Example Code
      * <pre><code>
      * IDatabase db = ...
@@ -184,6 +192,10 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
      *     Most of the time you don't need to call this at all. After calling
      *     this method you must call {@link #open(int, com.bingzer.android.dbv.IDatabase.Builder)}
      * </p>
+     * <p>
+     *     Observed queries are unsubscribed and the reader and writer executors are shut down.
+     *     Queued writes are committed first.
+     * </p>
      *
      * @see #open(int, com.bingzer.android.dbv.IDatabase.Builder)
      */
@@ -238,6 +250,22 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
      * will prevent you to <code>catch</code> the <code>Exception</code>
      * that may occur during the batch processing
      * </p>
+     * <p>
+     * Transactions can be nested. A transaction begun inside another one
+     * (on the same thread) is a <code>SAVEPOINT</code>: when it's rolled back,
+     * only its own changes are undone and the outer transaction goes on.
+     * Nothing is stored until the outermost transaction is committed.
+     * <pre><code>
+     * db.begin(new Batch(){
+     *      public void exec(IDatabase db){
+     *          for(final Batch chunk : chunks){
+     *              // retry a failed chunk without redoing the others
+     *              if(!db.begin(chunk).execute()) db.begin(chunk).execute();
+     *          }
+     *      }
+     * }).execute();
+     * </code></pre>
+     * </p>
      *
      * @param batch block of code to be executed
      * @return transaction
@@ -256,6 +284,91 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
      */
     String getPath();
 
+    /**
+     * Copies the write-ahead log back into the database file
+     * (<code>PRAGMA wal_checkpoint(RESTART)</code>), so that the log can start over.
+     * Does nothing if write-ahead logging is off
+     * (see {@link IConfig#setWriteAheadLogging(boolean)}).
+     * Note: you must first <code>open</code> the database
+     *
+     * @return true if the whole log has been copied, false if readers/writers were in the way
+     */
+    boolean checkpoint();
+
+    /**
+     * Lets other threads waiting for the database run, if there are any.
+     * Call this from a long {@link com.bingzer.android.dbv.IDatabase.Batch}
+     * (i.e: between two rows of an import) so that readers don't wait for
+     * the whole batch. To do so the rows written so far are committed,
+     * a failure after this point only rolls back to here.
+     * Observed queries reading the tables written so far run again.
+     * Nothing is yielded inside a nested transaction: its rows would be committed
+     * and it could no longer roll them back.
+     * <p>
+     * The bulk writers (inserting, updating or upserting an
+     * {@link com.bingzer.android.dbv.IEntityList}, <code>bulkInsert</code>...)
+     * call this automatically, see {@link com.bingzer.android.dbv.IConfig#setTransactionYieldRows(int)}
+     * and {@link com.bingzer.android.dbv.IConfig#setTransactionYieldMillis(long)}
+     * </p>
+     *
+     * @return true if the transaction has been yielded, false if nobody was waiting
+     * (or there's no transaction, or it's nested)
+     */
+    boolean yieldIfContended();
+
+    /**
+     * Executes the batch in a transaction on {@link #getWriterExecutor()}.
+     * Writes submitted this way never run at the same time and never
+     * keep the caller's thread (i.e: the main thread) waiting.
+     * The result is the result of {@link com.bingzer.android.dbv.IDatabase.Transaction#execute()}
+     *
+     * @param batch the batch
+     * @return the future result, true if the transaction was committed
+     */
+    QueryFuture<Boolean> executeAsync(Batch batch);
+
+    /**
+     * Adds the write to the write queue. The writer executor commits the queued
+     * writes in groups (one transaction for up to
+     * {@link com.bingzer.android.dbv.IConfig#getWriteQueueBatchSize()} writes),
+     * which is much faster than one transaction per write.
+     * <pre><code>
+     * QueryFuture&lt;Long&gt; future = db.enqueue(new Write&lt;Long&gt;(){
+     *     public Long exec(IDatabase database){
+     *         return database.get("Logs").insert("Message", message).query();
+     *     }
+     * });
+     * </code></pre>
+     * Cancelling the future only removes a write that has not started yet.
+     * Don't wait for the future on {@link #getWriterExecutor()}.
+     *
+     * @param write the write
+     * @param <T> the result type
+     * @return the future result
+     * @see com.bingzer.android.dbv.IConfig#setWriteQueueBatchSize(int)
+     * @see com.bingzer.android.dbv.IConfig#setWriteQueueLatency(long)
+     */
+    <T> QueryFuture<T> enqueue(Write<T> write);
+
+    /**
+     * Returns the executor running async queries when no executor is given.
+     * Its threads run in parallel, as many as
+     * {@link com.bingzer.android.dbv.IConfig#getReadConnectionPoolSize()}
+     *
+     * @return the reader executor
+     * @see com.bingzer.android.dbv.contracts.AsyncQueryable#queryAsync(java.util.concurrent.Executor)
+     */
+    Executor getReaderExecutor();
+
+    /**
+     * Returns the executor running {@link #executeAsync(com.bingzer.android.dbv.IDatabase.Batch)}
+     * and the write queue (see {@link #enqueue(com.bingzer.android.dbv.IDatabase.Write)}).
+     * It runs one task at a time, in order
+     *
+     * @return the writer executor
+     */
+    Executor getWriterExecutor();
+
     ///////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////
 
@@ -392,6 +505,8 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
         /**
          * Rollback any transactions. This is useful
          * if any exception is thrown after calling {@link #commit()}.
+         * The changes are undone by {@link #end()}; a nested transaction
+         * only undoes its own changes.
          * You should place this inside the <code>catch</code> block
          * inside your <code>try-catch</code>
          *
@@ -431,6 +546,16 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
          * @return true if the batch is successfully committed, false if rollback
          */
         boolean execute();
+
+        /**
+         * Sets the listener called as the bulk writers write rows
+         * inside this transaction (i.e: to show the progress of an import).
+         * Must be set before {@link #commit()} or {@link #execute()}
+         *
+         * @param listener the listener
+         * @return this
+         */
+        Transaction setProgressListener(ProgressListener listener);
     }
 
 
@@ -453,4 +578,34 @@ public interface IDatabase extends RawQueryable, SqlExecutable {
         void exec(IDatabase database);
     }
 
+    /**
+     * Reports the rows written by the bulk writers in a transaction
+     *
+     * @see com.bingzer.android.dbv.IDatabase.Transaction#setProgressListener(com.bingzer.android.dbv.IDatabase.ProgressListener)
+     */
+    public static interface ProgressListener {
+
+        /**
+         * Called on the thread of the transaction after rows are written
+         * @param rowCount the number of rows written so far in the transaction
+         */
+        void onProgress(long rowCount);
+    }
+
+    /**
+     * A write given to {@link IDatabase#enqueue(com.bingzer.android.dbv.IDatabase.Write)}.
+     * It may share its transaction with other writes and may run
+     * again (alone) if one of them fails, so it must only write
+     * through the given database.
+     */
+    public static interface Write<T> {
+
+        /**
+         * Executes the write
+         * @param database the database that originates this call
+         * @return the result given to the future
+         */
+        T exec(IDatabase database);
+    }
+
 }
@@ -22,6 +22,7 @@ import com.bingzer.android.dbv.contracts.Distinguishable;
 import com.bingzer.android.dbv.contracts.Droppable;
 import com.bingzer.android.dbv.contracts.Function;
 import com.bingzer.android.dbv.contracts.Insertable;
+import com.bingzer.android.dbv.contracts.Preparable;
 import com.bingzer.android.dbv.contracts.Joinable;
 import com.bingzer.android.dbv.contracts.PrimaryKeyIdentifier;
 import com.bingzer.android.dbv.contracts.RawQueryable;
@@ -89,7 +90,7 @@ import java.util.List;
  */
 public interface ITable extends
         PrimaryKeyIdentifier,
-        Selectable, SelectIdentifiable, Distinguishable,
+        Selectable, SelectIdentifiable, Distinguishable, Preparable,
         Insertable, Deletable, Updatable,
         Joinable.Inner, Joinable.Outer,
         RawQueryable, Countable, Tangible,
@@ -103,8 +104,12 @@ public interface ITable extends
     String getName();
 
     /**
-     * Sets the current alias of this table
+     * Sets the current alias of this table.
+     * The table is shared, prefer {@link IDatabase#get(String)} with the alias
+     * (i.e: <code>"Customers C"</code>) which returns a table of its own.
+     * Aliased tables can't be changed.
      * @param alias sets the alias (maybe null)
+     * @throws UnsupportedOperationException if this is an aliased table
      */
     void setAlias(String alias);
 
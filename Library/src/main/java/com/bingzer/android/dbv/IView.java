@@ -19,6 +19,7 @@ import com.bingzer.android.dbv.contracts.Countable;
 import com.bingzer.android.dbv.contracts.Distinguishable;
 import com.bingzer.android.dbv.contracts.Droppable;
 import com.bingzer.android.dbv.contracts.Function;
+import com.bingzer.android.dbv.contracts.Preparable;
 import com.bingzer.android.dbv.contracts.RawQueryable;
 import com.bingzer.android.dbv.contracts.SelectIdentifiable;
 import com.bingzer.android.dbv.contracts.Selectable;
@@ -54,7 +55,7 @@ import com.bingzer.android.dbv.contracts.Tangible;
 public interface IView extends
         Selectable, Distinguishable,
         RawQueryable, Countable, Droppable,
-        SelectIdentifiable, Function, Tangible
+        SelectIdentifiable, Function, Tangible, Preparable
         // in the future we may support these...
         /*Joinable.Inner, Joinable.Outer,
         Alterable, Unionable  */{
@@ -66,8 +67,12 @@ public interface IView extends
     String getName();
 
     /**
-     * Sets the current alias of this table
+     * Sets the current alias of this table.
+     * The table is shared, prefer {@link IDatabase#get(String)} with the alias
+     * (i.e: <code>"Customers C"</code>) which returns a table of its own.
+     * Aliased tables can't be changed.
      * @param alias sets the alias (maybe null)
+     * @throws UnsupportedOperationException if this is an aliased table
      */
     void setAlias(String alias);
 
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link com.bingzer.android.dbv.IEntity} for the DbQuery annotation
+ * processor. The processor generates an {@link com.bingzer.android.dbv.EntityBinder}
+ * (named <code>[EntityName]_DbQueryBinder</code>) that reads and writes
+ * every {@link Column} field directly, without any reflection or
+ * {@link com.bingzer.android.dbv.Delegate}.
+ * <p>
+ * The fields must not be private. The id is either a field annotated
+ * with {@link Id} or, for {@link com.bingzer.android.dbv.IBaseEntity},
+ * {@link com.bingzer.android.dbv.IBaseEntity#setId(long)}.
+ * </p>
+ * <p>
+ * Subclasses inherit the annotation and get their own binder. When a subclass
+ * can't have one (it's private, anonymous or compiled without the processor)
+ * the binder of its closest bound super class is used.
+ * </p>
+ * <p>
+ * <pre><code>
+ * &#64;Bindable
+ * public class Person implements IEntity {
+ *     &#64;Id long id;
+ *     &#64;Column("Name") String name;
+ *     &#64;Column("Age") int age;
+ *
+ *     public long getId(){
+ *         return id;
+ *     }
+ *
+ *     public void map(Mapper mapper){
+ *         EntityUtils.getBinder(Person.class).map(this, mapper);
+ *     }
+ * }
+ * </code></pre>
+ * </p>
+ *
+ * Created by Ricky Tobing on 8/5/14.
+ */
+@Inherited
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Bindable {
+}
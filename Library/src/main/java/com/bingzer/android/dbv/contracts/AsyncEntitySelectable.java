@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.contracts;
+
+import com.bingzer.android.dbv.IEntity;
+import com.bingzer.android.dbv.IEntityList;
+import com.bingzer.android.dbv.queries.QueryFuture;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Loads an {@link com.bingzer.android.dbv.IEntityList} on an executor
+ *
+ * @see EntitySelectable
+ */
+public interface AsyncEntitySelectable {
+
+    /**
+     * Runs <code>query(entityList)</code> on the executor.
+     * The list must not be used until the future is done.
+     * <p>
+     * Sample Code: Populate a customer list whose country is US
+     * <pre>
+     * <code>CustomerList customerList = new CustomerList();
+     * ...
+     * db.get("TableName").select("Country = ?", "US").queryAsync(customerList, null).get();
+     * </code>
+     * </pre>
+     * </p>
+     * @param entityList the IEntityList object
+     * @param executor the executor, or null to use {@link com.bingzer.android.dbv.IDatabase#getReaderExecutor()}
+     * @param <E> IEntity
+     * @return the future result (the same list)
+     */
+    <E extends IEntity> QueryFuture<IEntityList<E>> queryAsync(IEntityList<E> entityList, Executor executor);
+
+}
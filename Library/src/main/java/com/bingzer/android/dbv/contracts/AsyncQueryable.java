@@ -0,0 +1,46 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.contracts;
+
+import com.bingzer.android.dbv.queries.QueryFuture;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a query on an executor.
+ * The query must not be changed until the future is done.
+ */
+public interface AsyncQueryable<T> {
+
+    /**
+     * Runs <code>query()</code> on the executor. A cursor is filled
+     * (its first window) before it's returned, so moving through it
+     * doesn't go back to the database.
+     * <p>
+     * Sample Code: count the US customers away from the main thread
+     * <pre>
+     * <code>QueryFuture&lt;Cursor&gt; future = db.get("Customers").select("Country = ?", "US").queryAsync(null);
+     * ...
+     * Cursor cursor = future.get();
+     * </code>
+     * </pre>
+     * </p>
+     * @param executor the executor, or null to use {@link com.bingzer.android.dbv.IDatabase#getReaderExecutor()}
+     * @return the future result
+     */
+    QueryFuture<T> queryAsync(Executor executor);
+
+}
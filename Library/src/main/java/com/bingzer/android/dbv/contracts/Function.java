@@ -16,6 +16,7 @@
 
 package com.bingzer.android.dbv.contracts;
 
+import com.bingzer.android.dbv.queries.Aggregate;
 import com.bingzer.android.dbv.queries.Average;
 import com.bingzer.android.dbv.queries.Max;
 import com.bingzer.android.dbv.queries.Min;
@@ -156,4 +157,30 @@ public interface Function {
      * @return {@link com.bingzer.android.dbv.queries.Average}
      */
     Min min(String columnName, String whereClause, Object... args);
+
+    /**
+     * Computes several aggregates in one query (one pass over the table)
+     * <pre><code>
+     * Aggregate.Result result = table.aggregate().avg("Price").max("Price").count().query();
+     * </code></pre>
+     * @return {@link com.bingzer.android.dbv.queries.Aggregate}
+     */
+    Aggregate aggregate();
+
+    /**
+     * Computes several aggregates in one query (one pass over the table)
+     * with condition
+     * @param condition the condition
+     * @return {@link com.bingzer.android.dbv.queries.Aggregate}
+     */
+    Aggregate aggregate(String condition);
+
+    /**
+     * Computes several aggregates in one query (one pass over the table)
+     * with condition
+     * @param whereClause where
+     * @param args arguments
+     * @return {@link com.bingzer.android.dbv.queries.Aggregate}
+     */
+    Aggregate aggregate(String whereClause, Object... args);
 }
@@ -22,6 +22,7 @@ import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.IEntityList;
 import com.bingzer.android.dbv.queries.Insert;
 import com.bingzer.android.dbv.queries.InsertInto;
+import com.bingzer.android.dbv.queries.Upsert;
 
 /**
  * Created by Ricky Tobing on 7/17/13.
@@ -59,6 +60,26 @@ public interface Insertable {
      */
     InsertInto insertInto(String... columns);
 
+    /**
+     * Bulk-load many rows. Rows are inserted in one transaction using
+     * multi-row INSERT statements, chunked so that each statement stays
+     * under SQLite's limit of variables (999) and compound rows (500).
+     * The returned value, (via Insert.query()) is the number of rows inserted
+     * or -1 if the load failed (nothing is inserted).
+     * <p>
+     * <pre><code>
+     * List&lt;Object[]&gt; rows = ...
+     * rows.add(new Object[]{ "Computer", 1000 });
+     * rows.add(new Object[]{ "Monitor", 200 });
+     * long numInserted = db.get("Products").bulkInsert(new String[]{"Name", "Price"}, rows).query();
+     * </code></pre>
+     * </p>
+     * @param columns column names
+     * @param rows the rows, each one has a value for every column
+     * @return Insert object
+     */
+    Insert bulkInsert(String[] columns, Iterable<Object[]> rows);
+
     /////////////////////////////////////////////////////////////////////////////////
     /////////////////////////////////////////////////////////////////////////////////
 
@@ -72,10 +93,37 @@ public interface Insertable {
     /**
      * Bulk-insert an entity list. The returned value, (via Insert.query())
      * is an integer and returns the number of entity successfully inserted.
-     * Ids are automatically populated inside the IEntity object
+     * Ids are automatically populated inside the IEntity object.
+     * If any entity fails, nothing is inserted, -1 is returned
+     * and the entities keep the ids they had before
      * @param entityList the entity list to insert
      * @param <E> extends IEntity
      * @return an Insert object
      */
     <E extends IEntity> Insert insert(IEntityList<E> entityList);
+
+    /////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Update or insert an entity. If the entity has an id and a row
+     * with that id exists, it is updated. Otherwise it's inserted
+     * (keeping its id, if it has one). Ids are automatically populated
+     * inside the IEntity object.
+     * The returned value, (via Upsert.query()) is 1 or -1 if there's an error
+     * @param entity entity
+     * @return an Upsert object
+     */
+    Upsert upsert(IEntity entity);
+
+    /**
+     * Update or insert an entity list in one transaction.
+     * The returned value, (via Upsert.query()) is the number of entities
+     * written or -1 if there's an error (nothing is written).
+     * {@link Upsert#getInsertedCount()} and {@link Upsert#getUpdatedCount()}
+     * tell how many are inserted and updated
+     * @param entityList the entity list
+     * @param <E> extends IEntity
+     * @return an Upsert object
+     */
+    <E extends IEntity> Upsert upsert(IEntityList<E> entityList);
 }
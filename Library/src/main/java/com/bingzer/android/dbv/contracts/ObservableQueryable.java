@@ -0,0 +1,58 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.contracts;
+
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.queries.Subscription;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A query that runs again when the tables it reads are written.
+ */
+public interface ObservableQueryable<T> {
+
+    /**
+     * Runs the query now and again every time one of the tables it reads
+     * (joined tables included) is written by this database: inserts, updates,
+     * deletes, <code>execSql</code>... Writes made in a transaction are seen
+     * once, when the transaction ends. The query runs again at most once per
+     * {@link com.bingzer.android.dbv.IConfig#getObserveDebounce()}, on the executor.
+     * A query on a view runs again after any write.
+     * <p>
+     * The callback owns every cursor it is given (close the previous one).
+     * The query must not be changed after this call.
+     * <pre>
+     * <code>Subscription subscription = db.get("Orders").select("CustomerId = ?", 10)
+     *         .observe(new QueryFuture.Callback&lt;Cursor&gt;(){
+     *             public void onResult(Cursor cursor){
+     *                 adapter.swapCursor(cursor)... (post to the main thread)
+     *             }
+     *             public void onError(Throwable error){
+     *             }
+     *         }, null);
+     * ...
+     * subscription.unsubscribe();
+     * </code>
+     * </pre>
+     * </p>
+     * @param callback called with every result, on the thread that ran the query
+     * @param executor the executor, or null to use {@link com.bingzer.android.dbv.IDatabase#getReaderExecutor()}
+     * @return the subscription
+     */
+    Subscription observe(QueryFuture.Callback<T> callback, Executor executor);
+
+}
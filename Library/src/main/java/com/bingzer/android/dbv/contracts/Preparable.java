@@ -0,0 +1,64 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.contracts;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.queries.IQuery;
+import com.bingzer.android.dbv.queries.PreparedSelect;
+
+/**
+ * Prepares a <code>SELECT</code> statement once
+ * so it can be executed many times with different arguments.
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public interface Preparable {
+
+    /**
+     * Prepares a select statement. The columns, where clause, joins,
+     * group by, having, order by and limit are taken from <code>select</code>,
+     * which can be any {@link com.bingzer.android.dbv.queries.Select}
+     * (or what is returned by orderBy(), groupBy(), having() or join()).
+     * The entities are mapped using the table of <code>select</code>.
+     * Arguments passed to <code>select</code> are used when the prepared
+     * select is queried without any arguments.
+     * <p>
+     * Sample Code:
+     * <pre>
+     * <code>PreparedSelect byCountry = db.get("Customers").prepare(
+     *          db.get("Customers").select("Country = ?").columns("Id", "Name").orderBy("Name"));
+     * ...
+     * Cursor cursor = byCountry.query("US");
+     * </code>
+     * </pre>
+     * </p>
+     * @param select the select statement to prepare
+     * @return {@link com.bingzer.android.dbv.queries.PreparedSelect}
+     * @throws IllegalArgumentException if <code>select</code> is not a select statement
+     *          or is a {@link com.bingzer.android.dbv.queries.Paging}
+     */
+    PreparedSelect prepare(IQuery<Cursor> select);
+
+    /**
+     * Prepares a select statement that returns all columns
+     * @param whereClause 'where' clause with '?' as parameters
+     * @return {@link com.bingzer.android.dbv.queries.PreparedSelect}
+     * @see #prepare(com.bingzer.android.dbv.queries.IQuery)
+     */
+    PreparedSelect prepare(String whereClause);
+
+}
@@ -19,6 +19,7 @@ import android.content.ContentValues;
 
 import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.IEntityList;
+import com.bingzer.android.dbv.queries.BatchUpdate;
 import com.bingzer.android.dbv.queries.IQuery;
 import com.bingzer.android.dbv.queries.Update;
 
@@ -66,16 +67,28 @@ public interface Updatable {
      */
     IQuery<Integer> update(IEntity entity);
 
+    /**
+     * Update only the specified columns of an {@link IEntity} object.
+     * Columns that are not mapped by the entity are ignored.
+     * No sql is executed if there's nothing to update.
+     * @param entity the entity to update
+     * @param columns the columns to update
+     * @return Update object
+     */
+    IQuery<Integer> update(IEntity entity, String... columns);
+
     /**
      * Bulk-update using {@link IEntityList} object.
      * <code>query()</code> method will return -1 if there's an error updating and the
-     * transaction is rollback-ed. Otherwise, it will return the number of records updated
+     * transaction is rollback-ed. Otherwise, it will return the number of records updated.
+     * {@link com.bingzer.android.dbv.queries.BatchUpdate#getCounts()} returns the number
+     * of records updated for each entity
      *
      * @param entityList IEntityList object
      * @param <E> extends IEntity
-     * @return Update object
+     * @return BatchUpdate object
      */
-    <E extends IEntity> IQuery<Integer> update(IEntityList<E> entityList);
+    <E extends IEntity> BatchUpdate update(IEntityList<E> entityList);
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.EntityBinder;
+import com.bingzer.android.dbv.IEntity;
+
+import java.util.Arrays;
+
+/**
+ * Inserts many rows in one transaction.
+ * One INSERT statement is compiled for each column layout and kept
+ * while the layout does not change, every row is bound straight to it.
+ * <p>
+ * <pre><code>
+ * BulkInsert bulk = new BulkInsert(table);
+ * bulk.begin();
+ * try{
+ *     for(...) bulk.insert(columns, values);
+ *     bulk.commit();
+ * }
+ * finally {
+ *     bulk.end();
+ * }
+ * </code></pre>
+ * </p>
+ * Transactions are bound to a thread, so a BulkInsert must only be used
+ * by the thread that called {@link #begin()}.
+ *
+ * Created by Ricky Tobing on 8/7/14.
+ */
+public class BulkInsert {
+
+    private static final String TAG = "DBV.BulkInsert";
+
+    /**
+     * SQLITE_MAX_VARIABLE_NUMBER
+     */
+    public static final int MAX_VARIABLES = 999;
+    /**
+     * SQLITE_MAX_COMPOUND_SELECT (older sqlite counts multi-row VALUES against it)
+     */
+    public static final int MAX_ROWS = 500;
+
+    private final Table table;
+    private String[] columns;
+    private String[] sourceColumns;
+    private String[] columnsWithId;
+    private String sql;
+    private SQLiteStatement statement;
+    private long rowCount;
+    private long startNano;
+    private long elapsedNano;
+
+    public BulkInsert(Table table){
+        this.table = table;
+    }
+
+    /**
+     * Begins the transaction
+     */
+    public void begin(){
+        table.db.begin();
+        startNano = System.nanoTime();
+    }
+
+    /**
+     * Inserts a row
+     * @param columns the columns
+     * @param values the values, one for each column
+     * @return the row id
+     */
+    public long insert(String[] columns, Object[] values){
+        SQLiteStatement statement = prepare(columns);
+        Database.bindArgs(statement, values);
+        return execute(statement);
+    }
+
+    /**
+     * Inserts an entity and assigns the id back to it
+     * @param entity the entity
+     * @return the row id
+     */
+    @SuppressWarnings("unchecked")
+    public long insert(IEntity entity){
+        long id;
+
+        EntityBinder<IEntity> binder = table.getBinder(entity);
+        if(binder != null){
+            SQLiteStatement statement = prepare(binder.getColumns());
+            binder.bindToProgram(entity, statement, 1);
+            id = execute(statement);
+            binder.setId(entity, id);
+        }
+        else{
+            Delegate.Mapper mapper = new Delegate.Mapper(table);
+            entity.map(mapper);
+
+            String[] columns = table.getColumnsWithoutPrimaryKey(mapper);
+            id = insert(columns, table.getDelegates(mapper, columns));
+
+            Delegate<Long> pkDelegate = mapper.get(table.getPrimaryKeyColumn());
+            if(pkDelegate != null) pkDelegate.set(id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Inserts an entity keeping its id (the primary key is inserted too)
+     * @param entity the entity
+     * @return the row id
+     */
+    @SuppressWarnings("unchecked")
+    public long insertWithId(IEntity entity){
+        EntityBinder<IEntity> binder = table.getBinder(entity);
+        if(binder != null){
+            String[] columns = binder.getColumns();
+            SQLiteStatement statement = prepare(appendPrimaryKey(columns));
+            binder.bindToProgram(entity, statement, 1);
+            statement.bindLong(columns.length + 1, entity.getId());
+            return execute(statement);
+        }
+
+        Delegate.Mapper mapper = new Delegate.Mapper(table);
+        entity.map(mapper);
+
+        String[] columns = table.getColumnsWithoutPrimaryKey(mapper);
+        SQLiteStatement statement = prepare(appendPrimaryKey(columns));
+        Database.bindArgs(statement, table.getDelegates(mapper, columns));
+        statement.bindLong(columns.length + 1, entity.getId());
+        return execute(statement);
+    }
+
+    /**
+     * Inserts many rows with multi-row INSERT statements.
+     * Rows are chunked so a statement has at most {@link #MAX_VARIABLES} parameters
+     * and {@link #MAX_ROWS} rows. Each chunk size is a different sql,
+     * so it gets its own cached statement.
+     * @param columns the columns
+     * @param rows the rows, each one has a value for every column
+     * @return the number of rows inserted
+     */
+    public long insertRows(String[] columns, Iterable<Object[]> rows){
+        long count = 0;
+        if(columns.length == 0){
+            // nothing to bind, DEFAULT VALUES per row
+            for(Object[] row : rows){
+                insert(columns, row);
+                count++;
+            }
+            return count;
+        }
+
+        final int rowsPerChunk = Math.max(1, Math.min(MAX_VARIABLES / columns.length, MAX_ROWS));
+        final Object[][] chunk = new Object[rowsPerChunk][];
+        int size = 0;
+        for(Object[] row : rows){
+            chunk[size++] = row;
+            if(size == rowsPerChunk){
+                count += insertChunk(columns, chunk, size);
+                size = 0;
+            }
+        }
+        if(size > 0) count += insertChunk(columns, chunk, size);
+
+        return count;
+    }
+
+    /**
+     * Marks the transaction successful
+     */
+    public void commit(){
+        table.db.commit();
+    }
+
+    /**
+     * Releases the statement and ends the transaction.
+     * Rows are rolled back if {@link #commit()} was not called.
+     */
+    public void end(){
+        try{
+            release();
+        }
+        finally {
+            table.db.end();
+            elapsedNano = System.nanoTime() - startNano;
+
+            if(table.db.getConfig().getDebug())
+                Log.i(TAG, table.getName() + ": " + rowCount + " rows (" + (long) getRowsPerSecond() + " rows/sec)");
+        }
+    }
+
+    /**
+     * Returns the number of rows inserted
+     * @return the number of rows
+     */
+    public long getRowCount(){
+        return rowCount;
+    }
+
+    /**
+     * Returns how many rows are inserted per second.
+     * Measured from {@link #begin()} to {@link #end()} (or now, if not ended)
+     * @return rows per second
+     */
+    public double getRowsPerSecond(){
+        long nano = elapsedNano > 0 ? elapsedNano : System.nanoTime() - startNano;
+        if(nano <= 0) return 0;
+        return rowCount * 1E9 / nano;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private SQLiteStatement prepare(String[] columns){
+        if(statement == null || !Arrays.equals(this.columns, columns)){
+            release();
+            this.columns = columns;
+            this.sql = table.generateInsertSql(columns);
+            this.statement = table.db.getStatementCache().acquire(sql);
+        }
+        else{
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    private int insertChunk(String[] columns, Object[][] chunk, int size){
+        String sql = table.generateInsertSql(columns, size);
+        SQLiteStatement statement = table.db.getStatementCache().acquire(sql);
+        try{
+            int index = 1;
+            for(int i = 0; i < size; i++){
+                Object[] row = chunk[i];
+                for(int c = 0; c < columns.length; c++){
+                    Database.bindArg(statement, index++, row != null && c < row.length ? row[c] : null);
+                }
+                chunk[i] = null;
+            }
+            statement.executeInsert();
+            rowCount += size;
+            table.db.onRowsWritten(size);
+            return size;
+        }
+        finally {
+            table.db.getStatementCache().release(sql, statement);
+        }
+    }
+
+    private long execute(SQLiteStatement statement){
+        long id = statement.executeInsert();
+        if(id >= 0){
+            rowCount++;
+            table.db.onRowsWritten(1);
+        }
+        return id;
+    }
+
+    private String[] appendPrimaryKey(String[] columns){
+        // binder columns are the same array every time
+        if(columns != sourceColumns){
+            sourceColumns = columns;
+            columnsWithId = new String[columns.length + 1];
+            System.arraycopy(columns, 0, columnsWithId, 0, columns.length);
+            columnsWithId[columns.length] = table.getPrimaryKeyColumn();
+        }
+        return columnsWithId;
+    }
+
+    void release(){
+        if(statement != null){
+            table.db.getStatementCache().release(sql, statement);
+            statement = null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.EntityBinder;
+import com.bingzer.android.dbv.IEntity;
+
+import java.util.Arrays;
+
+/**
+ * Updates many entities in one transaction.
+ * One <code>UPDATE t SET c1 = ?,... WHERE Id = ?</code> statement is
+ * compiled for each column layout and kept while the layout does not change,
+ * every entity is bound straight to it.
+ * <p>
+ * <pre><code>
+ * BulkUpdate bulk = new BulkUpdate(table);
+ * bulk.begin();
+ * try{
+ *     for(...) bulk.update(entity);
+ *     bulk.commit();
+ * }
+ * finally {
+ *     bulk.end();
+ * }
+ * </code></pre>
+ * </p>
+ * Transactions are bound to a thread, so a BulkUpdate must only be used
+ * by the thread that called {@link #begin()}.
+ *
+ * Created by Ricky Tobing on 8/8/14.
+ */
+public class BulkUpdate {
+
+    private static final String TAG = "DBV.BulkUpdate";
+
+    private final Table table;
+    private final String whereClause;
+    private String[] columns;
+    private String sql;
+    private SQLiteStatement statement;
+    private long rowCount;
+    private long startNano;
+    private long elapsedNano;
+    private boolean skipped;
+
+    public BulkUpdate(Table table){
+        this.table = table;
+        this.whereClause = table.getPrimaryKeyColumn() + " = ?";
+    }
+
+    /**
+     * Begins the transaction
+     */
+    public void begin(){
+        table.db.begin();
+        startNano = System.nanoTime();
+    }
+
+    /**
+     * Updates an entity by its id
+     * @param entity the entity
+     * @return the number of rows updated
+     * @throws IllegalArgumentException if the entity has no id
+     */
+    @SuppressWarnings("unchecked")
+    public int update(IEntity entity){
+        if(entity.getId() < 0)
+            throw new IllegalArgumentException("Entity has no id");
+
+        skipped = true;
+        SQLiteStatement statement;
+        EntityBinder<IEntity> binder = table.getBinder(entity);
+        if(binder != null){
+            String[] columns = binder.getColumns();
+            if(columns.length == 0) return 0;
+            statement = prepare(columns);
+            binder.bindToProgram(entity, statement, 1);
+            statement.bindLong(columns.length + 1, entity.getId());
+        }
+        else{
+            Delegate.Mapper mapper = new Delegate.Mapper(table);
+            entity.map(mapper);
+
+            String[] columns = table.getColumnsWithoutPrimaryKey(mapper);
+            if(columns.length == 0) return 0;
+            statement = prepare(columns);
+            Database.bindArgs(statement, table.getDelegates(mapper, columns));
+            statement.bindLong(columns.length + 1, entity.getId());
+        }
+
+        skipped = false;
+        int count = table.db.executeUpdateDelete(statement);
+        rowCount += count;
+        if(count > 0) table.db.onRowsWritten(count);
+        return count;
+    }
+
+    /**
+     * Marks the transaction successful
+     */
+    public void commit(){
+        table.db.commit();
+    }
+
+    /**
+     * Releases the statement and ends the transaction.
+     * Rows are rolled back if {@link #commit()} was not called.
+     */
+    public void end(){
+        try{
+            release();
+        }
+        finally {
+            table.db.end();
+            elapsedNano = System.nanoTime() - startNano;
+
+            if(table.db.getConfig().getDebug())
+                Log.i(TAG, table.getName() + ": " + rowCount + " rows (" + (long) getRowsPerSecond() + " rows/sec)");
+        }
+    }
+
+    /**
+     * Returns the number of rows updated
+     * @return the number of rows
+     */
+    public long getRowCount(){
+        return rowCount;
+    }
+
+    /**
+     * Returns how many rows are updated per second.
+     * Measured from {@link #begin()} to {@link #end()} (or now, if not ended)
+     * @return rows per second
+     */
+    public double getRowsPerSecond(){
+        long nano = elapsedNano > 0 ? elapsedNano : System.nanoTime() - startNano;
+        if(nano <= 0) return 0;
+        return rowCount * 1E9 / nano;
+    }
+
+    /**
+     * Returns true if the last entity had nothing to update (only its id is mapped),
+     * the row was not looked for
+     * @return true if nothing was executed for the last entity
+     */
+    boolean isSkipped(){
+        return skipped;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private SQLiteStatement prepare(String[] columns){
+        if(statement == null || !Arrays.equals(this.columns, columns)){
+            release();
+            this.columns = columns;
+            this.sql = table.generateUpdateSql(columns, whereClause);
+            this.statement = table.db.getStatementCache().acquire(sql);
+        }
+        else{
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    void release(){
+        if(statement != null){
+            table.db.getStatementCache().release(sql, statement);
+            statement = null;
+        }
+    }
+}
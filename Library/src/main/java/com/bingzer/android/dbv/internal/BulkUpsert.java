@@ -0,0 +1,138 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.util.Log;
+
+import com.bingzer.android.dbv.IEntity;
+
+/**
+ * Updates or inserts many entities in one transaction.
+ * An entity with an id is updated first (one compiled UPDATE per column layout),
+ * if no row has that id it is inserted with its id (one compiled INSERT per column layout).
+ * An entity without an id is simply inserted and the new id is assigned back.
+ * <p>
+ * INSERT OR REPLACE is not used because sqlite deletes the existing row first,
+ * which fires ON DELETE actions and loses the columns that are not mapped.
+ * </p>
+ * <p>
+ * <pre><code>
+ * BulkUpsert bulk = new BulkUpsert(table);
+ * bulk.begin();
+ * try{
+ *     for(...) bulk.upsert(entity);
+ *     bulk.commit();
+ * }
+ * finally {
+ *     bulk.end();
+ * }
+ * </code></pre>
+ * </p>
+ * Transactions are bound to a thread, so a BulkUpsert must only be used
+ * by the thread that called {@link #begin()}.
+ *
+ * Created by Ricky Tobing on 8/9/14.
+ */
+public class BulkUpsert {
+
+    private static final String TAG = "DBV.BulkUpsert";
+
+    private final Table table;
+    private final BulkInsert bulkInsert;
+    private final BulkUpdate bulkUpdate;
+    private int insertedCount;
+    private int updatedCount;
+    private long startNano;
+
+    public BulkUpsert(Table table){
+        this.table = table;
+        this.bulkInsert = new BulkInsert(table);
+        this.bulkUpdate = new BulkUpdate(table);
+    }
+
+    /**
+     * Begins the transaction
+     */
+    public void begin(){
+        table.db.begin();
+        startNano = System.nanoTime();
+    }
+
+    /**
+     * Updates or inserts an entity
+     * @param entity the entity
+     * @return true if the entity is inserted, false if it is updated
+     */
+    public boolean upsert(IEntity entity){
+        if(entity.getId() <= 0){
+            bulkInsert.insert(entity);
+            insertedCount++;
+            return true;
+        }
+
+        // nothing to update: the row may still exist
+        if(bulkUpdate.update(entity) > 0 || (bulkUpdate.isSkipped() && table.has(entity.getId()))){
+            updatedCount++;
+            return false;
+        }
+
+        bulkInsert.insertWithId(entity);
+        insertedCount++;
+        return true;
+    }
+
+    /**
+     * Marks the transaction successful
+     */
+    public void commit(){
+        table.db.commit();
+    }
+
+    /**
+     * Releases the statements and ends the transaction.
+     * Rows are rolled back if {@link #commit()} was not called.
+     */
+    public void end(){
+        try{
+            bulkUpdate.release();
+            bulkInsert.release();
+        }
+        finally {
+            table.db.end();
+
+            if(table.db.getConfig().getDebug()){
+                long nano = System.nanoTime() - startNano;
+                Log.i(TAG, table.getName() + ": " + insertedCount + " inserted, " + updatedCount + " updated (" + nano + " nano)");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entities inserted
+     * @return the number of entities inserted
+     */
+    public int getInsertedCount(){
+        return insertedCount;
+    }
+
+    /**
+     * Returns the number of entities updated
+     * @return the number of entities updated
+     */
+    public int getUpdatedCount(){
+        return updatedCount;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.AbstractCursor;
+
+/**
+ * Read-only cursor over rows held by {@link QueryCache}.
+ * The rows are shared, every cursor only keeps its own position.
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+class CachedCursor extends AbstractCursor {
+
+    private final QueryCache.Rows rows;
+
+    CachedCursor(QueryCache.Rows rows){
+        this.rows = rows;
+    }
+
+    @Override
+    public int getCount() {
+        return rows.values.length;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return rows.columnNames;
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = get(column);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = get(column);
+        if(value instanceof Number) return ((Number) value).longValue();
+        if(value instanceof String) {
+            try{
+                return Long.parseLong((String) value);
+            }
+            catch (NumberFormatException e){
+                return (long) getDouble(column);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = get(column);
+        if(value instanceof Number) return ((Number) value).doubleValue();
+        if(value instanceof String) {
+            try{
+                return Double.parseDouble((String) value);
+            }
+            catch (NumberFormatException e){
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        Object value = get(column);
+        if(value instanceof byte[]) return ((byte[]) value).clone();
+        return value == null ? null : value.toString().getBytes();
+    }
+
+    @Override
+    public int getType(int column) {
+        Object value = get(column);
+        if(value == null) return FIELD_TYPE_NULL;
+        if(value instanceof byte[]) return FIELD_TYPE_BLOB;
+        if(value instanceof Double || value instanceof Float) return FIELD_TYPE_FLOAT;
+        if(value instanceof Number) return FIELD_TYPE_INTEGER;
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return get(column) == null;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Object get(int column){
+        checkPosition();
+        return rows.values[mPos][column];
+    }
+}
@@ -33,6 +33,23 @@ public class Config implements IConfig {
     private boolean foreignKeySupport;
     private boolean debug;
     private boolean readOnly;
+    private boolean schemaPrewarm;
+    private boolean writeAheadLogging;
+    private int readConnectionPoolSize;
+    private int walAutoCheckpoint;
+    private int statementCacheSize;
+    private int queryCacheSize;
+    private long queryCacheMaxBytes;
+    StatementCache statementCache;
+    private int entityCacheSize;
+    private long entityCacheTtl;
+    private int writeQueueBatchSize;
+    private long writeQueueLatency;
+    private int transactionYieldRows;
+    private long transactionYieldMillis;
+    private long observeDebounce;
+    QueryCache queryCache;
+    EntityCache entityCache;
 
     public Config(){
         this.idNamingConvention = "Id";
@@ -40,6 +57,20 @@ public class Config implements IConfig {
         this.foreignKeySupport = false;
         this.debug = false;
         this.readOnly = false;
+        this.schemaPrewarm = false;
+        this.writeAheadLogging = false;
+        this.readConnectionPoolSize = 2;
+        this.walAutoCheckpoint = 0;
+        this.statementCacheSize = 25;
+        this.queryCacheSize = 0;
+        this.queryCacheMaxBytes = 1024 * 1024;
+        this.entityCacheSize = 0;
+        this.entityCacheTtl = 0;
+        this.writeQueueBatchSize = 0;
+        this.writeQueueLatency = 10;
+        this.transactionYieldRows = 0;
+        this.transactionYieldMillis = 0;
+        this.observeDebounce = 50;
     }
 
     @Override
@@ -72,6 +103,93 @@ public class Config implements IConfig {
         return debug;
     }
 
+    @Override
+    public void setStatementCacheSize(int size) {
+        this.statementCacheSize = size;
+    }
+
+    @Override
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    @Override
+    public long getStatementCacheHitCount() {
+        return statementCache == null ? 0 : statementCache.getHitCount();
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        return statementCache == null ? 0 : statementCache.getMissCount();
+    }
+
+    @Override
+    public void setQueryCacheSize(int size) {
+        this.queryCacheSize = size;
+    }
+
+    @Override
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    @Override
+    public void setQueryCacheMaxBytes(long maxBytes) {
+        this.queryCacheMaxBytes = maxBytes;
+    }
+
+    @Override
+    public long getQueryCacheMaxBytes() {
+        return queryCacheMaxBytes;
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return queryCache == null ? 0 : queryCache.getHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return queryCache == null ? 0 : queryCache.getMissCount();
+    }
+
+    @Override
+    public double getQueryCacheHitRatio() {
+        long hitCount = getQueryCacheHitCount();
+        long total = hitCount + getQueryCacheMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public void setEntityCacheSize(int size) {
+        this.entityCacheSize = size;
+    }
+
+    @Override
+    public int getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    @Override
+    public void setEntityCacheTtl(long millis) {
+        this.entityCacheTtl = millis;
+    }
+
+    @Override
+    public long getEntityCacheTtl() {
+        return entityCacheTtl;
+    }
+
+    @Override
+    public long getEntityCacheHitCount() {
+        return entityCache == null ? 0 : entityCache.getHitCount();
+    }
+
+    @Override
+    public long getEntityCacheMissCount() {
+        return entityCache == null ? 0 : entityCache.getMissCount();
+    }
+
     @Override
     public void setForeignKeySupport(boolean on) {
         this.foreignKeySupport = on;
@@ -92,4 +210,94 @@ public class Config implements IConfig {
         return readOnly;
     }
 
+    @Override
+    public void setSchemaPrewarm(boolean on) {
+        this.schemaPrewarm = on;
+    }
+
+    @Override
+    public boolean getSchemaPrewarm() {
+        return schemaPrewarm;
+    }
+
+    @Override
+    public void setWriteAheadLogging(boolean on) {
+        this.writeAheadLogging = on;
+    }
+
+    @Override
+    public boolean getWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    @Override
+    public void setReadConnectionPoolSize(int size) {
+        this.readConnectionPoolSize = size;
+    }
+
+    @Override
+    public int getReadConnectionPoolSize() {
+        return readConnectionPoolSize;
+    }
+
+    @Override
+    public void setWalAutoCheckpoint(int pages) {
+        this.walAutoCheckpoint = pages;
+    }
+
+    @Override
+    public int getWalAutoCheckpoint() {
+        return walAutoCheckpoint;
+    }
+
+    @Override
+    public void setWriteQueueBatchSize(int size) {
+        this.writeQueueBatchSize = size;
+    }
+
+    @Override
+    public int getWriteQueueBatchSize() {
+        return writeQueueBatchSize;
+    }
+
+    @Override
+    public void setWriteQueueLatency(long millis) {
+        this.writeQueueLatency = millis;
+    }
+
+    @Override
+    public long getWriteQueueLatency() {
+        return writeQueueLatency;
+    }
+
+    @Override
+    public void setTransactionYieldRows(int rows) {
+        this.transactionYieldRows = rows;
+    }
+
+    @Override
+    public int getTransactionYieldRows() {
+        return transactionYieldRows;
+    }
+
+    @Override
+    public void setTransactionYieldMillis(long millis) {
+        this.transactionYieldMillis = millis;
+    }
+
+    @Override
+    public long getTransactionYieldMillis() {
+        return transactionYieldMillis;
+    }
+
+    @Override
+    public void setObserveDebounce(long millis) {
+        this.observeDebounce = millis;
+    }
+
+    @Override
+    public long getObserveDebounce() {
+        return observeDebounce;
+    }
+
 }
@@ -16,22 +16,55 @@
 
 package com.bingzer.android.dbv.internal;
 
+import android.annotation.TargetApi;
 import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.os.CancellationSignal;
 import android.util.Log;
 
+import com.bingzer.android.dbv.Delegate;
 import com.bingzer.android.dbv.IConfig;
 import com.bingzer.android.dbv.IDatabase;
 import com.bingzer.android.dbv.ITable;
 import com.bingzer.android.dbv.IView;
 import com.bingzer.android.dbv.SQLiteBuilder;
+import com.bingzer.android.dbv.internal.queries.QueryFutureImpl;
 import com.bingzer.android.dbv.internal.queries.TransactionImpl;
 import com.bingzer.android.dbv.queries.IQuery;
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.queries.Subscription;
+import com.bingzer.android.dbv.utils.DelegateUtils;
 import com.bingzer.android.dbv.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * Created by Ricky Tobing on 7/16/13.
@@ -39,12 +72,47 @@ import java.util.List;
 public class Database implements IDatabase {
     public static final String SPACE = " ";
     private static final String TAG = "DBV.SQLite.Database";
+    private static final Object MISSING = new Object();
+    // temp objects and attached databases only exist on the connection that made them
+    private static final Pattern CONNECTION_SCHEMA = Pattern.compile("^\\s*(?:CREATE\\s+TEMP(?:ORARY)?\\s|ATTACH\\s)", Pattern.CASE_INSENSITIVE);
+    // aliased tables kept per registry, they're forgotten past this
+    private static final int MAX_ALIASES = 64;
 
     private final String name;
     private final DbModel dbModel = new DbModel();
-    private final List<ITable> tables = new ArrayList<ITable>();
-    private final List<IView> views = new ArrayList<IView>();
-    private final IConfig config;
+    private final List<ITable> tables = new CopyOnWriteArrayList<ITable>();
+    private final List<IView> views = new CopyOnWriteArrayList<IView>();
+    // name (as given) -> Table or MISSING
+    private final ConcurrentMap<String, Object> tableRegistry = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, Object> viewRegistry = new ConcurrentHashMap<String, Object>();
+    // name with an alias (as given) -> aliased Table, bounded
+    private final ConcurrentMap<String, Object> tableAliases = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, Object> viewAliases = new ConcurrentHashMap<String, Object>();
+    // lower-cased names of the tables in sqlite_master (no views)
+    private final ConcurrentMap<String, Boolean> tableNames = new ConcurrentHashMap<String, Boolean>();
+    private final Config config;
+    private final StatementCache statementCache;
+    private final IdSets idSets;
+    private final QueryCache queryCache;
+    private final EntityCache entityCache;
+    private final WriteQueue writeQueue;
+    private final QueryObservers queryObservers;
+    private volatile ReaderPool readerPool;
+    // true once a temp table/view or an attached database exists on the writer
+    private volatile boolean writerSchema;
+    // the CancellationSignal of the async query running on the thread
+    private final ThreadLocal<Object> cancellationSignal = new ThreadLocal<Object>();
+    private ExecutorService readerExecutor;
+    // savepoints of the nested transactions of the thread, innermost first
+    private final ThreadLocal<LinkedList<Savepoint>> savepoints = new ThreadLocal<LinkedList<Savepoint>>(){
+        @Override
+        protected LinkedList<Savepoint> initialValue() {
+            return new LinkedList<Savepoint>();
+        }
+    };
+    private final AtomicInteger savepointCount = new AtomicInteger();
+    private ExecutorService writerExecutor;
+    private final WorkerThreadFactory writerThreadFactory = new WorkerThreadFactory("DbQuery-Writer");
 
     private int version;
     private DbOpenHelper dbHelper;
@@ -57,6 +125,15 @@ public class Database implements IDatabase {
     public Database(String name){
         this.name = name;
         this.config = new Config();  // default config
+        this.statementCache = new StatementCache(this);
+        this.idSets = new IdSets(this);
+        this.queryCache = new QueryCache(this);
+        this.entityCache = new EntityCache(this);
+        this.writeQueue = new WriteQueue(this);
+        this.queryObservers = new QueryObservers(this);
+        this.config.statementCache = statementCache;
+        this.config.queryCache = queryCache;
+        this.config.entityCache = entityCache;
     }
 
     ////////////////////////////////////////////////
@@ -87,64 +164,16 @@ public class Database implements IDatabase {
 
     @Override
     public ITable get(String tableName) {
-        String alias = null;
-        if(tableName.contains(SPACE)){
-            // split and get alias..
-            int index = tableName.indexOf(SPACE);
-            alias = tableName.substring(index).trim();
-            tableName = tableName.substring(0, index).trim();
-        }
-
-        for (ITable table : tables) {
-            if (table.getName().equalsIgnoreCase(tableName)) {
-                table.setAlias(alias);
-                return table;
-            }
-        }
-
-        // not found
-        // okay maybe it's just been created..
-        try{
-            ITable table = new Table(this, tableName);
-            table.setAlias(alias);
-            tables.add(table);
-            return table;
-        }
-        catch (IllegalArgumentException e){
-            // okay not found anywhere
-            return null;
-        }
+        Object table = tableRegistry.get(tableName);
+        if(table == null) table = lookup(tableRegistry, tableAliases, tableName, false);
+        return table == MISSING ? null : (ITable) table;
     }
 
     @Override
     public IView getView(String viewName) {
-        String alias = null;
-        if(viewName.contains(SPACE)){
-            // split and get alias..
-            int index = viewName.indexOf(SPACE);
-            alias = viewName.substring(index).trim();
-            viewName = viewName.substring(0, index).trim();
-        }
-
-        for (IView view : views) {
-            if (view.getName().equalsIgnoreCase(viewName)) {
-                view.setAlias(alias);
-                return view;
-            }
-        }
-
-        // not found
-        // okay maybe it's just been created..
-        try{
-            IView view = new View(this, viewName);
-            view.setAlias(alias);
-            views.add(view);
-            return view;
-        }
-        catch (IllegalArgumentException e){
-            // okay not found anywhere
-            return null;
-        }
+        Object view = viewRegistry.get(viewName);
+        if(view == null) view = lookup(viewRegistry, viewAliases, viewName, true);
+        return view == MISSING ? null : (IView) view;
     }
 
     @Override
@@ -163,20 +192,34 @@ public class Database implements IDatabase {
             this.version = version;
             this.dbHelper = new DbOpenHelper(this, dbPath, (SQLiteBuilder) builder);
             this.sqLiteDb = dbHelper.getSQLiteDatabase();
-            Cursor cursor = raw("SELECT name FROM sqlite_master WHERE type='table'").query();
+            if(config.getWriteAheadLogging()) enableWriteAheadLogging();
+            // columns are loaded when they're first needed (or prewarmed)
+            Cursor cursor = raw("SELECT name, type FROM sqlite_master WHERE type IN ('table', 'view')").query();
             try{
                 tables.clear();
+                views.clear();
+                tableRegistry.clear();
+                viewRegistry.clear();
+                tableAliases.clear();
+                viewAliases.clear();
+                tableNames.clear();
                 while(cursor.moveToNext()){
                     String tableName = cursor.getString(0);
 
-                    Table table = new Table(Database.this, tableName);
-                    tables.add(table);
+                    if("view".equals(cursor.getString(1))){
+                        register(new View(Database.this, tableName, null));
+                    }
+                    else{
+                        tableNames.put(tableName.toLowerCase(Locale.US), Boolean.TRUE);
+                        register(new Table(Database.this, tableName, null));
+                    }
                 }
             }
             finally {
                 cursor.close();
                 // check for foreign key support
                 setForeignKeySupport(config.getForeignKeySupport());
+                if(config.getSchemaPrewarm()) prewarm();
                 // finally called on ready
                 builder.onReady(this);
             }
@@ -185,6 +228,15 @@ public class Database implements IDatabase {
 
     @Override
     public void close() {
+        queryObservers.clear();
+        shutdownExecutors();
+        writerSchema = false;
+        if(readerPool != null) readerPool.close();
+        readerPool = null;
+        statementCache.clear();
+        idSets.clear();
+        queryCache.clear();
+        entityCache.clear();
         if(dbHelper != null) dbHelper.close();
         if(sqLiteDb != null) sqLiteDb.close();
         // reset
@@ -205,11 +257,86 @@ public class Database implements IDatabase {
         return new TransactionImpl(this, batch);
     }
 
+    @Override
+    public QueryFuture<Boolean> executeAsync(final Batch batch) {
+        return QueryFutureImpl.submit(getWriterExecutor(), new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return begin(batch).execute();
+            }
+        });
+    }
+
+    @Override
+    public <T> QueryFuture<T> enqueue(Write<T> write) {
+        return writeQueue.enqueue(write);
+    }
+
+    @Override
+    public synchronized Executor getReaderExecutor() {
+        if(readerExecutor == null){
+            // readers run in parallel in WAL mode, one at a time otherwise
+            readerExecutor = Executors.newFixedThreadPool(Math.max(1, config.getReadConnectionPoolSize()),
+                    new WorkerThreadFactory("DbQuery-Reader"));
+        }
+        return readerExecutor;
+    }
+
+    @Override
+    public synchronized Executor getWriterExecutor() {
+        if(writerExecutor == null){
+            writerExecutor = Executors.newSingleThreadExecutor(writerThreadFactory);
+        }
+        return writerExecutor;
+    }
+
+    /**
+     * Shuts down the executors, they are created again (with the current config) when needed.
+     * Queued writes are committed before the database is closed,
+     * unless it's closed by a write.
+     */
+    private void shutdownExecutors(){
+        ExecutorService reader, writer;
+        synchronized (this){
+            reader = readerExecutor;
+            writer = writerExecutor;
+            readerExecutor = null;
+            writerExecutor = null;
+        }
+
+        if(reader != null) reader.shutdown();
+        if(writer != null){
+            writer.shutdown();
+            if(!writerThreadFactory.isWorkerThread()){
+                try{
+                    while(!writer.awaitTermination(1, TimeUnit.SECONDS)){
+                        Log.w(TAG, "Waiting for the queued writes");
+                    }
+                }
+                catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
     @Override
     public String getPath() {
         return getSQLiteDatabase().getPath();
     }
 
+    @Override
+    public boolean checkpoint() {
+        Cursor cursor = getSQLiteDatabase().rawQuery("PRAGMA wal_checkpoint(RESTART)", null);
+        try{
+            // busy, log pages, checkpointed pages (-1 if not in WAL mode)
+            return !cursor.moveToFirst() || cursor.getInt(0) == 0;
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
     @Override
     public IQuery<Cursor> raw(String sql) {
         return raw(sql, (Object)null);
@@ -229,6 +356,7 @@ public class Database implements IDatabase {
     public void execSql(String sql) {
         enforceReadOnly();
         getSQLiteDatabase().execSQL(sql);
+        onExecSql(sql);
     }
 
     @Override
@@ -238,6 +366,288 @@ public class Database implements IDatabase {
         if(args == null) execSql(sql);
         else{
             getSQLiteDatabase().execSQL(Utils.bindArgs(sql, args));
+            onExecSql(sql);
+        }
+    }
+
+    private void onExecSql(String sql){
+        // the read connections can't see them, every read goes to the writer from now on
+        if(CONNECTION_SCHEMA.matcher(sql).find()) writerSchema = true;
+        // could be anything (drop, alter, a trigger..)
+        queryCache.invalidateAll();
+        forgetMissing();
+    }
+
+    /**
+     * Runs a query with its arguments bound to the compiled statement
+     * instead of being spliced into the sql. Unlike
+     * {@link SQLiteDatabase#rawQuery(String, String[])} the arguments
+     * keep their type, so numbers are compared as numbers.
+     * Since the sql does not change with the arguments, SQLite
+     * can reuse the same compiled statement on every call.
+     * When the query cache is on, the rows are served from (or copied into) the cache,
+     * unless they're bigger than {@link IConfig#getQueryCacheMaxBytes()}.
+     *
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the cursor
+     */
+    public Cursor rawQuery(String sql, Object... bindArgs){
+        QueryCache.Key key = queryCache.newKey(QueryCache.ROWS, sql, bindArgs);
+        if(key == null) return query(sql, bindArgs);
+
+        QueryCache.Rows rows = (QueryCache.Rows) queryCache.get(key);
+        if(rows == null){
+            Cursor cursor = query(sql, bindArgs);
+            try{
+                rows = QueryCache.Rows.read(cursor, config.getQueryCacheMaxBytes());
+            }
+            catch (RuntimeException e){
+                cursor.close();
+                throw e;
+            }
+
+            if(rows == null){
+                // too big to be cached, the cursor is returned as it is
+                cursor.moveToPosition(-1);
+                return cursor;
+            }
+            cursor.close();
+            queryCache.put(key, rows, rows.size);
+        }
+        return new CachedCursor(rows);
+    }
+
+    /**
+     * Runs a query on the executor. Cursors are filled (the first window)
+     * on the executor and cancelling the future cancels the query in sqlite
+     * (Jelly Bean and later)
+     * @param executor the executor, or null to use {@link #getReaderExecutor()}
+     * @param query the query
+     * @param <T> the result type
+     * @return the future
+     */
+    public <T> QueryFuture<T> queryAsync(Executor executor, final IQuery<T> query){
+        final Object signal = newCancellationSignal();
+        QueryFutureImpl<T> future = new QueryFutureImpl<T>(new Callable<T>() {
+            @Override
+            public T call() {
+                cancellationSignal.set(signal);
+                try{
+                    T result = query.query();
+                    if(result instanceof Cursor) ((Cursor) result).getCount();
+                    return result;
+                }
+                finally {
+                    cancellationSignal.remove();
+                }
+            }
+        }, signal);
+
+        if(executor == null) executor = getReaderExecutor();
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Runs the query now and every time a table it reads is written
+     * @param query the query (its toString() is the sql)
+     * @param callback the callback
+     * @param executor the executor, or null to use {@link #getReaderExecutor()}
+     * @param <T> the result type
+     * @return the subscription
+     */
+    public <T> Subscription observe(IQuery<T> query, QueryFuture.Callback<T> callback, Executor executor){
+        return queryObservers.observe(query, callback, executor);
+    }
+
+    private Cursor query(String sql, Object... bindArgs){
+        ReaderPool pool = readerPool;
+        Object signal = cancellationSignal.get();
+        if(pool != null && canRead(bindArgs)) return pool.rawQuery(sql, bindArgs, signal);
+
+        Cursor cursor = rawQuery(getSQLiteDatabase(), sql, bindArgs, signal);
+        if(bindArgs == null) return cursor;
+        for(Object arg : bindArgs){
+            // the id set must live as long as the cursor (the query runs again for every window)
+            if(arg instanceof IdSets.IdSet) return new IdSetCursor(cursor, bindArgs);
+        }
+        return cursor;
+    }
+
+    /**
+     * Executes an insert statement. The compiled statement is
+     * cached and reused the next time the same sql is executed.
+     *
+     * @param sql the insert sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the row id of the inserted row
+     */
+    public long executeInsert(String sql, Object... bindArgs){
+        return executeInsert(sql, bindArgs, null);
+    }
+
+    /**
+     * Executes an insert statement. The values are bound by the binding.
+     *
+     * @param sql the insert sql with '?' as parameters
+     * @param binding binds the parameters
+     * @return the row id of the inserted row
+     */
+    public long executeInsert(String sql, Binding binding){
+        return executeInsert(sql, null, binding);
+    }
+
+    /**
+     * Runs a query that returns a single number (the first column of the first row)
+     * as a cached compiled statement. No cursor (or cursor window) is created.
+     *
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the value, 0 if the value is null
+     * @throws android.database.sqlite.SQLiteDoneException if there's no row
+     */
+    public long simpleQueryForLong(String sql, Object... bindArgs){
+        QueryCache.Key key = queryCache.newKey(QueryCache.LONG, sql, bindArgs);
+        if(key == null) return queryForLong(sql, bindArgs);
+
+        Object value = queryCache.get(key);
+        if(value == null){
+            try{
+                value = queryForLong(sql, bindArgs);
+            }
+            catch (SQLiteDoneException e){
+                value = QueryCache.NO_ROW;
+            }
+            queryCache.put(key, value, 16);
+        }
+
+        if(value == QueryCache.NO_ROW) throw new SQLiteDoneException();
+        return (Long) value;
+    }
+
+    /**
+     * Runs a query that returns a single value (the first column of the first row)
+     * as a cached compiled statement. No cursor (or cursor window) is created.
+     *
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the value as text, null if the value is null
+     * @throws android.database.sqlite.SQLiteDoneException if there's no row
+     */
+    public String simpleQueryForString(String sql, Object... bindArgs){
+        QueryCache.Key key = queryCache.newKey(QueryCache.STRING, sql, bindArgs);
+        if(key == null) return queryForString(sql, bindArgs);
+
+        Object value = queryCache.get(key);
+        if(value == null){
+            try{
+                value = queryForString(sql, bindArgs);
+                if(value == null) value = QueryCache.NULL;
+            }
+            catch (SQLiteDoneException e){
+                value = QueryCache.NO_ROW;
+            }
+            queryCache.put(key, value, QueryCache.Rows.sizeOf(value));
+        }
+
+        if(value == QueryCache.NO_ROW) throw new SQLiteDoneException();
+        return value == QueryCache.NULL ? null : (String) value;
+    }
+
+    private long queryForLong(String sql, Object... bindArgs){
+        ReaderPool pool = readerPool;
+        if(pool != null && canRead(bindArgs)) return pool.simpleQueryForLong(sql, bindArgs);
+
+        SQLiteStatement statement = statementCache.acquire(sql);
+        try{
+            bindArgs(statement, bindArgs);
+            return statement.simpleQueryForLong();
+        }
+        finally {
+            statementCache.release(sql, statement);
+        }
+    }
+
+    private String queryForString(String sql, Object... bindArgs){
+        ReaderPool pool = readerPool;
+        if(pool != null && canRead(bindArgs)) return pool.simpleQueryForString(sql, bindArgs);
+
+        SQLiteStatement statement = statementCache.acquire(sql);
+        try{
+            bindArgs(statement, bindArgs);
+            return statement.simpleQueryForString();
+        }
+        finally {
+            statementCache.release(sql, statement);
+        }
+    }
+
+    /**
+     * Executes an update or delete statement. The compiled statement is
+     * cached and reused the next time the same sql is executed.
+     *
+     * @param sql the update/delete sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the number of rows affected
+     */
+    public int executeUpdateDelete(String sql, Object... bindArgs){
+        return executeUpdateDelete(sql, bindArgs, null);
+    }
+
+    /**
+     * Executes an update or delete statement. The values are bound by the binding.
+     *
+     * @param sql the update/delete sql with '?' as parameters
+     * @param binding binds the parameters
+     * @return the number of rows affected
+     */
+    public int executeUpdateDelete(String sql, Binding binding){
+        return executeUpdateDelete(sql, null, binding);
+    }
+
+    private long executeInsert(String sql, Object[] bindArgs, Binding binding){
+        SQLiteStatement statement = statementCache.acquire(sql);
+        try{
+            bindArgs(statement, bindArgs);
+            if(binding != null) binding.bind(statement);
+            return statement.executeInsert();
+        }
+        finally {
+            statementCache.release(sql, statement);
+        }
+    }
+
+    int executeUpdateDelete(String sql, Object[] bindArgs, Binding binding){
+        SQLiteStatement statement = statementCache.acquire(sql);
+        try{
+            bindArgs(statement, bindArgs);
+            if(binding != null) binding.bind(statement);
+            return executeUpdateDelete(statement);
+        }
+        finally {
+            statementCache.release(sql, statement);
+        }
+    }
+
+    /**
+     * Executes an update/delete statement that's already bound
+     * @return the number of rows affected
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    int executeUpdateDelete(SQLiteStatement statement){
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+            return statement.executeUpdateDelete();
+
+        statement.execute();
+
+        // pre-honeycomb: ask sqlite how many rows were changed
+        SQLiteStatement changes = statementCache.acquire("SELECT changes()");
+        try{
+            return (int) changes.simpleQueryForLong();
+        }
+        finally {
+            statementCache.release("SELECT changes()", changes);
         }
     }
 
@@ -291,32 +701,398 @@ public class Database implements IDatabase {
     ////////////////////////////////////////////////////////////////////////////////////////////////
 
     boolean removeTable(ITable table){
+        // a view can also be registered as a table (and aliases share the name)
+        unregister(tableRegistry, table.getName());
+        unregister(viewRegistry, table.getName());
+        unregister(tableAliases, table.getName());
+        unregister(viewAliases, table.getName());
+        tableNames.remove(table.getName().toLowerCase(Locale.US));
         if(table instanceof IView)
             return views.remove(table);
         return tables.remove(table);
     }
 
+    /**
+     * Runs the query on the connection
+     * @param db the connection
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @param signal the CancellationSignal or null
+     * @return the cursor
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    static Cursor rawQuery(SQLiteDatabase db, String sql, Object[] bindArgs, Object signal){
+        boolean noArgs = bindArgs == null || bindArgs.length == 0;
+        if(signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+            if(noArgs) return db.rawQuery(sql, null, (CancellationSignal) signal);
+            return db.rawQueryWithFactory(new BindArgsCursorFactory(bindArgs), sql, null, null, (CancellationSignal) signal);
+        }
+
+        if(noArgs) return db.rawQuery(sql, null);
+        return db.rawQueryWithFactory(new BindArgsCursorFactory(bindArgs), sql, null, null);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static Object newCancellationSignal(){
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) return new CancellationSignal();
+        return null;
+    }
+
+    /**
+     * Returns true if the query can run on a read connection.
+     * Queries inside a transaction must see its changes, id sets
+     * (and any temp table, temp view or attached database
+     * made through execSql()) live on the writer connection
+     */
+    private boolean canRead(Object[] bindArgs){
+        if(writerSchema || getSQLiteDatabase().inTransaction()) return false;
+        if(bindArgs != null){
+            for(Object arg : bindArgs){
+                if(arg instanceof IdSets.IdSet) return false;
+            }
+        }
+        return true;
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private void enableWriteAheadLogging(){
+        // WAL needs SQLite 3.7 (Honeycomb)
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB || config.isReadOnly()) return;
+        // i.e: in-memory databases
+        if(!sqLiteDb.enableWriteAheadLogging()) return;
+
+        if(config.getWalAutoCheckpoint() > 0){
+            Cursor cursor = sqLiteDb.rawQuery("PRAGMA wal_autocheckpoint = " + config.getWalAutoCheckpoint(), null);
+            // the pragma runs when the cursor is filled
+            cursor.getCount();
+            cursor.close();
+        }
+        if(config.getReadConnectionPoolSize() > 0){
+            readerPool = new ReaderPool(this, sqLiteDb.getPath(), config.getReadConnectionPoolSize());
+        }
+    }
+
+    /**
+     * Loads the columns of every table and view on a background thread
+     */
+    void prewarm(){
+        Thread thread = new Thread("DbQuery-Prewarm"){
+            @Override
+            public void run() {
+                try{
+                    loadColumns();
+                }
+                catch (RuntimeException e){
+                    // closed (or busy), the columns will be loaded when needed
+                    if(config.getDebug()) Log.d(TAG, "Prewarm stopped: " + e.getMessage());
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Loads the columns of every table and view, in one pass if
+     * SQLite supports table-valued pragma functions (3.16+)
+     */
+    void loadColumns(){
+        Map<String, List<String>> columnMap = new HashMap<String, List<String>>();
+        Cursor cursor;
+        try{
+            cursor = getSQLiteDatabase().rawQuery("SELECT m.name, p.name FROM sqlite_master m, pragma_table_info(m.name) p " +
+                    "WHERE m.type IN ('table', 'view') ORDER BY m.name, p.cid", null);
+        }
+        catch (SQLiteException e){
+            // older SQLite, one PRAGMA per table
+            for(ITable table : tables) table.getColumnCount();
+            for(IView view : views) ((Table) view).getColumnCount();
+            return;
+        }
+
+        try{
+            while(cursor.moveToNext()){
+                String tableName = cursor.getString(0).toLowerCase(Locale.US);
+                List<String> columns = columnMap.get(tableName);
+                if(columns == null){
+                    columns = new ArrayList<String>();
+                    columnMap.put(tableName, columns);
+                }
+                columns.add(cursor.getString(1));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+
+        for(ITable table : tables){
+            ((Table) table).setColumns(columnMap.get(table.getName().toLowerCase(Locale.US)));
+        }
+        for(IView view : views){
+            ((Table) view).setColumns(columnMap.get(view.getName().toLowerCase(Locale.US)));
+        }
+    }
+
+    void renameTable(Table table, String newName){
+        boolean isTable = tableNames.containsKey(table.getName().toLowerCase(Locale.US));
+        removeTable(table);
+        table.setName(newName);
+        if(isTable) tableNames.put(newName.toLowerCase(Locale.US), Boolean.TRUE);
+        register(table);
+    }
+
+    /**
+     * Returns true if the name is a table (not a view)
+     * @param tableName lower-cased name
+     * @return true if it's a table
+     */
+    boolean isTable(String tableName){
+        return tableNames.containsKey(tableName);
+    }
+
+    /**
+     * Slow path of {@link #get(String)} and {@link #getView(String)}.
+     * The result is registered under the name as it was given,
+     * so the next lookup is a single map read. Aliased tables are kept
+     * in their own map, which is emptied once it has {@link #MAX_ALIASES}
+     * (generated aliases would otherwise never stop adding up).
+     */
+    private Object lookup(ConcurrentMap<String, Object> registry, ConcurrentMap<String, Object> aliases,
+                          String tableName, boolean view){
+        String name = tableName;
+        String alias = null;
+        int index = tableName.indexOf(SPACE);
+        if(index >= 0){
+            Object aliased = aliases.get(tableName);
+            if(aliased != null) return aliased;
+
+            // split and get alias..
+            alias = tableName.substring(index).trim();
+            name = tableName.substring(0, index).trim();
+        }
+
+        String key = name.toLowerCase(Locale.US);
+        Object table = registry.get(key);
+        if(table == null){
+            // not found
+            // okay maybe it's just been created..
+            try{
+                table = view ? new View(this, name) : new Table(this, name);
+            }
+            catch (IllegalArgumentException e){
+                // okay not found anywhere, remember that until the schema changes
+                table = MISSING;
+            }
+
+            Object existing = registry.putIfAbsent(key, table);
+            if(existing != null) table = existing;
+            else if(table instanceof View) views.add((View) table);
+            else if(table != MISSING) tables.add((Table) table);
+        }
+
+        if(alias == null || alias.length() == 0){
+            Object existing = registry.putIfAbsent(tableName, table);
+            return existing != null ? existing : table;
+        }
+        // the miss is already remembered under the name
+        if(table == MISSING) return MISSING;
+
+        if(aliases.size() >= MAX_ALIASES) aliases.clear();
+        Object aliased = ((Table) table).alias(alias);
+        Object existing = aliases.putIfAbsent(tableName, aliased);
+        return existing != null ? existing : aliased;
+    }
+
+    private void register(Table table){
+        if(table instanceof View){
+            views.add((View) table);
+            viewRegistry.put(table.getName().toLowerCase(Locale.US), table);
+        }
+        else{
+            tables.add(table);
+            tableRegistry.put(table.getName().toLowerCase(Locale.US), table);
+        }
+    }
+
+    private static void unregister(ConcurrentMap<String, Object> registry, String tableName){
+        Iterator<Object> iterator = registry.values().iterator();
+        while(iterator.hasNext()){
+            Object table = iterator.next();
+            if(table != MISSING && ((ITable) table).getName().equalsIgnoreCase(tableName)) iterator.remove();
+        }
+    }
+
+    private void forgetMissing(){
+        forgetMissing(tableRegistry);
+        forgetMissing(viewRegistry);
+    }
+
+    private static void forgetMissing(ConcurrentMap<String, Object> registry){
+        Iterator<Object> iterator = registry.values().iterator();
+        while(iterator.hasNext()){
+            if(iterator.next() == MISSING) iterator.remove();
+        }
+    }
+
     void ensureDbHelperIsReady(){
         if(dbHelper == null || sqLiteDb == null)
             throw new IllegalArgumentException("You must call IDatabase.open() first");
     }
 
+    /**
+     * Begins a transaction. Inside another transaction (of this thread)
+     * a savepoint is used instead, so that it can be rolled back on its own
+     */
     public void begin(){
-        getSQLiteDatabase().beginTransaction();
+        SQLiteDatabase db = getSQLiteDatabase();
+        Savepoint savepoint;
+        if(!db.inTransaction()){
+            db.beginTransaction();
+            savepoint = new Savepoint(null);
+        }
+        else{
+            savepoint = new Savepoint("DbQuery_Savepoint" + savepointCount.incrementAndGet());
+            db.execSQL("SAVEPOINT " + savepoint.name);
+        }
+        savepoints.get().addFirst(savepoint);
     }
 
+    /**
+     * Marks the current transaction as successful, it's committed (or released) by {@link #end()}
+     */
     public void commit(){
-        getSQLiteDatabase().setTransactionSuccessful();
+        ensureDbHelperIsReady();
+        Savepoint savepoint = savepoints.get().peek();
+        if(savepoint != null) savepoint.successful = true;
+        // not started by begin()
+        else getSQLiteDatabase().setTransactionSuccessful();
     }
 
+    /**
+     * Marks the current transaction as failed, it's rolled back by {@link #end()}
+     */
     public void rollback(){
         ensureDbHelperIsReady();
-        // absolutely don't do anything
+        Savepoint savepoint = savepoints.get().peek();
+        if(savepoint != null) savepoint.successful = false;
+    }
+
+    @Override
+    public boolean yieldIfContended() {
+        LinkedList<Savepoint> frames = savepoints.get();
+        // no transaction, or one that was not started by begin()
+        if(frames.isEmpty() || frames.getLast().name != null) return false;
+        // the commit would keep a nested transaction from rolling back its rows
+        if(frames.size() > 1) return false;
+
+        Savepoint root = frames.getLast();
+        root.rowsSinceYield = 0;
+        root.lastYieldMillis = System.currentTimeMillis();
+
+        // nothing is committed unless another thread is waiting
+        if(!getSQLiteDatabase().yieldIfContendedSafely()) return false;
+
+        // the rows written so far can be seen by everyone
+        queryCache.onYield();
+        return true;
+    }
+
+    /**
+     * Sets the listener of the current transaction
+     * @param listener the listener
+     */
+    public void setProgressListener(ProgressListener listener){
+        Savepoint savepoint = savepoints.get().peek();
+        if(savepoint != null) savepoint.listener = listener;
+    }
+
+    /**
+     * Called by the bulk writers when rows are written. Reports the progress
+     * and yields the transaction when {@link com.bingzer.android.dbv.IConfig#getTransactionYieldRows()}
+     * rows have been written or {@link com.bingzer.android.dbv.IConfig#getTransactionYieldMillis()}
+     * has elapsed since the last yield.
+     * Nested transactions are never yielded (see {@link #yieldIfContended()})
+     * @param count the number of rows written
+     */
+    void onRowsWritten(long count){
+        LinkedList<Savepoint> frames = savepoints.get();
+        if(frames.isEmpty()) return;
+
+        for(Savepoint savepoint : frames){
+            savepoint.rowCount += count;
+            if(savepoint.listener != null) savepoint.listener.onProgress(savepoint.rowCount);
+        }
+
+        Savepoint root = frames.getLast();
+        root.rowsSinceYield += count;
+        if(frames.size() > 1) return;
+        int rows = config.getTransactionYieldRows();
+        long millis = config.getTransactionYieldMillis();
+        if((rows > 0 && root.rowsSinceYield >= rows)
+                || (millis > 0 && System.currentTimeMillis() - root.lastYieldMillis >= millis)){
+            yieldIfContended();
+        }
     }
 
     public void end(){
         ensureDbHelperIsReady();
-        getSQLiteDatabase().endTransaction();
+        Savepoint savepoint = savepoints.get().poll();
+        if(savepoint == null || savepoint.name == null){
+            if(savepoint != null && savepoint.successful) getSQLiteDatabase().setTransactionSuccessful();
+            getSQLiteDatabase().endTransaction();
+            queryCache.onTransactionEnd();
+            return;
+        }
+
+        try{
+            if(!savepoint.successful){
+                // android takes anything starting with ROLLBACK as the end
+                // of the whole transaction, the comment keeps it from doing so
+                getSQLiteDatabase().execSQL("/**/ROLLBACK TO " + savepoint.name);
+                queryCache.onRollback();
+            }
+        }
+        finally {
+            getSQLiteDatabase().execSQL("RELEASE " + savepoint.name);
+        }
+    }
+
+    IdSets getIdSets(){
+        return idSets;
+    }
+
+    QueryCache getQueryCache(){
+        return queryCache;
+    }
+
+    QueryObservers getQueryObservers(){
+        return queryObservers;
+    }
+
+    EntityCache getEntityCache(){
+        return entityCache;
+    }
+
+    StatementCache getStatementCache(){
+        return statementCache;
+    }
+
+    static void bindArgs(SQLiteProgram program, Object[] bindArgs){
+        if(bindArgs == null) return;
+
+        for(int i = 0; i < bindArgs.length; i++){
+            bindArg(program, i + 1, bindArgs[i]);
+        }
+    }
+
+    static void bindArg(SQLiteProgram program, int index, Object arg){
+        if(arg instanceof IdSets.IdSet)
+            program.bindLong(index, ((IdSets.IdSet) arg).setId);
+        else if(arg instanceof Delegate)
+            DelegateUtils.bindDelegate(program, index, (Delegate) arg);
+        else
+            DatabaseUtils.bindObjectToProgram(program, index, arg);
     }
 
     void setForeignKeySupport(boolean on){
@@ -646,6 +1422,108 @@ public class Database implements IDatabase {
     //////////////////////////////////////////////////////////
     //////////////////////////////////////////////////////////
 
+    /**
+     * Binds values straight to a compiled statement
+     */
+    public static interface Binding {
+
+        /**
+         * Binds the parameters
+         * @param program the compiled statement
+         */
+        void bind(SQLiteProgram program);
+    }
+
+    /**
+     * Cursor of a query that has an IdSet as an argument.
+     * It holds the arguments (and the IdSet) until it is closed
+     * so the set isn't deleted while windows are still being filled
+     */
+    static class IdSetCursor extends CursorWrapper {
+        @SuppressWarnings("unused")
+        private Object[] bindArgs;
+
+        IdSetCursor(Cursor cursor, Object[] bindArgs){
+            super(cursor);
+            this.bindArgs = bindArgs;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            bindArgs = null;
+        }
+    }
+
+    static class Savepoint {
+        // null for the outermost transaction
+        final String name;
+        boolean successful;
+        ProgressListener listener;
+        long rowCount;
+        // outermost transaction only
+        long rowsSinceYield;
+        long lastYieldMillis;
+
+        Savepoint(String name){
+            this.name = name;
+            this.lastYieldMillis = System.currentTimeMillis();
+        }
+    }
+
+    static class WorkerThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+        private final ThreadLocal<Boolean> worker = new ThreadLocal<Boolean>();
+
+        WorkerThreadFactory(String name){
+            this.name = name;
+        }
+
+        /**
+         * True if the current thread has been created by this factory
+         */
+        boolean isWorkerThread(){
+            return worker.get() != null;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    worker.set(Boolean.TRUE);
+                    runnable.run();
+                }
+            }, name + "-" + count.incrementAndGet());
+            // never keeps the process alive
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    static class BindArgsCursorFactory implements SQLiteDatabase.CursorFactory {
+        private final Object[] bindArgs;
+
+        BindArgsCursorFactory(Object[] bindArgs){
+            this.bindArgs = bindArgs;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+        public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+            bindArgs(query, bindArgs);
+
+            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+                return new SQLiteCursor(driver, editTable, query);
+            return new SQLiteCursor(db, driver, editTable, query);
+        }
+    }
+
+    //////////////////////////////////////////////////////////
+    //////////////////////////////////////////////////////////
+
     static class DbOpenHelper extends SQLiteOpenHelper {
         SQLiteBuilder builder;
         Database database;
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.IEntity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-table cache of entity values, keyed by id.
+ * Filled when an entity is loaded by id or saved (outside of a transaction) and used by
+ * {@code select(id).query(entity)} to copy the values without running any sql.
+ * <p>
+ * A table's entries are dropped as soon as anything else writes to the table
+ * (the table versions kept by {@link QueryCache} are used to tell).
+ * Writes made by the entity itself keep the other entries.
+ * The size (per table) and the time to live are taken from
+ * {@link com.bingzer.android.dbv.IConfig#getEntityCacheSize()} and
+ * {@link com.bingzer.android.dbv.IConfig#getEntityCacheTtl()}
+ * </p>
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class EntityCache {
+
+    private final Database database;
+    private final Map<String, Region> regions;
+    private long hitCount;
+    private long missCount;
+
+    public EntityCache(Database database){
+        this.database = database;
+        this.regions = new HashMap<String, Region>();
+    }
+
+    /**
+     * Returns true if the cache is on
+     * @return true if the cache is on
+     */
+    boolean isEnabled(){
+        return database.getConfig().getEntityCacheSize() > 0;
+    }
+
+    /**
+     * Returns the current version of the table. Must be taken before the
+     * entity is read or written and given back to {@link #put(Table, IEntity, long, int)}
+     * @param table the table
+     * @return the version
+     */
+    long getVersion(Table table){
+        return database.getQueryCache().getVersion(table.getName());
+    }
+
+    /**
+     * Copies the cached values of the entity with the id into the entity
+     * @param table the table
+     * @param id the id
+     * @param entity the entity to copy to
+     * @return true if the entity was found (and copied to), false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    synchronized boolean get(Table table, long id, IEntity entity){
+        Region region = getRegion(table);
+        long current = getVersion(table);
+        if(region.version != current){
+            // the table has changed
+            region.entries.clear();
+            region.version = current;
+        }
+
+        Entry entry = region.entries.get(id);
+        long ttl = database.getConfig().getEntityCacheTtl();
+        if(entry != null && ttl > 0 && System.currentTimeMillis() - entry.time > ttl){
+            region.entries.remove(id);
+            entry = null;
+        }
+
+        if(entry == null || entry.entityClass != entity.getClass()){
+            missCount++;
+            return false;
+        }
+
+        Delegate.Mapper mapper = new Delegate.Mapper(table);
+        entity.map(mapper);
+        // the entity must not map anything that is not in the cache
+        for(Map.Entry<String, Delegate> mapped : mapper.entrySet()){
+            if(mapped.getValue() != null && !mapped.getKey().equals(table.getPrimaryKeyColumn())
+                    && !entry.values.containsKey(mapped.getKey())){
+                missCount++;
+                return false;
+            }
+        }
+
+        copy(entry.values, mapper);
+        Delegate<Long> idDelegate = mapper.get(table.getPrimaryKeyColumn());
+        if(idDelegate != null) idDelegate.set(id);
+        hitCount++;
+        return true;
+    }
+
+    /**
+     * Caches the values of the entity.
+     * Nothing is cached if someone else has written to the table
+     * since the version was taken, or inside a transaction
+     * (the values may still be rolled back).
+     * @param table the table
+     * @param entity the entity (with an id)
+     * @param version the version taken before the entity was read/written
+     * @param writes the number of statements executed to save the entity (0 for reads, -1 if unknown)
+     */
+    synchronized void put(Table table, IEntity entity, long version, int writes){
+        if(entity.getId() <= 0) return;
+
+        Region region = advance(table, version, writes);
+        if(region == null) return;
+
+        Delegate.Mapper mapper = new Delegate.Mapper(table);
+        entity.map(mapper);
+        Map<String, Object> values = new HashMap<String, Object>(mapper.size());
+        for(Map.Entry<String, Delegate> mapped : mapper.entrySet()){
+            if(mapped.getValue() == null || mapped.getKey().equals(table.getPrimaryKeyColumn())) continue;
+
+            Object value = mapped.getValue().get();
+            // copy arrays, they can be modified in place
+            if(value instanceof byte[]) value = ((byte[]) value).clone();
+            values.put(mapped.getKey(), value);
+        }
+
+        region.entries.put(entity.getId(), new Entry(entity.getClass(), values));
+        trim(region);
+    }
+
+    /**
+     * Drops the entity with the id after it has been written
+     * (i.e: only some of its columns), the other entries are kept
+     * if nobody else has written to the table since the version was taken.
+     * @param table the table
+     * @param id the id
+     * @param version the version taken before the entity was written
+     * @param writes the number of statements executed to save the entity
+     */
+    synchronized void remove(Table table, long id, long version, int writes){
+        Region region = advance(table, version, writes);
+        if(region != null) region.entries.remove(id);
+    }
+
+    public synchronized void clear(){
+        regions.clear();
+    }
+
+    public synchronized int size(){
+        int size = 0;
+        for(Region region : regions.values()){
+            size += region.entries.size();
+        }
+        return size;
+    }
+
+    public synchronized long getHitCount(){
+        return hitCount;
+    }
+
+    public synchronized long getMissCount(){
+        return missCount;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Region getRegion(Table table){
+        String tableName = table.getName().toLowerCase(Locale.US);
+        Region region = regions.get(tableName);
+        if(region == null){
+            region = new Region();
+            region.version = getVersion(table);
+            regions.put(tableName, region);
+        }
+        return region;
+    }
+
+    /**
+     * Moves the region to the current version, keeping its entries
+     * if only the entity has written to the table since the version was taken
+     * @return the region, null if nothing must be cached
+     */
+    private Region advance(Table table, long version, int writes){
+        Region region = getRegion(table);
+        // the values of a transaction may still be rolled back, yet the versions
+        // (already bumped by its writes) would make them valid for every thread
+        if(database.getSQLiteDatabase().inTransaction()){
+            if(writes != 0) region.entries.clear();
+            return null;
+        }
+
+        long current = getVersion(table);
+        if(writes == 0 && current != version) return null;
+        if(region.version != version || current != version + writes){
+            // someone else has written to the table
+            region.entries.clear();
+        }
+        region.version = current;
+        return region;
+    }
+
+    private void trim(Region region){
+        int maxSize = database.getConfig().getEntityCacheSize();
+        Iterator<Entry> iterator = region.entries.values().iterator();
+        while(region.entries.size() > maxSize && iterator.hasNext()){
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void copy(Map<String, Object> values, Delegate.Mapper mapper){
+        for(Map.Entry<String, Delegate> mapped : mapper.entrySet()){
+            if(mapped.getValue() == null || !values.containsKey(mapped.getKey())) continue;
+
+            Object value = values.get(mapped.getKey());
+            if(value instanceof byte[]) value = ((byte[]) value).clone();
+            mapped.getValue().set(value);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Region {
+        final Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+        long version;
+    }
+
+    static class Entry {
+        final Class<?> entityClass;
+        final Map<String, Object> values;
+        final long time;
+
+        Entry(Class<?> entityClass, Map<String, Object> values){
+            this.entityClass = entityClass;
+            this.values = values;
+            this.time = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.sqlite.SQLiteStatement;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stores large sets of ids in a temp table so a query can use
+ * <code>Id IN (SELECT Id FROM temp.DbQuery_IdSet WHERE SetId = ?)</code>
+ * instead of a huge IN (...) literal. The sql never changes, so the
+ * statement is compiled once, and the ids are bound as longs.
+ * <p>
+ * A set is deleted when {@link IdSet#release()} is called, or
+ * after the {@link IdSet} is no longer referenced (a query that uses it as an argument
+ * keeps it alive). Temp tables live with the connection, so everything is
+ * gone when the database is closed.
+ * </p>
+ *
+ * Created by Ricky Tobing on 8/10/14.
+ */
+class IdSets {
+
+    static final String TABLE = "temp.DbQuery_IdSet";
+    /**
+     * Where clause to use with an IdSet as the argument
+     */
+    static final String IN_CLAUSE = " IN (SELECT Id FROM " + TABLE + " WHERE SetId = ?)";
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO " + TABLE + " (SetId, Id) VALUES (?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE SetId = ?";
+
+    private final Database database;
+    private final ReferenceQueue<IdSet> queue = new ReferenceQueue<IdSet>();
+    private final Set<SetReference> references = new HashSet<SetReference>();
+    private long nextSetId;
+    private boolean tableCreated;
+
+    IdSets(Database database){
+        this.database = database;
+    }
+
+    /**
+     * Stores the ids in a new set
+     * @param ids the ids
+     * @param from index of the first id
+     * @param to index after the last id
+     * @return the set
+     */
+    IdSet create(long[] ids, int from, int to){
+        purge();
+
+        final IdSet idSet;
+        synchronized (this){
+            if(!tableCreated){
+                database.getSQLiteDatabase().execSQL("CREATE TEMP TABLE IF NOT EXISTS DbQuery_IdSet " +
+                        "(SetId INTEGER NOT NULL, Id INTEGER NOT NULL, PRIMARY KEY (SetId, Id))");
+                tableCreated = true;
+            }
+            idSet = new IdSet(++nextSetId);
+            idSet.reference = new SetReference(idSet, queue);
+            references.add(idSet.reference);
+        }
+
+        database.begin();
+        SQLiteStatement statement = database.getStatementCache().acquire(INSERT_SQL);
+        try{
+            statement.bindLong(1, idSet.setId);
+            for(int i = from; i < to; i++){
+                statement.bindLong(2, ids[i]);
+                statement.executeInsert();
+            }
+            database.commit();
+        }
+        finally {
+            database.getStatementCache().release(INSERT_SQL, statement);
+            database.end();
+        }
+
+        return idSet;
+    }
+
+    /**
+     * Forgets every set. Called when the database is closed
+     * (the temp table is dropped with the connection)
+     */
+    synchronized void clear(){
+        references.clear();
+        tableCreated = false;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void purge(){
+        SetReference reference;
+        while((reference = (SetReference) queue.poll()) != null){
+            delete(reference);
+        }
+    }
+
+    private void delete(SetReference reference){
+        synchronized (this){
+            // already released (or the database has been closed)
+            if(!references.remove(reference)) return;
+        }
+        database.executeUpdateDelete(DELETE_SQL, reference.setId);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * A set of ids. Bind it as the argument of {@link #IN_CLAUSE}
+     */
+    class IdSet {
+        final long setId;
+        SetReference reference;
+
+        IdSet(long setId){
+            this.setId = setId;
+        }
+
+        /**
+         * Deletes the ids now
+         */
+        void release(){
+            delete(reference);
+        }
+    }
+
+    static class SetReference extends WeakReference<IdSet> {
+        final long setId;
+
+        SetReference(IdSet idSet, ReferenceQueue<IdSet> queue){
+            super(idSet, queue);
+            this.setId = idSet.setId;
+        }
+    }
+}
@@ -0,0 +1,598 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.utils.CursorUtils;
+import com.bingzer.android.dbv.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LRU cache of query results, keyed by their sql and arguments.
+ * Every table has a version which is bumped whenever a statement writes
+ * to it. An entry remembers the versions of the tables it reads and
+ * is dropped as soon as one of them changes. Queries on views (or on
+ * anything that is not a known table) depend on every write.
+ * A write also bumps the tables it changes indirectly: the children
+ * of foreign keys with an ON DELETE/UPDATE action and the tables
+ * written by triggers.
+ * Nothing is cached while a transaction is open, and writes made
+ * inside a transaction invalidate again once it has ended.
+ * The sizes are taken from {@link com.bingzer.android.dbv.IConfig#getQueryCacheSize()}
+ * and {@link com.bingzer.android.dbv.IConfig#getQueryCacheMaxBytes()}
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class QueryCache {
+
+    static final int ROWS = 0;
+    static final int LONG = 1;
+    static final int STRING = 2;
+
+    /** Marks a scalar query that returned no row */
+    static final Object NO_ROW = new Object();
+    /** Marks a scalar query that returned null */
+    static final Object NULL = new Object();
+
+    private static final Pattern READ_TABLES = Pattern.compile("\\b(?:FROM|JOIN)\\s+([\\w.$\"`\\[\\]]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_TABLE = Pattern.compile("^\\s*(?:INSERT(?:\\s+OR\\s+\\w+)?\\s+INTO|REPLACE\\s+INTO|UPDATE(?:\\s+OR\\s+\\w+)?|DELETE\\s+FROM)\\s+([\\w.$\"`\\[\\]]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRIGGER_WRITE_TABLE = Pattern.compile("\\b(?:INSERT(?:\\s+OR\\s+\\w+)?\\s+INTO|REPLACE\\s+INTO|UPDATE(?:\\s+OR\\s+\\w+)?|DELETE\\s+FROM)\\s+([\\w.$\"`\\[\\]]+)", Pattern.CASE_INSENSITIVE);
+    private static final String ID_SET_TABLE = IdSets.TABLE.toLowerCase(Locale.US);
+    private static final Pattern TRIGGER_BODY = Pattern.compile("\\bBEGIN\\b", Pattern.CASE_INSENSITIVE);
+
+    private final Database database;
+    private final Map<Key, Entry> entries;
+    private final Map<String, Long> versions;
+    private final Set<String> touched;
+    // table -> the tables a write to it changes (itself included), null until loaded
+    private volatile Map<String, Set<String>> dependents;
+    private boolean touchedAll;
+    private long version;
+    private long epoch;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+
+    public QueryCache(Database database){
+        this.database = database;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+        this.versions = new HashMap<String, Long>();
+        this.touched = new HashSet<String>();
+    }
+
+    /**
+     * Returns the key for the query or null if it should not be cached.
+     * The key remembers the current versions of the tables read by the sql,
+     * so that a result computed while a table is being written is never stored.
+     * @param kind {@link #ROWS}, {@link #LONG} or {@link #STRING}
+     * @param sql the sql
+     * @param args the arguments (may be null)
+     * @return the key or null
+     */
+    Key newKey(int kind, String sql, Object[] args){
+        if(database.getConfig().getQueryCacheSize() <= 0) return null;
+        if(!isSelect(sql) || !isCacheable(args)) return null;
+        if(database.getSQLiteDatabase().inTransaction()) return null;
+
+        List<String> tableNames = getReadTables(sql);
+        boolean readsView = tableNames == null;
+        if(readsView) tableNames = new ArrayList<String>();
+
+        synchronized (this){
+            long[] tableVersions = new long[tableNames.size()];
+            for(int i = 0; i < tableVersions.length; i++){
+                tableVersions[i] = versionOf(tableNames.get(i));
+            }
+            return new Key(kind, sql, args, tableNames.toArray(new String[tableNames.size()]),
+                    tableVersions, readsView ? version : -1, epoch);
+        }
+    }
+
+    /**
+     * Returns the (lower-cased) names of the tables read by the sql
+     * @param sql the sql
+     * @return the names, or null if the sql also reads a view
+     * (or anything that is not a known table)
+     */
+    List<String> getReadTables(String sql){
+        List<String> tableNames = new ArrayList<String>();
+        Matcher matcher = READ_TABLES.matcher(sql);
+        while(matcher.find()){
+            String tableName = normalize(matcher.group(1));
+            // "FROM a, b" -- only the first table is matched
+            if(isFollowedByComma(sql, matcher.end()) || !isTable(tableName)) return null;
+            if(!tableNames.contains(tableName)) tableNames.add(tableName);
+        }
+        return tableNames;
+    }
+
+    /**
+     * Returns the cached value or null
+     * @param key the key returned by {@link #newKey(int, String, Object[])}
+     * @return the value or null
+     */
+    synchronized Object get(Key key){
+        Entry entry = entries.get(key);
+        if(entry != null && isValid(entry.key)){
+            hitCount++;
+            return entry.value;
+        }
+
+        if(entry != null) remove(key);
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Caches the value, unless a table it reads has changed
+     * since the key was created
+     * @param key the key returned by {@link #newKey(int, String, Object[])}
+     * @param value the value
+     * @param size the estimated size of the value in bytes
+     */
+    synchronized void put(Key key, Object value, long size){
+        long maxBytes = database.getConfig().getQueryCacheMaxBytes();
+        if(!isValid(key) || size > maxBytes) return;
+
+        remove(key);
+        entries.put(key, new Entry(key, value, size));
+        bytes += size;
+        trim(database.getConfig().getQueryCacheSize(), maxBytes);
+    }
+
+    /**
+     * Called for every statement that has been executed.
+     * Bumps the version of the table written by the sql (if any)
+     * @param sql the sql
+     */
+    void onExecute(String sql){
+        if(!isWrite(sql)) return;
+        Matcher matcher = WRITE_TABLE.matcher(sql);
+        if(!matcher.find()) return;
+
+        String writtenTable = normalize(matcher.group(1));
+        // id sets are internal, no query depends on their rows
+        if(writtenTable.equals(ID_SET_TABLE)) return;
+
+        Set<String> tableNames = getWrittenTables(writtenTable);
+        boolean inTransaction = database.getSQLiteDatabase().inTransaction();
+        synchronized (this){
+            for(String tableName : tableNames){
+                bump(tableName);
+            }
+            if(inTransaction) touched.addAll(tableNames);
+        }
+        // observers are told once the transaction has ended
+        if(!inTransaction) database.getQueryObservers().onChanged(tableNames);
+    }
+
+    /**
+     * Returns the tables changed by a write to the table: the table itself,
+     * the children of its foreign keys with an action (cascade, set null/default)
+     * and the tables written by its triggers, recursively
+     * @param tableName the (normalized) table name
+     * @return the table names
+     */
+    Set<String> getWrittenTables(String tableName){
+        Map<String, Set<String>> map = dependents;
+        if(map == null){
+            // loaded outside the lock, it queries the database
+            map = loadDependents(database.getSQLiteDatabase());
+            dependents = map;
+        }
+
+        Set<String> tableNames = map.get(tableName);
+        return tableNames == null ? Collections.singleton(tableName) : tableNames;
+    }
+
+    /**
+     * Called when a transaction has ended. If it was the outermost one
+     * the tables written inside it are bumped again, in case something was
+     * cached (by another thread) before the transaction committed,
+     * and the observers are told (once for the whole transaction)
+     */
+    void onTransactionEnd(){
+        if(database.getSQLiteDatabase().inTransaction()) return;
+        onCommit();
+    }
+
+    /**
+     * Called when the transaction has been yielded: the rows written so far are committed,
+     * the tables written are bumped again and the observers are told as in {@link #onTransactionEnd()}
+     */
+    void onYield(){
+        onCommit();
+    }
+
+    /**
+     * Called when a nested transaction (savepoint) has been rolled back.
+     * The tables written so far in the transaction are bumped again,
+     * anything cached (i.e: entities) after the writes is no longer there
+     */
+    void onRollback(){
+        synchronized (this){
+            for(String tableName : touched){
+                bump(tableName);
+            }
+        }
+    }
+
+    /**
+     * Drops every entry. Used when the schema (or anything else
+     * we can't keep track of) has changed
+     */
+    void invalidateAll(){
+        boolean inTransaction = database.getSQLiteDatabase().inTransaction();
+        // foreign keys or triggers may have changed
+        dependents = null;
+        synchronized (this){
+            invalidate();
+            if(inTransaction) touchedAll = true;
+        }
+        if(!inTransaction) database.getQueryObservers().onChanged(null);
+    }
+
+    public synchronized void clear(){
+        // versions are kept, they must never go back
+        invalidate();
+        dependents = null;
+        touched.clear();
+        touchedAll = false;
+    }
+
+    /**
+     * Returns the version of the table. The version changes every
+     * time the table is written (or everything is invalidated)
+     * @param tableName the table name
+     * @return the version
+     */
+    synchronized long getVersion(String tableName){
+        return epoch + versionOf(normalize(tableName));
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getBytes(){
+        return bytes;
+    }
+
+    public synchronized long getHitCount(){
+        return hitCount;
+    }
+
+    public synchronized long getMissCount(){
+        return missCount;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    // bumps the tables written in the transaction and tells the observers
+    private void onCommit(){
+        Set<String> tableNames;
+        synchronized (this){
+            if(touched.isEmpty() && !touchedAll) return;
+            for(String tableName : touched){
+                bump(tableName);
+            }
+            // null for every table
+            tableNames = touchedAll ? null : new HashSet<String>(touched);
+            touched.clear();
+            touchedAll = false;
+        }
+        database.getQueryObservers().onChanged(tableNames);
+    }
+
+    private boolean isValid(Key key){
+        if(key.epoch != epoch) return false;
+        if(key.version >= 0 && key.version != version) return false;
+        for(int i = 0; i < key.tableNames.length; i++){
+            if(key.tableVersions[i] != versionOf(key.tableNames[i])) return false;
+        }
+        return true;
+    }
+
+    private void invalidate(){
+        epoch++;
+        version++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    private long versionOf(String tableName){
+        Long tableVersion = versions.get(tableName);
+        return tableVersion == null ? 0 : tableVersion;
+    }
+
+    private void bump(String tableName){
+        versions.put(tableName, versionOf(tableName) + 1);
+        version++;
+    }
+
+    private void remove(Key key){
+        Entry entry = entries.remove(key);
+        if(entry != null) bytes -= entry.size;
+    }
+
+    private void trim(int maxSize, long maxBytes){
+        Iterator<Entry> iterator = entries.values().iterator();
+        while((entries.size() > maxSize || bytes > maxBytes) && iterator.hasNext()){
+            Entry eldest = iterator.next();
+            iterator.remove();
+            bytes -= eldest.size;
+        }
+    }
+
+    private boolean isTable(String tableName){
+        return database.isTable(tableName);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Reads the foreign keys and triggers of the schema
+     * @return table -> the tables a write to it changes (only for tables that change others)
+     */
+    static Map<String, Set<String>> loadDependents(SQLiteDatabase db){
+        // table -> the tables it changes directly
+        Map<String, Set<String>> direct = new HashMap<String, Set<String>>();
+
+        List<String> tableNames = new ArrayList<String>();
+        Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table'", null);
+        try{
+            while(cursor.moveToNext()) tableNames.add(cursor.getString(0));
+        }
+        finally {
+            cursor.close();
+        }
+
+        for(String tableName : tableNames){
+            cursor = db.rawQuery(Utils.bindArgs("PRAGMA foreign_key_list(?)", tableName), null);
+            try{
+                int parentIndex = cursor.getColumnIndex("table");
+                int onUpdateIndex = cursor.getColumnIndex("on_update");
+                int onDeleteIndex = cursor.getColumnIndex("on_delete");
+                while(cursor.moveToNext()){
+                    // RESTRICT and NO ACTION never change the child
+                    if(isAction(cursor.getString(onUpdateIndex)) || isAction(cursor.getString(onDeleteIndex)))
+                        addDependent(direct, normalize(cursor.getString(parentIndex)), normalize(tableName));
+                }
+            }
+            finally {
+                cursor.close();
+            }
+        }
+
+        cursor = db.rawQuery("SELECT tbl_name, sql FROM sqlite_master WHERE type = 'trigger' " +
+                "UNION ALL SELECT tbl_name, sql FROM sqlite_temp_master WHERE type = 'trigger'", null);
+        try{
+            while(cursor.moveToNext()){
+                String sql = cursor.getString(1);
+                Matcher body = sql == null ? null : TRIGGER_BODY.matcher(sql);
+                if(body == null || !body.find()) continue;
+
+                Matcher matcher = TRIGGER_WRITE_TABLE.matcher(sql);
+                matcher.region(body.end(), sql.length());
+                while(matcher.find()){
+                    addDependent(direct, normalize(cursor.getString(0)), normalize(matcher.group(1)));
+                }
+            }
+        }
+        finally {
+            cursor.close();
+        }
+
+        // follow the chains (cascades of cascades, triggers writing to parents..)
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        for(String tableName : direct.keySet()){
+            Set<String> closure = new HashSet<String>();
+            List<String> pending = new ArrayList<String>();
+            pending.add(tableName);
+            while(!pending.isEmpty()){
+                String name = pending.remove(pending.size() - 1);
+                if(!closure.add(name)) continue;
+                Set<String> next = direct.get(name);
+                if(next != null) pending.addAll(next);
+            }
+            dependents.put(tableName, Collections.unmodifiableSet(closure));
+        }
+        return dependents;
+    }
+
+    private static void addDependent(Map<String, Set<String>> map, String tableName, String dependent){
+        Set<String> set = map.get(tableName);
+        if(set == null){
+            set = new HashSet<String>();
+            map.put(tableName, set);
+        }
+        set.add(dependent);
+    }
+
+    private static boolean isAction(String action){
+        return action != null && (action.equalsIgnoreCase("CASCADE")
+                || action.equalsIgnoreCase("SET NULL") || action.equalsIgnoreCase("SET DEFAULT"));
+    }
+
+    static boolean isSelect(String sql){
+        int i = firstChar(sql);
+        return i >= 0 && sql.regionMatches(true, i, "SELECT", 0, 6);
+    }
+
+    static boolean isWrite(String sql){
+        int i = firstChar(sql);
+        if(i < 0) return false;
+        switch (Character.toUpperCase(sql.charAt(i))){
+            case 'I': case 'U': case 'D': case 'R':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static int firstChar(String sql){
+        for(int i = 0; i < sql.length(); i++){
+            if(!Character.isWhitespace(sql.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    static boolean isFollowedByComma(String sql, int index){
+        // skip the alias (if any)
+        for(int words = 0; words < 2; words++){
+            while(index < sql.length() && Character.isWhitespace(sql.charAt(index))) index++;
+            if(index < sql.length() && sql.charAt(index) == ',') return true;
+            while(index < sql.length() && Character.isJavaIdentifierPart(sql.charAt(index))) index++;
+        }
+        while(index < sql.length() && Character.isWhitespace(sql.charAt(index))) index++;
+        return index < sql.length() && sql.charAt(index) == ',';
+    }
+
+    static String normalize(String tableName){
+        tableName = tableName.replace("\"", "").replace("`", "").replace("[", "").replace("]", "");
+        if(tableName.toLowerCase(Locale.US).startsWith("main.")) tableName = tableName.substring(5);
+        return tableName.toLowerCase(Locale.US);
+    }
+
+    static boolean isCacheable(Object[] args){
+        if(args == null) return true;
+        for(Object arg : args){
+            // id sets are only valid for one query, delegates can't be compared
+            if(arg instanceof IdSets.IdSet || arg instanceof Delegate) return false;
+        }
+        return true;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Key {
+        final int kind;
+        final String sql;
+        final Object[] args;
+        final String[] tableNames;
+        final long[] tableVersions;
+        final long version;
+        final long epoch;
+        final int hashCode;
+
+        Key(int kind, String sql, Object[] args, String[] tableNames, long[] tableVersions, long version, long epoch){
+            this.kind = kind;
+            this.sql = sql;
+            this.args = args == null ? new Object[0] : args.clone();
+            this.tableNames = tableNames;
+            this.tableVersions = tableVersions;
+            this.version = version;
+            this.epoch = epoch;
+            this.hashCode = 31 * (31 * kind + sql.hashCode()) + Arrays.deepHashCode(this.args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return kind == other.kind && sql.equals(other.sql) && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    static class Entry {
+        final Key key;
+        final Object value;
+        final long size;
+
+        Entry(Key key, Object value, long size){
+            this.key = key;
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Rows copied out of a cursor
+     */
+    static class Rows {
+        final String[] columnNames;
+        final Object[][] values;
+        final long size;
+
+        Rows(String[] columnNames, Object[][] values, long size){
+            this.columnNames = columnNames;
+            this.values = values;
+            this.size = size;
+        }
+
+        /**
+         * Copies every row of the cursor. Stops as soon as the copy
+         * is bigger than <code>maxBytes</code>, it could never be cached
+         * @param cursor the cursor
+         * @param maxBytes the maximum size
+         * @return rows or null if they're bigger than <code>maxBytes</code>
+         */
+        static Rows read(Cursor cursor, long maxBytes){
+            String[] columnNames = cursor.getColumnNames();
+            long size = 64;
+            for(String columnName : columnNames){
+                size += 2 * columnName.length() + 40;
+            }
+
+            int count = cursor.getCount();
+            // the rows alone (without their values) are too big
+            if(size + (long) count * (16 + 4 * columnNames.length) > maxBytes) return null;
+
+            Object[][] values = new Object[count][];
+            int row = 0;
+            while(cursor.moveToNext()){
+                Object[] rowValues = new Object[columnNames.length];
+                for(int i = 0; i < rowValues.length; i++){
+                    rowValues[i] = CursorUtils.getValueFromCursor(cursor, i);
+                    size += sizeOf(rowValues[i]);
+                }
+                values[row++] = rowValues;
+                size += 16 + 4 * rowValues.length;
+                if(size > maxBytes) return null;
+            }
+
+            return new Rows(columnNames, values, size);
+        }
+
+        static long sizeOf(Object value){
+            if(value instanceof String) return 40 + 2 * ((String) value).length();
+            if(value instanceof byte[]) return 16 + ((byte[]) value).length;
+            return 16;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.queries.IQuery;
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.queries.Subscription;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observed queries of a database. Told by {@link QueryCache} which tables
+ * have been written (once per transaction, or when it's yielded) and runs the queries reading
+ * them again, at most once per {@link com.bingzer.android.dbv.IConfig#getObserveDebounce()}.
+ * Changes made while a query is running make it run once more when it's done.
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class QueryObservers {
+
+    private final Database database;
+    private final List<Observation<?>> observations;
+    private ScheduledExecutorService scheduler;
+
+    public QueryObservers(Database database){
+        this.database = database;
+        this.observations = new CopyOnWriteArrayList<Observation<?>>();
+    }
+
+    /**
+     * Runs the query now and every time a table it reads is written
+     * @param query the query (its toString() is the sql)
+     * @param callback the callback
+     * @param executor the executor, or null to use the reader executor
+     * @param <T> the result type
+     * @return the subscription
+     */
+    <T> Subscription observe(IQuery<T> query, QueryFuture.Callback<T> callback, Executor executor){
+        Observation<T> observation = new Observation<T>(query, database.getQueryCache().getReadTables(query.toString()),
+                callback, executor);
+        observations.add(observation);
+        observation.start();
+        return observation;
+    }
+
+    /**
+     * Called when tables have been written
+     * @param tableNames the (lower-cased) names, null if anything may have changed
+     */
+    void onChanged(Collection<String> tableNames){
+        for(Observation<?> observation : observations){
+            if(tableNames == null || observation.reads(tableNames)) observation.onChanged();
+        }
+    }
+
+    /**
+     * Unsubscribes every observed query and shuts down the scheduler
+     */
+    public void clear(){
+        for(Observation<?> observation : observations){
+            observation.unsubscribe();
+        }
+
+        ScheduledExecutorService scheduler;
+        synchronized (this){
+            scheduler = this.scheduler;
+            this.scheduler = null;
+        }
+        if(scheduler != null) scheduler.shutdownNow();
+    }
+
+    public int size(){
+        return observations.size();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private synchronized ScheduledExecutorService getScheduler(){
+        if(scheduler == null){
+            scheduler = Executors.newSingleThreadScheduledExecutor(new Database.WorkerThreadFactory("DbQuery-Observer"));
+        }
+        return scheduler;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    class Observation<T> implements Subscription, Runnable, QueryFuture.Callback<T> {
+        final IQuery<T> query;
+        // null if the query reads a view (or an unknown table)
+        final List<String> tableNames;
+        final QueryFuture.Callback<T> callback;
+        final Executor executor;
+        private boolean scheduled;
+        private boolean running;
+        private boolean changed;
+        private int runs;
+        private volatile boolean unsubscribed;
+        private QueryFuture<T> future;
+
+        Observation(IQuery<T> query, List<String> tableNames, QueryFuture.Callback<T> callback, Executor executor){
+            this.query = query;
+            this.tableNames = tableNames;
+            this.callback = callback;
+            this.executor = executor;
+        }
+
+        boolean reads(Collection<String> changedTableNames){
+            if(tableNames == null) return true;
+            for(String tableName : changedTableNames){
+                if(tableNames.contains(tableName)) return true;
+            }
+            return false;
+        }
+
+        void start(){
+            synchronized (this){
+                scheduled = true;
+            }
+            run();
+        }
+
+        void onChanged(){
+            synchronized (this){
+                if(unsubscribed || scheduled) return;
+                if(running){
+                    changed = true;
+                    return;
+                }
+                scheduled = true;
+            }
+            getScheduler().schedule(this, database.getConfig().getObserveDebounce(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            int run;
+            synchronized (this){
+                scheduled = false;
+                if(unsubscribed) return;
+                running = true;
+                run = ++runs;
+            }
+
+            QueryFuture<T> future = database.queryAsync(executor, query);
+            synchronized (this){
+                // unless it's already done
+                if(running && runs == run) this.future = future;
+            }
+            future.setCallback(this);
+        }
+
+        @Override
+        public void onResult(T result) {
+            if(unsubscribed){
+                if(result instanceof Cursor) ((Cursor) result).close();
+            }
+            else{
+                callback.onResult(result);
+            }
+            done();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if(!unsubscribed) callback.onError(error);
+            done();
+        }
+
+        @Override
+        public void unsubscribe() {
+            QueryFuture<T> future;
+            synchronized (this){
+                unsubscribed = true;
+                future = this.future;
+                this.future = null;
+            }
+            observations.remove(this);
+            if(future != null) future.cancel(true);
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return unsubscribed;
+        }
+
+        private void done(){
+            boolean again;
+            synchronized (this){
+                running = false;
+                future = null;
+                again = changed && !unsubscribed;
+                changed = false;
+                if(again) scheduled = true;
+            }
+            if(again) getScheduler().schedule(this, database.getConfig().getObserveDebounce(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded pool of read connections to a database in WAL mode.
+ * Readers see the last committed data and never wait for the writer
+ * (the primary connection) or its transactions.
+ * A connection is opened when it's first needed, up to the size of the pool.
+ * Callers wait when every connection is in use.
+ * The size is taken from {@link com.bingzer.android.dbv.IConfig#getReadConnectionPoolSize()}
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class ReaderPool {
+
+    private final Database database;
+    private final String path;
+    private final int size;
+    private final List<Reader> idle;
+    private final List<Reader> all;
+    private boolean closed;
+
+    public ReaderPool(Database database, String path, int size){
+        this.database = database;
+        this.path = path;
+        this.size = size;
+        this.idle = new LinkedList<Reader>();
+        this.all = new LinkedList<Reader>();
+    }
+
+    /**
+     * Runs the query on a read connection. The first window
+     * is filled before the connection goes back to the pool
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @param signal the CancellationSignal or null
+     * @return the cursor
+     */
+    Cursor rawQuery(String sql, Object[] bindArgs, Object signal){
+        Reader reader = acquire();
+        try{
+            Cursor cursor = Database.rawQuery(reader.db, sql, bindArgs, signal);
+            cursor.getCount();
+            return cursor;
+        }
+        finally {
+            release(reader);
+        }
+    }
+
+    /**
+     * Runs a single value query on a read connection
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the value
+     * @throws android.database.sqlite.SQLiteDoneException if there's no row
+     */
+    long simpleQueryForLong(String sql, Object[] bindArgs){
+        Reader reader = acquire();
+        try{
+            SQLiteStatement statement = reader.compile(sql);
+            try{
+                Database.bindArgs(statement, bindArgs);
+                return statement.simpleQueryForLong();
+            }
+            finally {
+                statement.clearBindings();
+            }
+        }
+        finally {
+            release(reader);
+        }
+    }
+
+    /**
+     * Runs a single value query on a read connection
+     * @param sql the sql with '?' as parameters
+     * @param bindArgs the arguments, one for each '?' (may be null)
+     * @return the value
+     * @throws android.database.sqlite.SQLiteDoneException if there's no row
+     */
+    String simpleQueryForString(String sql, Object[] bindArgs){
+        Reader reader = acquire();
+        try{
+            SQLiteStatement statement = reader.compile(sql);
+            try{
+                Database.bindArgs(statement, bindArgs);
+                return statement.simpleQueryForString();
+            }
+            finally {
+                statement.clearBindings();
+            }
+        }
+        finally {
+            release(reader);
+        }
+    }
+
+    /**
+     * Closes every connection. Connections in use are closed when released
+     */
+    public synchronized void close(){
+        closed = true;
+        for(Reader reader : idle){
+            reader.close();
+        }
+        idle.clear();
+        all.clear();
+        notifyAll();
+    }
+
+    public synchronized int size(){
+        return all.size();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Reader acquire(){
+        synchronized (this){
+            while(true){
+                if(closed) throw new IllegalStateException("The database has been closed");
+                if(!idle.isEmpty()) return idle.remove(0);
+                if(all.size() < size) break;
+
+                try{
+                    wait();
+                }
+                catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a read connection");
+                }
+            }
+            // reserve a place, the connection is opened outside the lock
+            all.add(null);
+        }
+
+        Reader reader = null;
+        try{
+            reader = new Reader(open(), database.getConfig().getStatementCacheSize());
+            return reader;
+        }
+        finally {
+            synchronized (this){
+                all.remove(null);
+                if(reader != null) all.add(reader);
+                else notifyAll();
+            }
+        }
+    }
+
+    private synchronized void release(Reader reader){
+        if(closed){
+            reader.close();
+            return;
+        }
+        idle.add(0, reader);
+        notifyAll();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private SQLiteDatabase open(){
+        SQLiteDatabase db;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+            // the flag keeps the connection from switching the journal mode back
+            db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READWRITE | SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING);
+        }
+        else{
+            db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READWRITE);
+            db.enableWriteAheadLogging();
+        }
+        return db;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Reader {
+        final SQLiteDatabase db;
+        final Map<String, SQLiteStatement> statements;
+        final int maxStatements;
+
+        Reader(SQLiteDatabase db, int maxStatements){
+            this.db = db;
+            this.maxStatements = maxStatements;
+            this.statements = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true);
+        }
+
+        /**
+         * Returns the compiled statement, a reader is only used by one
+         * thread at a time so the statement can be reused as it is
+         */
+        SQLiteStatement compile(String sql){
+            SQLiteStatement statement = statements.get(sql);
+            if(statement == null){
+                statement = db.compileStatement(sql);
+                statements.put(sql, statement);
+
+                Iterator<SQLiteStatement> iterator = statements.values().iterator();
+                while(statements.size() > Math.max(1, maxStatements) && iterator.hasNext()){
+                    iterator.next().close();
+                    iterator.remove();
+                }
+            }
+            return statement;
+        }
+
+        void close(){
+            for(SQLiteStatement statement : statements.values()){
+                statement.close();
+            }
+            statements.clear();
+            db.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of compiled statements, keyed by their sql.
+ * A statement is handed to one caller at a time. If the cached
+ * statement is already in use, the caller gets a fresh statement
+ * which is closed as soon as it is released.
+ * The size is taken from {@link com.bingzer.android.dbv.IConfig#getStatementCacheSize()}
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class StatementCache {
+
+    private final Database database;
+    private final Map<String, Entry> entries;
+    private long hitCount;
+    private long missCount;
+
+    public StatementCache(Database database){
+        this.database = database;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a compiled statement for the sql.
+     * Every statement acquired must be given back by calling {@link #release(String, SQLiteStatement)}
+     * @param sql the sql
+     * @return compiled statement
+     */
+    public SQLiteStatement acquire(String sql){
+        synchronized (this){
+            Entry entry = entries.get(sql);
+            if(entry != null && !entry.inUse){
+                entry.inUse = true;
+                hitCount++;
+                return entry.statement;
+            }
+            missCount++;
+        }
+
+        // compile outside the lock, this may wait for the database
+        SQLiteStatement statement = database.getSQLiteDatabase().compileStatement(sql);
+
+        synchronized (this){
+            if(!entries.containsKey(sql) && database.getConfig().getStatementCacheSize() > 0){
+                Entry entry = new Entry(statement);
+                entry.inUse = true;
+                entries.put(sql, entry);
+                trim();
+            }
+        }
+
+        return statement;
+    }
+
+    /**
+     * Gives the statement back to the cache.
+     * Statements that are no longer cached are closed.
+     * Cached query results that read the table written by the sql are invalidated.
+     * @param sql the sql
+     * @param statement the statement returned by {@link #acquire(String)}
+     */
+    public void release(String sql, SQLiteStatement statement){
+        // every statement is released once it has been executed
+        try{
+            releaseStatement(sql, statement);
+        }
+        finally {
+            // after the release, the statement is given back even if this throws
+            database.getQueryCache().onExecute(sql);
+        }
+    }
+
+    private synchronized void releaseStatement(String sql, SQLiteStatement statement){
+        Entry entry = entries.get(sql);
+        if(entry != null && entry.statement == statement){
+            statement.clearBindings();
+            entry.inUse = false;
+        }
+        else {
+            statement.close();
+        }
+    }
+
+    /**
+     * Closes and removes all statements
+     */
+    public synchronized void clear(){
+        for(Entry entry : entries.values()){
+            // statements in use are closed when released
+            if(!entry.inUse) entry.statement.close();
+        }
+        entries.clear();
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getHitCount(){
+        return hitCount;
+    }
+
+    public synchronized long getMissCount(){
+        return missCount;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void trim(){
+        int maxSize = database.getConfig().getStatementCacheSize();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while(entries.size() > maxSize && iterator.hasNext()){
+            Entry eldest = iterator.next();
+            iterator.remove();
+            if(!eldest.inUse) eldest.statement.close();
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Entry {
+        final SQLiteStatement statement;
+        boolean inUse;
+
+        Entry(SQLiteStatement statement){
+            this.statement = statement;
+        }
+    }
+}
@@ -17,29 +17,41 @@ package com.bingzer.android.dbv.internal;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteProgram;
+import android.os.Build;
 
 import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.EntityBinder;
 import com.bingzer.android.dbv.IDatabase;
 import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.IEntityList;
 import com.bingzer.android.dbv.ITable;
+import com.bingzer.android.dbv.internal.queries.AggregateImpl;
 import com.bingzer.android.dbv.internal.queries.AverageImpl;
-import com.bingzer.android.dbv.internal.queries.ContentSet;
+import com.bingzer.android.dbv.internal.queries.BatchUpdateImpl;
 import com.bingzer.android.dbv.internal.queries.DeleteImpl;
 import com.bingzer.android.dbv.internal.queries.DropImpl;
+import com.bingzer.android.dbv.internal.queries.FunctionImpl;
 import com.bingzer.android.dbv.internal.queries.InnerJoinImpl;
 import com.bingzer.android.dbv.internal.queries.InsertImpl;
 import com.bingzer.android.dbv.internal.queries.InsertIntoImpl;
 import com.bingzer.android.dbv.internal.queries.MaxImpl;
 import com.bingzer.android.dbv.internal.queries.MinImpl;
 import com.bingzer.android.dbv.internal.queries.OuterJoinImpl;
+import com.bingzer.android.dbv.internal.queries.PagingImpl;
+import com.bingzer.android.dbv.internal.queries.PreparedSelectImpl;
 import com.bingzer.android.dbv.internal.queries.QueryImpl;
 import com.bingzer.android.dbv.internal.queries.SelectImpl;
 import com.bingzer.android.dbv.internal.queries.SumImpl;
 import com.bingzer.android.dbv.internal.queries.TotalImpl;
 import com.bingzer.android.dbv.internal.queries.UnionImpl;
 import com.bingzer.android.dbv.internal.queries.UpdateImpl;
+import com.bingzer.android.dbv.internal.queries.UpsertImpl;
+import com.bingzer.android.dbv.internal.queries.ValueSet;
+import com.bingzer.android.dbv.queries.Aggregate;
 import com.bingzer.android.dbv.queries.Average;
+import com.bingzer.android.dbv.queries.BatchUpdate;
 import com.bingzer.android.dbv.queries.Delete;
 import com.bingzer.android.dbv.queries.IQuery;
 import com.bingzer.android.dbv.queries.InnerJoin;
@@ -48,36 +60,78 @@ import com.bingzer.android.dbv.queries.InsertInto;
 import com.bingzer.android.dbv.queries.Max;
 import com.bingzer.android.dbv.queries.Min;
 import com.bingzer.android.dbv.queries.OuterJoin;
+import com.bingzer.android.dbv.queries.PreparedSelect;
 import com.bingzer.android.dbv.queries.Select;
 import com.bingzer.android.dbv.queries.Sum;
 import com.bingzer.android.dbv.queries.Total;
 import com.bingzer.android.dbv.queries.Union;
 import com.bingzer.android.dbv.queries.Update;
+import com.bingzer.android.dbv.queries.Upsert;
 import com.bingzer.android.dbv.utils.CollectionUtils;
 import com.bingzer.android.dbv.utils.ContentValuesUtils;
+import com.bingzer.android.dbv.utils.EntityUtils;
 import com.bingzer.android.dbv.utils.Utils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by Ricky Tobing on 7/16/13.
  */
 public class Table implements ITable {
+    /**
+     * Up to this many ids are bound as Id IN (?,?,...)
+     */
+    static final int MAX_BOUND_IDS = 500;
+    /**
+     * Up to this many ids are updated/deleted in chunks,
+     * more than that goes through a temp table
+     */
+    static final int MAX_CHUNKED_IDS = 10000;
+
+    private final Table base;
     private String alias;
-    private String name;
-    private final List<String> columns;
+    private volatile String name;
+    private volatile List<String> columns;
 
     protected final Database db;
 
     public Table (Database db, String name){
         this.name = name;
         this.db = db;
-        this.columns = new ArrayList<String>();
+        this.base = this;
         queryColumns();
     }
 
+    /**
+     * Creates a table that is known to exist.
+     * If columns is null, they're loaded when first needed.
+     * @param db the database
+     * @param name the name
+     * @param columns the columns (may be null)
+     */
+    Table (Database db, String name, List<String> columns){
+        this.name = name;
+        this.db = db;
+        this.base = this;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates an aliased table. It shares everything (but the alias)
+     * with the table and can't be changed.
+     * @param table the table
+     * @param alias the alias
+     */
+    protected Table (Table table, String alias){
+        this.name = table.name;
+        this.db = table.db;
+        this.base = table.base;
+        this.alias = alias;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////
 
     @Override
@@ -87,6 +141,7 @@ public class Table implements ITable {
 
     @Override
     public void setAlias(String alias) {
+        if(base != this) throw new UnsupportedOperationException("Aliased tables can't be changed");
         this.alias = alias;
     }
 
@@ -97,12 +152,17 @@ public class Table implements ITable {
 
     @Override
     public List<String> getColumns() {
+        List<String> columns = base.columns;
+        if(columns == null){
+            base.queryColumns();
+            columns = base.columns;
+        }
         return columns;
     }
 
     @Override
     public int getColumnCount() {
-        return columns.size();
+        return getColumns().size();
     }
 
     @Override
@@ -113,6 +173,35 @@ public class Table implements ITable {
         return db.getConfig().getIdNamingConvention();
     }
 
+    /**
+     * Returns the database this table belongs to
+     * @return the database
+     */
+    public Database getDatabase(){
+        return db;
+    }
+
+    /**
+     * Returns this table with the alias.
+     * @param alias the alias
+     * @return the aliased table
+     */
+    Table alias(String alias){
+        return new Table(this, alias);
+    }
+
+    void setName(String name){
+        this.name = name;
+    }
+
+    /**
+     * Sets the (prewarmed) columns, unless they're already loaded
+     * @param columns the columns (ignored if null)
+     */
+    void setColumns(List<String> columns){
+        if(columns != null && base.columns == null) base.columns = columns;
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
     @Override
@@ -127,17 +216,18 @@ public class Table implements ITable {
 
     @Override
     public long selectId(String whereClause, Object... args) {
-        long id = -1;
-        Cursor cursor =
-                select(whereClause, args)
-                .columns(getPrimaryKeyColumn())
-                .query();
+        StringBuilder sql = new StringBuilder("SELECT ").append(getPrimaryKeyColumn())
+                .append(" FROM ").append(toString());
+        appendWhere(sql, whereClause);
+        sql.append(" LIMIT 1");
 
-        if(cursor.moveToNext()){
-            id = cursor.getLong(0);
+        try{
+            return db.simpleQueryForLong(sql.toString(), Utils.toBindArgs(whereClause, args));
+        }
+        catch (SQLiteDoneException e){
+            // no row
+            return -1;
         }
-        cursor.close();
-        return id;
     }
 
     @Override
@@ -146,13 +236,68 @@ public class Table implements ITable {
     }
 
     @Override
-    public Select select(long id) {
-        return select(generateParamId(id));
+    public Select select(final long id) {
+        if(!db.getEntityCache().isEnabled()) return select(getPrimaryKeyColumn() + " = ?", id);
+
+        return new SelectImpl(this, -1, false){
+            boolean allColumns = true;
+
+            @Override public Cursor query(){
+                return db.rawQuery(toString(), getArgs());
+            }
+
+            @Override public Select columns(String... columns){
+                allColumns = false;
+                return super.columns(columns);
+            }
+
+            @Override public void query(IEntity entity){
+                EntityCache entityCache = db.getEntityCache();
+                if(!allColumns){
+                    super.query(entity);
+                }
+                else if(!entityCache.get(Table.this, id, entity)){
+                    long version = entityCache.getVersion(Table.this);
+                    final Cursor cursor = query();
+                    // only a row that has been read is cached
+                    if(cursor.moveToNext()){
+                        EntityUtils.mapEntityFromCursor(Table.this, entity, cursor);
+                        entityCache.put(Table.this, entity, version, 0);
+                    }
+
+                    cursor.close();
+                }
+            }
+        }.where(getPrimaryKeyColumn() + " = ?", id);
     }
 
     @Override
     public Select select(long... ids) {
-        return select(generateParamInIds(ids));
+        if(ids == null || ids.length == 0) return select((String) null);
+
+        if(ids.length <= MAX_BOUND_IDS){
+            Object[] args = new Object[ids.length];
+            for(int i = 0; i < ids.length; i++){
+                args[i] = ids[i];
+            }
+            return select(generateParamInIds(ids.length), args);
+        }
+
+        // the id set is stored when the query runs, the ids stand for it until then
+        final long[] idSetIds = ids.clone();
+        return new SelectImpl(this, -1, false){
+            @Override public Cursor query(){
+                return db.rawQuery(toString(), getArgs());
+            }
+
+            @Override public Object[] getArgs(){
+                Object[] args = super.getArgs();
+                for(int i = 0; i < args.length; i++){
+                    if(args[i] == idSetIds) args[i] = db.getIdSets().create(idSetIds, 0, idSetIds.length);
+                }
+                return args;
+            }
+        }.where(getPrimaryKeyColumn() + IdSets.IN_CLAUSE, (Object) idSetIds);
     }
 
     @Override
@@ -164,7 +309,7 @@ public class Table implements ITable {
     public Select select(int top, String whereClause, Object... args) {
         return new SelectImpl(this, top, false){
             @Override public Cursor query(){
-                return db.sqLiteDb.rawQuery(toString(), null);
+                return db.rawQuery(toString(), getArgs());
             }
         }.where(whereClause, args);
     }
@@ -200,69 +345,107 @@ public class Table implements ITable {
     public Select selectDistinct(int top, String whereClause, Object... args) {
         return new SelectImpl(this, top, true){
             @Override public Cursor query(){
-                return db.sqLiteDb.rawQuery(toString(), null);
+                return db.rawQuery(toString(), getArgs());
             }
         }.where(whereClause, args);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    public PreparedSelect prepare(IQuery<Cursor> select) {
+        if(select instanceof PagingImpl)
+            throw new IllegalArgumentException("A paging cannot be prepared, the page would be frozen");
+        if(!(select instanceof SelectImpl))
+            throw new IllegalArgumentException("Only a select statement can be prepared");
+        return new PreparedSelectImpl((SelectImpl) select);
+    }
+
+    @Override
+    public PreparedSelect prepare(String whereClause) {
+        return prepare(select(whereClause));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
     @Override
     public Insert insert(final ContentValues contents) {
         db.enforceReadOnly();
 
-        InsertImpl query = new InsertImpl();
-        query.setValue( db.sqLiteDb.insertOrThrow(getName(), null, contents) );
+        String[] columns = new String[contents.size()];
+        Object[] values = new Object[contents.size()];
+        ContentValuesUtils.mapColumnsAndValues(contents, columns, values);
 
-        return query;
+        return insert(columns, values);
     }
 
     @Override
     public Insert insert(String[] columns, Object[] values) {
         db.enforceReadOnly();
 
-        final ContentValues contentValues = new ContentValues();
-        for(int i = 0; i < columns.length; i++){
-            ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columns[i], values[i]);
-        }
+        InsertImpl query = new InsertImpl();
+        query.setValue( executeInsert(columns, values) );
 
-        return insert(contentValues);
+        return query;
     }
 
     @Override
     public Insert insert(String column, Object value) {
         db.enforceReadOnly();
 
-        final ContentValues contentValues = new ContentValues();
-        ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, column, value);
-
-        return insert(contentValues);
+        return insert(new String[]{ column }, new Object[]{ value });
     }
 
     @Override
     public InsertInto insertInto(String... columns) {
         db.enforceReadOnly();
 
-        return new InsertIntoImpl(new ContentSet<InsertIntoImpl>() {
+        return new InsertIntoImpl(this, new ValueSet<InsertIntoImpl>() {
             @Override
-            public void onContentValuesSet(InsertIntoImpl query, ContentValues contentValues) {
-                query.setValue( db.sqLiteDb.insertOrThrow(getName(), null, contentValues) );
+            public void onValuesSet(InsertIntoImpl query, String[] columns, Object[] values) {
+                query.setValue( executeInsert(columns, values) );
             }
         }, columns);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Insert insert(IEntity entity) {
+        EntityCache entityCache = db.getEntityCache();
+        if(!entityCache.isEnabled()) return insertEntity(entity);
+
+        long version = entityCache.getVersion(this);
+        Insert insert = insertEntity(entity);
+        entityCache.put(this, entity, version, 1);
+        return insert;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Insert insertEntity(final IEntity entity) {
         db.enforceReadOnly();
 
-        // build content values..
-        final ContentValues contentValues = new ContentValues();
-        final Delegate.Mapper mapper = ContentValuesUtils.mapContentValuesFromEntity(contentValues, this, entity);
+        // generated binder (annotation processor)
+        final EntityBinder<IEntity> binder = getBinder(entity);
+        if(binder != null){
+            InsertImpl query = new InsertImpl();
+            query.setValue( db.executeInsert(generateInsertSql(binder.getColumns()), new Database.Binding() {
+                @Override
+                public void bind(SQLiteProgram program) {
+                    binder.bindToProgram(entity, program, 1);
+                }
+            }));
+            binder.setId(entity, query.query());
+
+            return query;
+        }
 
+        final Delegate.Mapper mapper = new Delegate.Mapper(this);
+        entity.map(mapper);
+
+        // the delegates are bound as they are (no ContentValues)
         // do not insert the primary column
-        contentValues.remove(getPrimaryKeyColumn());
-        Insert insert = insert(contentValues);
+        final String[] columns = getColumnsWithoutPrimaryKey(mapper);
+        final Object[] values = getDelegates(mapper, columns);
+        Insert insert = insert(columns, values);
 
         // assign the newly inserted id
         Delegate<Long> pkDelegate = mapper.get(getPrimaryKeyColumn());
@@ -273,22 +456,114 @@ public class Table implements ITable {
         return insert;
     }
 
+    @Override
+    public Insert bulkInsert(String[] columns, Iterable<Object[]> rows) {
+        db.enforceReadOnly();
+
+        final InsertImpl query = new InsertImpl();
+        final BulkInsert bulkInsert = new BulkInsert(this);
+
+        bulkInsert.begin();
+        try{
+            bulkInsert.insertRows(columns, rows);
+            bulkInsert.commit();
+            query.setValue(bulkInsert.getRowCount());
+        }
+        catch (RuntimeException e){
+            // rolled back, -1 is returned
+        }
+        finally {
+            bulkInsert.end();
+        }
+
+        return query;
+    }
+
     @Override
     public <E extends IEntity> Insert insert(final IEntityList<E> entityList) {
         db.enforceReadOnly();
 
         final InsertImpl query = new InsertImpl();
-        query.setValue(0l);
+        final BulkInsert bulkInsert = new BulkInsert(this);
+        // the ids before the insert, given back if the rows are rolled back
+        final List<IEntity> inserted = new ArrayList<IEntity>();
+        final List<Long> ids = new ArrayList<Long>();
+        boolean committed = false;
 
-        db.begin(new IDatabase.Batch() {
-            @Override
-            public void exec(IDatabase database) {
-                for(IEntity entity : entityList){
-                    insert(entity).query();
-                    query.setValue(query.query() + 1);
+        bulkInsert.begin();
+        try{
+            for(IEntity entity : entityList){
+                inserted.add(entity);
+                ids.add(entity.getId());
+                bulkInsert.insert(entity);
+            }
+            bulkInsert.commit();
+            committed = true;
+        }
+        catch (RuntimeException e){
+            // rolled back, -1 is returned
+        }
+        finally {
+            bulkInsert.end();
+            if(committed) query.setValue(bulkInsert.getRowCount());
+            else {
+                for(int i = 0; i < inserted.size(); i++){
+                    if(inserted.get(i).getId() != ids.get(i)) setId(inserted.get(i), ids.get(i));
                 }
             }
-        }).execute();
+        }
+
+        return query;
+    }
+
+    @Override
+    public Upsert upsert(IEntity entity) {
+        db.enforceReadOnly();
+
+        final UpsertImpl query = new UpsertImpl();
+        final BulkUpsert bulkUpsert = new BulkUpsert(this);
+        final EntityCache entityCache = db.getEntityCache();
+        final long version = entityCache.getVersion(this);
+
+        bulkUpsert.begin();
+        try{
+            bulkUpsert.upsert(entity);
+            bulkUpsert.commit();
+            query.setCounts(bulkUpsert.getInsertedCount(), bulkUpsert.getUpdatedCount());
+        }
+        catch (RuntimeException e){
+            // rolled back, -1 is returned
+        }
+        finally {
+            bulkUpsert.end();
+        }
+
+        // the number of statements is not known
+        if(entityCache.isEnabled() && query.query() == 1) entityCache.put(this, entity, version, -1);
+        return query;
+    }
+
+    @Override
+    public <E extends IEntity> Upsert upsert(IEntityList<E> entityList) {
+        db.enforceReadOnly();
+
+        final UpsertImpl query = new UpsertImpl();
+        final BulkUpsert bulkUpsert = new BulkUpsert(this);
+
+        bulkUpsert.begin();
+        try{
+            for(IEntity entity : entityList){
+                bulkUpsert.upsert(entity);
+            }
+            bulkUpsert.commit();
+            query.setCounts(bulkUpsert.getInsertedCount(), bulkUpsert.getUpdatedCount());
+        }
+        catch (RuntimeException e){
+            // rolled back, -1 is returned
+        }
+        finally {
+            bulkUpsert.end();
+        }
 
         return query;
     }
@@ -299,14 +574,23 @@ public class Table implements ITable {
     public Update update(long id) {
         db.enforceReadOnly();
 
-        return update(generateParamId(id));
+        return update(getPrimaryKeyColumn() + " = ?", id);
     }
 
     @Override
-    public Update update(long... ids) {
+    public Update update(final long... ids) {
         db.enforceReadOnly();
 
-        return update(generateParamInIds(ids));
+        if(ids == null || ids.length == 0) return update((String) null);
+
+        return new UpdateImpl(new ValueSet<UpdateImpl>() {
+            @Override
+            public void onValuesSet(UpdateImpl query, String[] columns, Object[] values) {
+                // nothing to update
+                if(columns.length == 0) return;
+                query.setValue( executeIds(columns, values, ids) );
+            }
+        });
     }
 
     @Override
@@ -320,44 +604,115 @@ public class Table implements ITable {
     public Update update(final String whereClause, final Object... whereArgs) {
         db.enforceReadOnly();
 
-        return new UpdateImpl(new ContentSet<UpdateImpl>() {
+        return new UpdateImpl(new ValueSet<UpdateImpl>() {
             @Override
-            public void onContentValuesSet(UpdateImpl query, ContentValues contentValues) {
-                query.setValue(update(contentValues, whereClause, whereArgs).query());
+            public void onValuesSet(UpdateImpl query, String[] columns, Object[] values) {
+                query.setValue( executeUpdate(columns, values, whereClause, whereArgs) );
             }
         });
     }
 
     @Override
     public IQuery<Integer> update(IEntity entity) {
+        EntityCache entityCache = db.getEntityCache();
+        if(!entityCache.isEnabled()) return updateEntity(entity);
+
+        long version = entityCache.getVersion(this);
+        IQuery<Integer> update = updateEntity(entity);
+        if(update.query() == 1) entityCache.put(this, entity, version, 1);
+        return update;
+    }
+
+    @Override
+    public IQuery<Integer> update(IEntity entity, String... columns) {
+        EntityCache entityCache = db.getEntityCache();
+        if(!entityCache.isEnabled()) return updateEntity(entity, columns);
+
+        long version = entityCache.getVersion(this);
+        IQuery<Integer> update = updateEntity(entity, columns);
+        // the other columns may not match the row
+        if(update.query() == 1) entityCache.remove(this, entity.getId(), version, 1);
+        return update;
+    }
+
+    private IQuery<Integer> updateEntity(final IEntity entity) {
         db.enforceReadOnly();
 
         if(entity.getId() < 0) throw new IllegalArgumentException("Id has to be over than 0");
 
-        final ContentValues contentValues = ContentValuesUtils.generateContentValuesFromEntity(this, entity);
-        contentValues.remove(getPrimaryKeyColumn());
+        // generated binder (annotation processor)
+        final EntityBinder<IEntity> binder = getBinder(entity);
+        if(binder != null){
+            final String[] columns = binder.getColumns();
+            final UpdateImpl query = new UpdateImpl();
+            if(columns.length > 0){
+                String sql = generateUpdateSql(columns, getPrimaryKeyColumn() + " = ?");
+                query.setValue( db.executeUpdateDelete(sql, new Database.Binding() {
+                    @Override
+                    public void bind(SQLiteProgram program) {
+                        binder.bindToProgram(entity, program, 1);
+                        program.bindLong(columns.length + 1, entity.getId());
+                    }
+                }));
+            }
+
+            return query;
+        }
+
+        final Delegate.Mapper mapper = new Delegate.Mapper(this);
+        entity.map(mapper);
+
+        final String[] columns = getColumnsWithoutPrimaryKey(mapper);
+        final UpdateImpl query = new UpdateImpl();
+        query.setValue( executeUpdate(columns, getDelegates(mapper, columns), getPrimaryKeyColumn() + " = ?", entity.getId()) );
 
-        return update(contentValues, entity.getId());
+        return query;
     }
 
-    @Override
-    public <E extends IEntity> IQuery<Integer> update(final IEntityList<E> entityList) {
+    private IQuery<Integer> updateEntity(IEntity entity, String... columns) {
         db.enforceReadOnly();
 
+        if(entity.getId() < 0) throw new IllegalArgumentException("Id has to be over than 0");
+
+        final Delegate.Mapper mapper = new Delegate.Mapper(this);
+        entity.map(mapper);
+
+        final List<String> mappedColumns = new ArrayList<String>(columns.length);
+        for(String column : columns){
+            if(!column.equals(getPrimaryKeyColumn()) && mapper.get(column) != null)
+                mappedColumns.add(column);
+        }
+
+        final String[] updateColumns = mappedColumns.toArray(new String[mappedColumns.size()]);
         final UpdateImpl query = new UpdateImpl();
+        query.setValue( executeUpdate(updateColumns, getDelegates(mapper, updateColumns), getPrimaryKeyColumn() + " = ?", entity.getId()) );
 
-        boolean success = db.begin(new IDatabase.Batch() {
-            @Override
-            public void exec(IDatabase database) {
-                for(IEntity entity : entityList){
-                    query.setValue( query.query() + update(entity).query() );
-                }
-            }
-        }).execute();
+        return query;
+    }
 
-        // if there's any error we should return -1
-        if(!success)
-            query.setValue(-1);
+    @Override
+    public <E extends IEntity> BatchUpdate update(final IEntityList<E> entityList) {
+        db.enforceReadOnly();
+
+        final BatchUpdateImpl query = new BatchUpdateImpl();
+        final BulkUpdate bulkUpdate = new BulkUpdate(this);
+        final int[] counts = new int[CollectionUtils.size(entityList)];
+
+        bulkUpdate.begin();
+        try{
+            int i = 0;
+            for(IEntity entity : entityList){
+                counts[i++] = bulkUpdate.update(entity);
+            }
+            bulkUpdate.commit();
+            query.setCounts(counts);
+        }
+        catch (RuntimeException e){
+            // rolled back, -1 is returned
+        }
+        finally {
+            bulkUpdate.end();
+        }
 
         return query;
     }
@@ -366,18 +721,14 @@ public class Table implements ITable {
     public IQuery<Integer> update(ContentValues contents, long id) {
         db.enforceReadOnly();
 
-        return update(contents, generateParamId(id));
+        return update(contents, getPrimaryKeyColumn() + " = ?", id);
     }
 
     @Override
     public IQuery<Integer> update(ContentValues contents, String condition) {
         db.enforceReadOnly();
 
-        UpdateImpl query = new UpdateImpl();
-        if(contents != null && contents.size() > 0)
-            query.setValue( db.sqLiteDb.update(getName(), contents, condition, null) );
-
-        return query;
+        return update(contents, condition, (Object) null);
     }
 
     @Override
@@ -385,11 +736,15 @@ public class Table implements ITable {
         db.enforceReadOnly();
 
         UpdateImpl query = new UpdateImpl();
-        String[] args = Utils.toStringArray(whereArgs);
 
         // only update when content has something
-        if(contents != null && contents.size() > 0)
-            query.setValue( db.sqLiteDb.update(getName(), contents, whereClause, args) );
+        if(contents != null && contents.size() > 0){
+            String[] columns = new String[contents.size()];
+            Object[] values = new Object[contents.size()];
+            ContentValuesUtils.mapColumnsAndValues(contents, columns, values);
+
+            query.setValue( executeUpdate(columns, values, whereClause, whereArgs) );
+        }
 
         return query;
     }
@@ -400,14 +755,19 @@ public class Table implements ITable {
     public Delete delete(final long id) {
         db.enforceReadOnly();
 
-        return delete(generateParamId(id));
+        return delete(getPrimaryKeyColumn() + " = ?", id);
     }
 
     @Override
     public Delete delete(long... ids) {
         db.enforceReadOnly();
 
-        return delete(generateParamInIds(ids));
+        if(ids == null || ids.length == 0) return delete((String) null);
+
+        DeleteImpl query = new DeleteImpl();
+        query.setValue( executeIds(null, null, ids) );
+
+        return query;
     }
 
     @Override
@@ -434,8 +794,11 @@ public class Table implements ITable {
     public Delete delete(final String whereClause, final Object... whereArgs) {
         db.enforceReadOnly();
 
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(getName());
+        if(whereClause != null) sql.append(" WHERE ").append(whereClause);
+
         DeleteImpl query = new DeleteImpl();
-        query.setValue(db.sqLiteDb.delete(getName(), whereClause, Utils.toStringArray((Object[]) whereArgs)));
+        query.setValue( db.executeUpdateDelete(sql.toString(), Utils.toBindArgs(whereClause, whereArgs)) );
 
         return query;
     }
@@ -468,24 +831,23 @@ public class Table implements ITable {
 
     @Override
     public boolean has(long id) {
-        return has(generateParamId(id));
+        return has(getPrimaryKeyColumn() + " = ?", id);
     }
 
     @Override
     public boolean has(String whereClause, Object... whereArgs) {
-        StringBuilder sql = new StringBuilder("SELECT 1 FROM ").append(getName())
-                            .append(" WHERE ").append(Utils.bindArgs(whereClause, whereArgs));
-        Cursor cursor = null;
+        StringBuilder sql = new StringBuilder("SELECT 1 FROM ").append(getName());
+        appendWhere(sql, whereClause);
+        sql.append(" LIMIT 1");
+
         try{
-            cursor = raw(sql.toString()).query();
-            if(cursor.moveToFirst()) return true;
+            db.simpleQueryForLong(sql.toString(), Utils.toBindArgs(whereClause, whereArgs));
+            return true;
         }
-        finally {
-            if(cursor != null) cursor.close();
+        catch (SQLiteDoneException e){
+            // nope!
+            return false;
         }
-
-        // nope!
-        return false;
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -497,24 +859,11 @@ public class Table implements ITable {
 
     @Override
     public int count(String whereClause, Object... whereArgs) {
-        int count = 0;
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(toString());
+        appendWhere(sql, whereClause);
 
-        StringBuilder builder = new StringBuilder("SELECT COUNT(*) FROM " + toString());
-        if(whereClause != null){
-            builder.append(" WHERE ");
-            builder.append(Utils.bindArgs(whereClause, whereArgs));
-        }
-
-        Cursor cursor = db.sqLiteDb.rawQuery(builder.toString(), null);
-        try{
-            if(cursor.moveToNext()){
-                count = cursor.getInt(0);
-            }
-        }
-        finally {
-            cursor.close();
-        }
-        return count;
+        // COUNT(*) always returns a row
+        return (int) db.simpleQueryForLong(sql.toString(), Utils.toBindArgs(whereClause, whereArgs));
     }
 
     @Override
@@ -565,7 +914,7 @@ public class Table implements ITable {
     public InnerJoin join(String tableName, String onClause) {
         return new InnerJoinImpl(this, tableName, onClause){
             @Override public Cursor query(){
-                return db.sqLiteDb.rawQuery(toString(), null);
+                return db.rawQuery(toString(), getArgs());
             }
         };
     }
@@ -579,7 +928,7 @@ public class Table implements ITable {
     public OuterJoin outerJoin(String tableName, String onClause) {
         return new OuterJoinImpl(this, tableName, onClause){
             @Override public Cursor query(){
-                return db.sqLiteDb.rawQuery(toString(), null);
+                return db.rawQuery(toString(), getArgs());
             }
         };
     }
@@ -596,7 +945,7 @@ public class Table implements ITable {
         return new UnionImpl(select, this) {
             @Override
             public Cursor query() {
-                return raw(toString()).query();
+                return db.rawQuery(toString(), getArgs());
             }
         };
     }
@@ -606,13 +955,28 @@ public class Table implements ITable {
         return new UnionImpl(select, this, true) {
             @Override
             public Cursor query() {
-                return raw(toString()).query();
+                return db.rawQuery(toString(), getArgs());
             }
         };
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    public Aggregate aggregate() {
+        return aggregate(null);
+    }
+
+    @Override
+    public Aggregate aggregate(String condition) {
+        return aggregate(condition, (Object) null);
+    }
+
+    @Override
+    public Aggregate aggregate(String whereClause, Object... args) {
+        return new AggregateImpl(this, whereClause, args);
+    }
+
     @Override
     public Average avg(String columnName) {
         return avg(columnName, null);
@@ -620,18 +984,12 @@ public class Table implements ITable {
 
     @Override
     public Average avg(String columnName, String condition) {
-        AverageImpl fn = new AverageImpl(toString(), columnName, condition);
-        Cursor cursor = raw(fn.toString()).query();
-        if(cursor.moveToNext()){
-            fn.setValue(cursor.getDouble(0));
-        }
-        cursor.close();
-        return fn;
+        return avg(columnName, condition, (Object) null);
     }
 
     @Override
     public Average avg(String columnName, String whereClause, Object... args) {
-        return avg(columnName, Utils.bindArgs(whereClause, args));
+        return queryFunction(new AverageImpl(toString(), columnName, whereClause, args));
     }
 
     @Override
@@ -641,18 +999,12 @@ public class Table implements ITable {
 
     @Override
     public Sum sum(String columnName, String condition) {
-        SumImpl fn = new SumImpl(toString(), columnName, condition);
-        Cursor cursor = raw(fn.toString()).query();
-        if(cursor.moveToNext()){
-            fn.setValue(cursor.getDouble(0));
-        }
-        cursor.close();
-        return fn;
+        return sum(columnName, condition, (Object) null);
     }
 
     @Override
     public Sum sum(String columnName, String whereClause, Object... args) {
-        return sum(columnName, Utils.bindArgs(whereClause, args));
+        return queryFunction(new SumImpl(toString(), columnName, whereClause, args));
     }
 
     @Override
@@ -662,18 +1014,12 @@ public class Table implements ITable {
 
     @Override
     public Total total(String columnName, String condition) {
-        TotalImpl fn = new TotalImpl(toString(), columnName, condition);
-        Cursor cursor = raw(fn.toString()).query();
-        if(cursor.moveToNext()){
-            fn.setValue(cursor.getDouble(0));
-        }
-        cursor.close();
-        return fn;
+        return total(columnName, condition, (Object) null);
     }
 
     @Override
     public Total total(String columnName, String whereClause, Object... args) {
-        return total(columnName, Utils.bindArgs(whereClause, args));
+        return queryFunction(new TotalImpl(toString(), columnName, whereClause, args));
     }
 
     @Override
@@ -683,18 +1029,12 @@ public class Table implements ITable {
 
     @Override
     public Max max(String columnName, String condition) {
-        MaxImpl fn = new MaxImpl(toString(), columnName, condition);
-        Cursor cursor = raw(fn.toString()).query();
-        if(cursor.moveToNext()){
-            fn.setValue(cursor.getDouble(0));
-        }
-        cursor.close();
-        return fn;
+        return max(columnName, condition, (Object) null);
     }
 
     @Override
     public Max max(String columnName, String whereClause, Object... args) {
-        return max(columnName, Utils.bindArgs(whereClause, args));
+        return queryFunction(new MaxImpl(toString(), columnName, whereClause, args));
     }
 
     @Override
@@ -704,18 +1044,12 @@ public class Table implements ITable {
 
     @Override
     public Min min(String columnName, String condition) {
-        MinImpl fn = new MinImpl(toString(), columnName, condition);
-        Cursor cursor = raw(fn.toString()).query();
-        if(cursor.moveToNext()){
-            fn.setValue(cursor.getDouble(0));
-        }
-        cursor.close();
-        return fn;
+        return min(columnName, condition, (Object) null);
     }
 
     @Override
     public Min min(String columnName, String whereClause, Object... args) {
-        return min(columnName, Utils.bindArgs(whereClause, args));
+        return queryFunction(new MinImpl(toString(), columnName, whereClause, args));
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -728,7 +1062,8 @@ public class Table implements ITable {
             @Override
             public Alter rename(String newName) {
                 db.execSql("ALTER TABLE " + getName() + " RENAME TO " + newName);
-                // quickly change our name
+                // quickly change our name (and re-register)
+                db.renameTable(base, newName);
                 name = newName;
                 return this;
             }
@@ -743,7 +1078,7 @@ public class Table implements ITable {
                 Database.ColumnModel model = new Database.ColumnModel(columnName, dataType, columnDefinition);
                 db.execSql("ALTER TABLE " + getName() + " ADD COLUMN " + model);
                 // re-query columns
-                queryColumns();
+                base.queryColumns();
                 return this;
             }
 
@@ -780,12 +1115,144 @@ public class Table implements ITable {
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
-    private String generateParamId(long id){
-        return getPrimaryKeyColumn() + " = " + id;
+    private <T extends FunctionImpl> T queryFunction(T fn){
+        if(!fn.isReal()){
+            // an aggregate without GROUP BY always returns a row
+            String value = db.simpleQueryForString(fn.toString(), fn.getArgs());
+            if(value == null) return fn;
+            // keep integers exact, a long sum can't always be stored in a double
+            try{
+                fn.setValue(Long.parseLong(value));
+                return fn;
+            }
+            catch (NumberFormatException e){
+                // a REAL, its text only keeps 15 digits
+            }
+        }
+
+        Cursor cursor = db.rawQuery(fn.toString(), fn.getArgs());
+        try{
+            if(cursor.moveToFirst() && !cursor.isNull(0)) fn.setValue(cursor.getDouble(0));
+        }
+        finally {
+            cursor.close();
+        }
+        return fn;
+    }
+
+    private void appendWhere(StringBuilder sql, String whereClause){
+        if(whereClause != null){
+            // append where if necessary
+            if(!whereClause.toLowerCase(Locale.getDefault()).startsWith("where"))
+                sql.append(" WHERE ");
+            else
+                sql.append(" ");
+            sql.append(whereClause);
+        }
+    }
+
+    String[] getColumnsWithoutPrimaryKey(Delegate.Mapper mapper){
+        List<String> columns = new ArrayList<String>(mapper.size());
+        for(String column : mapper.keySet()){
+            if(!column.equals(getPrimaryKeyColumn())) columns.add(column);
+        }
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    Object[] getDelegates(Delegate.Mapper mapper, String[] columns){
+        Object[] delegates = new Object[columns.length];
+        for(int i = 0; i < columns.length; i++){
+            delegates[i] = mapper.get(columns[i]);
+        }
+        return delegates;
+    }
+
+    @SuppressWarnings("unchecked")
+    EntityBinder<IEntity> getBinder(IEntity entity){
+        return (EntityBinder<IEntity>) EntityUtils.getBinder(entity.getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    void setId(IEntity entity, long id){
+        EntityBinder<IEntity> binder = getBinder(entity);
+        if(binder != null){
+            binder.setId(entity, id);
+            return;
+        }
+
+        Delegate.Mapper mapper = new Delegate.Mapper(this);
+        entity.map(mapper);
+        Delegate<Long> pkDelegate = mapper.get(getPrimaryKeyColumn());
+        if(pkDelegate != null) pkDelegate.set(id);
+    }
+
+    private long executeInsert(String[] columns, Object[] values){
+        return db.executeInsert(generateInsertSql(columns), values);
+    }
+
+    private int executeUpdate(String[] columns, Object[] values, String whereClause, Object... whereArgs){
+        // nothing to update
+        if(columns.length == 0) return 0;
+
+        Object[] args = Utils.toBindArgs(whereClause, whereArgs);
+        Object[] bindArgs = new Object[columns.length + args.length];
+        System.arraycopy(values, 0, bindArgs, 0, columns.length);
+        System.arraycopy(args, 0, bindArgs, columns.length, args.length);
+
+        return db.executeUpdateDelete(generateUpdateSql(columns, whereClause), bindArgs);
+    }
+
+    String generateInsertSql(String[] columns){
+        return generateInsertSql(columns, 1);
+    }
+
+    /**
+     * Multi-row INSERT. Uses VALUES (...),(...) when sqlite supports it (3.7.11, API 16)
+     * otherwise SELECT ... UNION ALL SELECT ...
+     */
+    String generateInsertSql(String[] columns, int rowCount){
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(getName());
+        if(columns.length == 0){
+            sql.append(" DEFAULT VALUES");
+            return sql.toString();
+        }
+
+        StringBuilder row = new StringBuilder();
+        for(int i = 0; i < columns.length; i++){
+            row.append(i == 0 ? "?" : ",?");
+        }
+
+        sql.append(" (").append(Utils.join(",", columns)).append(")");
+        if(rowCount == 1 || Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+            sql.append(" VALUES ");
+            for(int i = 0; i < rowCount; i++){
+                if(i > 0) sql.append(",");
+                sql.append("(").append(row).append(")");
+            }
+        }
+        else{
+            for(int i = 0; i < rowCount; i++){
+                sql.append(i == 0 ? " SELECT " : " UNION ALL SELECT ").append(row);
+            }
+        }
+
+        return sql.toString();
+    }
+
+    String generateUpdateSql(String[] columns, String whereClause){
+        StringBuilder sql = new StringBuilder("UPDATE ").append(getName()).append(" SET ");
+        for(int i = 0; i < columns.length; i++){
+            if(i > 0) sql.append(",");
+            sql.append(columns[i]).append("=?");
+        }
+        if(whereClause != null) sql.append(" WHERE ").append(whereClause);
+
+        return sql.toString();
     }
 
     private void queryColumns(){
-        columns.clear();
+        // replaced as a whole, readers on other threads never see a partial list
+        List<String> columns = new ArrayList<String>();
         String pragmaSql = Utils.bindArgs("PRAGMA table_info(?)", name);
         Cursor cursor = db.sqLiteDb.rawQuery(pragmaSql, null);
         try{
@@ -799,32 +1266,84 @@ public class Table implements ITable {
         finally {
             cursor.close();
         }
+        this.columns = columns;
     }
 
     /**
-     * Generate IN(ID,ID,ID) params. if ids is empty or null
-     * then it will return null
-     * @param ids ids to generate params with
-     * @return string rep of IN(...) statements, null if ids is empty or null
+     * Generate Id IN (?,?,?) with a parameter for each id
+     * @param count number of ids
+     * @return string rep of IN(...) statements
      */
-    private String generateParamInIds(long... ids){
-        if(ids != null && ids.length > 0) {
-            StringBuilder builder = new StringBuilder();
-
-            builder.append(getPrimaryKeyColumn())
-                    .append(" IN (");
-            for (int i = 0; i < ids.length; i++) {
-                builder.append(ids[i]);
-                if (i < ids.length - 1) {
-                    builder.append(",");
-                }
+    private String generateParamInIds(int count){
+        StringBuilder builder = new StringBuilder(getPrimaryKeyColumn().length() + 6 + count * 2);
+        builder.append(getPrimaryKeyColumn()).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(",");
+            builder.append("?");
+        }
+        builder.append(")");
+
+        return builder.toString();
+    }
+
+    /**
+     * Updates (or deletes if columns is null) the rows by ids.
+     * Up to {@link #MAX_CHUNKED_IDS} ids are bound in chunks of Id IN (?,?,...),
+     * more than that are stored in a temp table (see {@link IdSets})
+     */
+    private int executeIds(String[] columns, Object[] values, final long[] ids){
+        final int offset = columns == null ? 0 : columns.length;
+        final int chunkSize = Math.min(MAX_BOUND_IDS, BulkInsert.MAX_VARIABLES - offset);
+
+        // too many ids, or too many columns to leave room for them
+        if(ids.length > MAX_CHUNKED_IDS || chunkSize < 1){
+            IdSets.IdSet idSet = db.getIdSets().create(ids, 0, ids.length);
+            try{
+                String whereClause = getPrimaryKeyColumn() + IdSets.IN_CLAUSE;
+                return db.executeUpdateDelete(generateUpdateDeleteSql(columns, whereClause), appendArg(values, idSet), null);
+            }
+            finally {
+                idSet.release();
             }
-            builder.append(")");
+        }
 
-            return builder.toString();
+        int count = 0;
+        db.begin();
+        try{
+            for(int from = 0; from < ids.length; from += chunkSize){
+                final int start = from;
+                final int size = Math.min(chunkSize, ids.length - from);
+                String sql = generateUpdateDeleteSql(columns, generateParamInIds(size));
+                count += db.executeUpdateDelete(sql, values, new Database.Binding() {
+                    @Override
+                    public void bind(SQLiteProgram program) {
+                        for(int i = 0; i < size; i++){
+                            program.bindLong(offset + i + 1, ids[start + i]);
+                        }
+                    }
+                });
+            }
+            db.commit();
         }
+        finally {
+            db.end();
+        }
+
+        return count;
+    }
+
+    private String generateUpdateDeleteSql(String[] columns, String whereClause){
+        if(columns != null) return generateUpdateSql(columns, whereClause);
+        return "DELETE FROM " + getName() + " WHERE " + whereClause;
+    }
+
+    private static Object[] appendArg(Object[] values, Object arg){
+        if(values == null) return new Object[]{ arg };
 
-        return null;
+        Object[] args = new Object[values.length + 1];
+        System.arraycopy(values, 0, args, 0, values.length);
+        args[values.length] = arg;
+        return args;
     }
 
 }
@@ -19,6 +19,8 @@ import com.bingzer.android.dbv.IView;
 import com.bingzer.android.dbv.internal.queries.DropImpl;
 import com.bingzer.android.dbv.queries.IQuery;
 
+import java.util.List;
+
 /**
  * Created by Ricky Tobing on 8/19/13.
  */
@@ -28,6 +30,19 @@ public class View extends Table implements IView {
         super(db, name);
     }
 
+    View (Database db, String name, List<String> columns){
+        super(db, name, columns);
+    }
+
+    protected View (View view, String alias){
+        super(view, alias);
+    }
+
+    @Override
+    Table alias(String alias) {
+        return new View(this, alias);
+    }
+
     @Override
     public IQuery<Boolean> drop() {
         db.enforceReadOnly();
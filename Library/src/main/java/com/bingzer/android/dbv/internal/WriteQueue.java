@@ -0,0 +1,226 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal;
+
+import com.bingzer.android.dbv.IDatabase;
+import com.bingzer.android.dbv.internal.queries.QueryFutureImpl;
+import com.bingzer.android.dbv.queries.QueryFuture;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Queue of writes committed by the writer executor in group commits:
+ * the writes waiting in the queue share one transaction (one fsync),
+ * up to {@link com.bingzer.android.dbv.IConfig#getWriteQueueBatchSize()} writes.
+ * The first write of a group waits at most
+ * {@link com.bingzer.android.dbv.IConfig#getWriteQueueLatency()} for the others.
+ * <p>
+ * Every write runs in its own savepoint: a write that throws is rolled back
+ * without failing the others. If the transaction itself fails (i.e: disk I/O)
+ * the writes are committed again one by one.
+ * </p>
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class WriteQueue {
+
+    private final Database database;
+    private final LinkedList<Entry<?>> pending;
+    private boolean scheduled;
+
+    public WriteQueue(Database database){
+        this.database = database;
+        this.pending = new LinkedList<Entry<?>>();
+    }
+
+    /**
+     * Adds the write to the queue
+     * @param write the write
+     * @param <T> the result type
+     * @return the future result
+     */
+    <T> QueryFuture<T> enqueue(IDatabase.Write<T> write){
+        Entry<T> entry = new Entry<T>(write);
+        synchronized (this){
+            pending.add(entry);
+            if(pending.size() >= getBatchSize()) notifyAll();
+            if(scheduled) return entry.future;
+            scheduled = true;
+        }
+
+        schedule(database.getWriterExecutor());
+        return entry.future;
+    }
+
+    public synchronized int size(){
+        return pending.size();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void schedule(final Executor executor){
+        try{
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drain(executor);
+                }
+            });
+        }
+        catch (RejectedExecutionException e){
+            // the executor is shutting down (the database is being closed), keep draining on this thread
+            drain(executor);
+        }
+    }
+
+    /**
+     * Commits one group. Runs again (as a new task) while there are writes,
+     * so other tasks of the writer executor are not kept waiting
+     * @param executor the executor running the drain
+     */
+    private void drain(Executor executor){
+        List<Entry<?>> group = new ArrayList<Entry<?>>();
+        synchronized (this){
+            int batchSize = getBatchSize();
+            if(batchSize > 1 && !pending.isEmpty()){
+                // wait for the group to fill
+                long deadline = pending.getFirst().time + database.getConfig().getWriteQueueLatency();
+                long remaining;
+                while(pending.size() < batchSize && (remaining = deadline - System.currentTimeMillis()) > 0){
+                    try{
+                        wait(remaining);
+                    }
+                    catch (InterruptedException e){
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+
+            while(!pending.isEmpty() && group.size() < batchSize){
+                Entry<?> entry = pending.removeFirst();
+                // cancelled before it was started
+                if(!entry.future.isCancelled()) group.add(entry);
+            }
+        }
+
+        try{
+            if(group.size() > 1) commit(group);
+            else if(group.size() == 1) commit(group.get(0));
+        }
+        finally {
+            synchronized (this){
+                scheduled = !pending.isEmpty();
+            }
+            if(scheduled) schedule(executor);
+        }
+    }
+
+    private void commit(List<Entry<?>> group){
+        boolean committed = false;
+        database.begin();
+        try{
+            for(Entry<?> entry : group){
+                database.begin();
+                try{
+                    entry.exec(database);
+                    database.commit();
+                }
+                catch (Throwable e){
+                    database.rollback();
+                    entry.error = e;
+                }
+                finally {
+                    database.end();
+                }
+            }
+            database.commit();
+            committed = true;
+        }
+        catch (Throwable e){
+            // the transaction has failed, rolled back by end()
+        }
+
+        try{
+            database.end();
+        }
+        catch (RuntimeException e){
+            // i.e: disk is full
+            for(Entry<?> entry : group) entry.future.fail(e);
+            return;
+        }
+
+        if(committed){
+            for(Entry<?> entry : group) entry.complete();
+        }
+        else{
+            for(Entry<?> entry : group){
+                entry.error = null;
+                commit(entry);
+            }
+        }
+    }
+
+    private void commit(Entry<?> entry){
+        try{
+            database.begin();
+            try{
+                entry.exec(database);
+                database.commit();
+            }
+            finally {
+                database.end();
+            }
+            entry.complete();
+        }
+        catch (Throwable e){
+            entry.future.fail(e);
+        }
+    }
+
+    private int getBatchSize(){
+        return Math.max(1, database.getConfig().getWriteQueueBatchSize());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Entry<T> {
+        final IDatabase.Write<T> write;
+        final QueryFutureImpl<T> future;
+        final long time;
+        T result;
+        Throwable error;
+
+        Entry(IDatabase.Write<T> write){
+            this.write = write;
+            this.future = new QueryFutureImpl<T>();
+            this.time = System.currentTimeMillis();
+        }
+
+        void exec(IDatabase database){
+            result = write.exec(database);
+        }
+
+        void complete(){
+            if(error != null) future.fail(error);
+            else future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal.queries;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.internal.Table;
+import com.bingzer.android.dbv.queries.Aggregate;
+import com.bingzer.android.dbv.queries.IFunction;
+import com.bingzer.android.dbv.queries.QueryFuture;
+import com.bingzer.android.dbv.utils.CursorUtils;
+import com.bingzer.android.dbv.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Created by Ricky Tobing on 8/11/14.
+ */
+public class AggregateImpl implements Aggregate {
+
+    private final Table table;
+    private final String whereClause;
+    private final Object[] args;
+    private final List<String> functions = new ArrayList<String>();
+
+    public AggregateImpl(Table table, String whereClause, Object... args){
+        this.table = table;
+        this.whereClause = whereClause;
+        this.args = Utils.toBindArgs(whereClause, args);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Aggregate avg(String columnName) {
+        return add("AVG", columnName);
+    }
+
+    @Override
+    public Aggregate sum(String columnName) {
+        return add("SUM", columnName);
+    }
+
+    @Override
+    public Aggregate total(String columnName) {
+        return add("TOTAL", columnName);
+    }
+
+    @Override
+    public Aggregate max(String columnName) {
+        return add("MAX", columnName);
+    }
+
+    @Override
+    public Aggregate min(String columnName) {
+        return add("MIN", columnName);
+    }
+
+    @Override
+    public Aggregate count() {
+        return add("COUNT", "*");
+    }
+
+    @Override
+    public Aggregate count(String columnName) {
+        return add("COUNT", columnName);
+    }
+
+    @Override
+    public Grouped groupBy(final String... columns) {
+        return new Grouped() {
+            @Override
+            public Map<Object, Result> query() {
+                Map<Object, Result> results = new LinkedHashMap<Object, Result>();
+                Cursor cursor = table.getDatabase().rawQuery(AggregateImpl.this.toString(columns), args);
+                try{
+                    final int size = functions.size();
+                    while(cursor.moveToNext()){
+                        Object key;
+                        if(columns.length == 1){
+                            key = CursorUtils.getValueFromCursor(cursor, size);
+                        }
+                        else {
+                            Object[] values = new Object[columns.length];
+                            for(int i = 0; i < columns.length; i++){
+                                values[i] = CursorUtils.getValueFromCursor(cursor, size + i);
+                            }
+                            key = Arrays.asList(values);
+                        }
+                        results.put(key, new ResultImpl(cursor, size));
+                    }
+                }
+                finally {
+                    cursor.close();
+                }
+                return results;
+            }
+
+            @Override
+            public QueryFuture<Map<Object, Result>> queryAsync(Executor executor) {
+                return table.getDatabase().queryAsync(executor, this);
+            }
+
+            @Override
+            public String toString(){
+                return AggregateImpl.this.toString(columns);
+            }
+        };
+    }
+
+    @Override
+    public Result query() {
+        Cursor cursor = table.getDatabase().rawQuery(toString(), args);
+        try{
+            // an aggregate without GROUP BY always returns one row
+            cursor.moveToNext();
+            return new ResultImpl(cursor, functions.size());
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public QueryFuture<Result> queryAsync(Executor executor) {
+        return table.getDatabase().queryAsync(executor, this);
+    }
+
+    /**
+     * Returns the arguments to bind to the sql returned by {@link #toString()}
+     * @return the arguments
+     */
+    public Object[] getArgs(){
+        return args;
+    }
+
+    @Override
+    public String toString(){
+        return toString((String[]) null);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Aggregate add(String functionName, String columnName){
+        functions.add(functionName + "(" + columnName + ")");
+        return this;
+    }
+
+    private String toString(String[] groupColumns){
+        if(functions.size() == 0)
+            throw new IllegalStateException("No aggregate function has been added");
+
+        StringBuilder builder = new StringBuilder("SELECT ");
+        for(int i = 0; i < functions.size(); i++){
+            if(i > 0) builder.append(",");
+            builder.append(functions.get(i));
+        }
+        if(groupColumns != null){
+            for(String column : groupColumns){
+                builder.append(",").append(column);
+            }
+        }
+
+        builder.append(" FROM ").append(table.toString());
+        if(whereClause != null){
+            // append where if necessary
+            if(!whereClause.toLowerCase(Locale.getDefault()).startsWith("where"))
+                builder.append(" WHERE ");
+            builder.append(whereClause);
+        }
+        if(groupColumns != null && groupColumns.length > 0){
+            builder.append(" GROUP BY ").append(Utils.join(",", groupColumns));
+        }
+
+        return builder.toString();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class ResultImpl implements Result {
+        private final IFunction[] values;
+
+        ResultImpl(Cursor cursor, int size){
+            values = new IFunction[size];
+            for(int i = 0; i < size; i++){
+                values[i] = new ValueImpl(CursorUtils.getValueFromCursor(cursor, i));
+            }
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public IFunction get(int index) {
+            return values[index];
+        }
+    }
+
+    /**
+     * Value as returned by sqlite: Long, Double, String, byte[] or null
+     */
+    static class ValueImpl implements IFunction {
+        private final Object value;
+
+        ValueImpl(Object value){
+            this.value = value;
+        }
+
+        @Override
+        public int asInt() {
+            return (int) asLong();
+        }
+
+        @Override
+        public long asLong() {
+            if(value instanceof Number) return ((Number) value).longValue();
+            if(value == null) return 0;
+            try{
+                return Long.parseLong(value.toString());
+            }
+            catch (NumberFormatException e){
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public float asFloat() {
+            return (float) asDouble();
+        }
+
+        @Override
+        public double asDouble() {
+            if(value instanceof Number) return ((Number) value).doubleValue();
+            if(value == null) return 0;
+            try{
+                return Double.parseDouble(value.toString());
+            }
+            catch (NumberFormatException e){
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public String asString() {
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public Object value() {
+            return value;
+        }
+    }
+}
@@ -21,7 +21,12 @@ import com.bingzer.android.dbv.queries.Average;
 * Created by Ricky on 4/26/2014.
 */
 public class AverageImpl extends FunctionImpl implements Average {
-    public AverageImpl(String tableName, String columnName, String condition){
-        super("AVG", tableName, columnName, condition);
+    public AverageImpl(String tableName, String columnName, String condition, Object... args){
+        super("AVG", tableName, columnName, condition, args);
+    }
+
+    @Override
+    public boolean isReal() {
+        return true;
     }
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal.queries;
+
+import com.bingzer.android.dbv.queries.BatchUpdate;
+
+/**
+ * Created by Ricky Tobing on 8/8/14.
+ */
+public class BatchUpdateImpl extends QueryImpl<Integer> implements BatchUpdate {
+
+    private int[] counts = new int[0];
+
+    public BatchUpdateImpl(){
+        // default if any error.
+        // -1 should be returned
+        this.value = -1;
+    }
+
+    /**
+     * Sets the counts, the value becomes the sum of them
+     * @param counts number of rows updated for each entity
+     */
+    public void setCounts(int[] counts){
+        this.counts = counts;
+
+        int total = 0;
+        for(int count : counts){
+            total += count;
+        }
+        setValue(total);
+    }
+
+    @Override
+    public int[] getCounts() {
+        return counts;
+    }
+}
@@ -16,6 +16,7 @@
 package com.bingzer.android.dbv.internal.queries;
 
 import com.bingzer.android.dbv.queries.IFunction;
+import com.bingzer.android.dbv.utils.Utils;
 
 import java.util.Locale;
 
@@ -25,9 +26,12 @@ import java.util.Locale;
 public class FunctionImpl implements IFunction {
 
     private double value;
+    private long longValue;
+    private boolean exact;
     private final StringBuilder builder;
+    private final Object[] args;
 
-    FunctionImpl(String functionName, String tableName, String columnName, String condition){
+    FunctionImpl(String functionName, String tableName, String columnName, String condition, Object... args){
         builder = new StringBuilder("SELECT ")
                 .append(functionName).append("(").append(columnName).append(") AS FN ")
                 .append(" FROM ").append(tableName);
@@ -36,15 +40,45 @@ public class FunctionImpl implements IFunction {
             // append where if necessary
             if(!condition.toLowerCase(Locale.getDefault()).startsWith("where"))
                 builder.append(" WHERE ");
-            // safely prepare the where part
+            // args are bound when the function is executed
             builder.append(condition);
         }
+        this.args = Utils.toBindArgs(condition, args);
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////
 
     public void setValue(double value){
         this.value = value;
+        this.exact = false;
+    }
+
+    /**
+     * Sets an integer value, {@link #asLong()} and {@link #asInt()}
+     * return it without going through <code>double</code>
+     * @param value the value
+     */
+    public void setValue(long value){
+        this.value = value;
+        this.longValue = value;
+        this.exact = true;
+    }
+
+    /**
+     * Returns true if the function always returns a REAL (or NULL),
+     * there's no integer to keep exact
+     * @return true for REAL results
+     */
+    public boolean isReal(){
+        return false;
+    }
+
+    /**
+     * Returns the arguments to bind to the sql returned by {@link #toString()}
+     * @return the arguments
+     */
+    public Object[] getArgs(){
+        return args;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////
@@ -52,7 +86,7 @@ public class FunctionImpl implements IFunction {
     @Override
     public int asInt() {
         try{
-            return (int) value;
+            return exact ? (int) longValue : (int) value;
         }
         catch (NumberFormatException e){
             throw new IllegalArgumentException(e);
@@ -62,7 +96,7 @@ public class FunctionImpl implements IFunction {
     @Override
     public long asLong() {
         try{
-            return (long) value;
+            return exact ? longValue : (long) value;
         }
         catch (NumberFormatException e){
             throw new IllegalArgumentException(e);
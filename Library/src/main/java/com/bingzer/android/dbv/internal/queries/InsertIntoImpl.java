@@ -15,34 +15,100 @@
  */
 package com.bingzer.android.dbv.internal.queries;
 
-import android.content.ContentValues;
-
+import com.bingzer.android.dbv.internal.BulkInsert;
+import com.bingzer.android.dbv.internal.Table;
 import com.bingzer.android.dbv.queries.IQuery;
 import com.bingzer.android.dbv.queries.InsertInto;
-import com.bingzer.android.dbv.utils.ContentValuesUtils;
 
 /**
 * Created by Ricky on 4/26/2014.
 */
 public class InsertIntoImpl extends InsertImpl implements InsertInto {
 
-    private ContentSet<InsertIntoImpl> query;
+    private ValueSet<InsertIntoImpl> query;
+    private Table table;
     private String[] columnNames;
 
-    public InsertIntoImpl(ContentSet<InsertIntoImpl> query, String... columnNames){
+    public InsertIntoImpl(Table table, ValueSet<InsertIntoImpl> query, String... columnNames){
+        this.table = table;
         this.query = query;
         this.columnNames = columnNames;
     }
 
     @Override
     public IQuery<Long> val(Object... values) {
-        ContentValues contentValues = new ContentValues();
-        for(int i = 0; i < columnNames.length; i++){
-            ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columnNames[i], values[i]);
+        checkValues(columnNames, values);
+        query.onValuesSet(this, columnNames, values);
+
+        return this;
+    }
+
+    @Override
+    public Batch batch() {
+        return new BatchImpl(new BulkInsert(table), columnNames);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static void checkValues(String[] columnNames, Object[] values){
+        int count = values == null ? 0 : values.length;
+        if(count != columnNames.length)
+            throw new IllegalArgumentException("Expected " + columnNames.length + " values but got " + count);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class BatchImpl implements Batch {
+        final BulkInsert bulkInsert;
+        final String[] columnNames;
+        boolean started;
+        boolean finished;
+
+        BatchImpl(BulkInsert bulkInsert, String[] columnNames){
+            this.bulkInsert = bulkInsert;
+            this.columnNames = columnNames;
         }
 
-        query.onContentValuesSet(this, contentValues);
+        @Override
+        public Batch val(Object... values) {
+            if(finished) throw new IllegalStateException("Batch is already finished");
+            checkValues(columnNames, values);
+            if(!started){
+                bulkInsert.begin();
+                started = true;
+            }
 
-        return this;
+            try{
+                bulkInsert.insert(columnNames, values);
+            }
+            catch (RuntimeException e){
+                // roll back everything
+                finished = true;
+                bulkInsert.end();
+                throw e;
+            }
+
+            return this;
+        }
+
+        @Override
+        public Long query() {
+            if(started && !finished){
+                finished = true;
+                try{
+                    bulkInsert.commit();
+                }
+                finally {
+                    bulkInsert.end();
+                }
+            }
+
+            return bulkInsert.getRowCount();
+        }
+
+        @Override
+        public double getRowsPerSecond() {
+            return bulkInsert.getRowsPerSecond();
+        }
     }
 }
@@ -182,5 +182,7 @@ public abstract class JoinImpl extends SelectImpl implements InnerJoin, OuterJoi
         groupByString = ((SelectImpl)select).groupByString;
         havingString = ((SelectImpl)select).havingString;
         whereString = ((SelectImpl)select).whereString;
+        whereArgs = ((SelectImpl)select).whereArgs;
+        havingArgs = ((SelectImpl)select).havingArgs;
     }
 }
@@ -22,8 +22,11 @@ import com.bingzer.android.dbv.IEntityList;
 import com.bingzer.android.dbv.queries.ISequence;
 import com.bingzer.android.dbv.internal.Database;
 import com.bingzer.android.dbv.queries.Paging;
+import com.bingzer.android.dbv.queries.QueryFuture;
 import com.bingzer.android.dbv.utils.EntityUtils;
 
+import java.util.concurrent.Executor;
+
 /**
 * Created by Ricky on 4/26/2014.
 */
@@ -77,7 +80,7 @@ public class PagingImpl extends QueryImpl<Cursor> implements Paging {
         String sql = generateSql(true);
         Cursor cursor = null;
         try{
-            cursor = select.table.raw(sql).query();
+            cursor = select.table.getDatabase().rawQuery(sql, select.getArgs());
             if(cursor.moveToFirst()){
                 row = cursor.getInt(0);
             }
@@ -92,7 +95,7 @@ public class PagingImpl extends QueryImpl<Cursor> implements Paging {
 
     @Override
     public Cursor query(){
-        return select.table.raw(toString()).query();
+        return select.table.getDatabase().rawQuery(toString(), select.getArgs());
     }
 
     @Override
@@ -136,6 +139,22 @@ public class PagingImpl extends QueryImpl<Cursor> implements Paging {
         query(pageNumber, entityList);
     }
 
+    @Override
+    public QueryFuture<Cursor> queryAsync(Executor executor) {
+        return select.table.getDatabase().queryAsync(executor, this);
+    }
+
+    @Override
+    public <E extends IEntity> QueryFuture<IEntityList<E>> queryAsync(final IEntityList<E> entityList, Executor executor) {
+        return select.table.getDatabase().queryAsync(executor, new QueryImpl<IEntityList<E>>(){
+            @Override
+            public IEntityList<E> query() {
+                PagingImpl.this.query(entityList);
+                return entityList;
+            }
+        });
+    }
+
     @Override
     public String toString(){
         return generateSql(false);
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal.queries;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.IEntity;
+import com.bingzer.android.dbv.IEntityList;
+import com.bingzer.android.dbv.internal.Table;
+import com.bingzer.android.dbv.queries.PreparedSelect;
+import com.bingzer.android.dbv.utils.EntityUtils;
+
+/**
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class PreparedSelectImpl implements PreparedSelect {
+
+    private final Table table;
+    private final String sql;
+    private final Object[] defaultArgs;
+
+    public PreparedSelectImpl(SelectImpl select){
+        // the select knows its own table (it may not be the one preparing it)
+        this.table = select.table;
+        this.sql = select.toString();
+        this.defaultArgs = select.getArgs();
+    }
+
+    @Override
+    public Cursor query(Object... args) {
+        return table.getDatabase().rawQuery(sql, toBindArgs(args));
+    }
+
+    @Override
+    public void query(IEntity entity, Object... args) {
+        final Cursor cursor = query(args);
+        try{
+            if(cursor.moveToNext()){
+                EntityUtils.mapEntityFromCursor(table, entity, cursor);
+            }
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public <E extends IEntity> void query(IEntityList<E> entityList, Object... args) {
+        final Cursor cursor = query(args);
+        try{
+            EntityUtils.mapEntityListFromCursor(table, entityList, cursor);
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public String toString(){
+        return sql;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private Object[] toBindArgs(Object[] args){
+        if(args == null || args.length == 0) return defaultArgs;
+        if(args.length != defaultArgs.length)
+            throw new IllegalArgumentException("Expected " + defaultArgs.length + " arguments but got " + args.length);
+        return args;
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal.queries;
+
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.os.Build;
+import android.os.CancellationSignal;
+
+import com.bingzer.android.dbv.queries.QueryFuture;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implements {@link com.bingzer.android.dbv.queries.QueryFuture}.
+ * Cancelling the future also cancels its <code>CancellationSignal</code> (if any).
+ * <p>
+ * A future created without a callable is completed by its owner
+ * (see {@link #complete(Object)} and {@link #fail(Throwable)}), running it does nothing.
+ * </p>
+ *
+ * Created by Ricky Tobing on 8/2/14.
+ */
+public class QueryFutureImpl<T> extends FutureTask<T> implements QueryFuture<T> {
+
+    // android.os.CancellationSignal (Jelly Bean and later) or null
+    private final Object cancellationSignal;
+    // the result given by the owner, null if the future runs a query
+    private final Outcome<T> outcome;
+    private final AtomicBoolean delivered = new AtomicBoolean(false);
+    private volatile Callback<T> callback;
+
+    public QueryFutureImpl(Callable<T> callable, Object cancellationSignal){
+        super(callable);
+        this.cancellationSignal = cancellationSignal;
+        this.outcome = null;
+    }
+
+    /**
+     * Creates a future completed by its owner
+     */
+    public QueryFutureImpl(){
+        this(new Outcome<T>());
+    }
+
+    private QueryFutureImpl(Outcome<T> outcome){
+        super(outcome);
+        this.cancellationSignal = null;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Creates the future and runs it on the executor
+     * @param executor the executor
+     * @param callable the query
+     * @param <T> the result type
+     * @return the future
+     */
+    public static <T> QueryFuture<T> submit(Executor executor, Callable<T> callable){
+        QueryFutureImpl<T> future = new QueryFutureImpl<T>(callable, null);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Sets the result of a future that is completed by its owner
+     * @param value the result
+     */
+    public void complete(T value){
+        if(outcome == null) set(value);
+        else outcome.complete(this, value, null);
+    }
+
+    /**
+     * Sets the error of a future that is completed by its owner
+     * @param error the error
+     */
+    public void fail(Throwable error){
+        if(outcome == null) setException(error);
+        else outcome.complete(this, null, error);
+    }
+
+    @Override
+    public void run() {
+        // only completed by its owner
+        if(outcome == null || outcome.completing) super.run();
+    }
+
+    @Override
+    public QueryFuture<T> setCallback(Callback<T> callback) {
+        this.callback = callback;
+        if(isDone()) deliver();
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if(cancelled && cancellationSignal != null) cancelSignal();
+        return cancelled;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    protected void set(T value) {
+        super.set(value);
+        // nobody will ever get this cursor
+        if(isCancelled() && value instanceof Cursor) ((Cursor) value).close();
+    }
+
+    @Override
+    protected void done() {
+        deliver();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void deliver(){
+        Callback<T> callback = this.callback;
+        if(callback == null || !delivered.compareAndSet(false, true)) return;
+
+        T result;
+        try{
+            result = get();
+        }
+        catch (CancellationException e){
+            callback.onError(e);
+            return;
+        }
+        catch (ExecutionException e){
+            callback.onError(e.getCause());
+            return;
+        }
+        catch (InterruptedException e){
+            // the future is done, get() doesn't wait
+            Thread.currentThread().interrupt();
+            callback.onError(e);
+            return;
+        }
+        callback.onResult(result);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void cancelSignal(){
+        ((CancellationSignal) cancellationSignal).cancel();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * The result of a future completed by its owner, returned (or thrown) when the future runs
+     */
+    private static class Outcome<T> implements Callable<T> {
+        volatile boolean completing;
+        private T value;
+        private Throwable error;
+
+        synchronized void complete(QueryFutureImpl<T> future, T value, Throwable error){
+            if(completing) return;
+            this.value = value;
+            this.error = error;
+            this.completing = true;
+            future.run();
+        }
+
+        @Override
+        public T call() throws Exception {
+            if(error instanceof Exception) throw (Exception) error;
+            if(error instanceof Error) throw (Error) error;
+            if(error != null) throw new ExecutionException(error);
+            return value;
+        }
+    }
+}
@@ -27,10 +27,15 @@ import com.bingzer.android.dbv.utils.Utils;
 import com.bingzer.android.dbv.internal.Database;
 import com.bingzer.android.dbv.internal.Table;
 import com.bingzer.android.dbv.queries.Paging;
+import com.bingzer.android.dbv.queries.QueryFuture;
 import com.bingzer.android.dbv.queries.Select;
+import com.bingzer.android.dbv.queries.Subscription;
 import com.bingzer.android.dbv.utils.EntityUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 /**
 * Created by Ricky on 4/26/2014.
@@ -46,6 +51,8 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
     protected StringBuilder groupByString;
     protected StringBuilder havingString;
     protected StringBuilder whereString;
+    protected List<Object> whereArgs;
+    protected List<Object> havingArgs;
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
 
@@ -64,6 +71,8 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
         this.fromString = new StringBuilder("FROM ").append(table);
         this.limitString = new StringBuilder();
         this.whereString = new StringBuilder();
+        this.whereArgs = new ArrayList<Object>();
+        this.havingArgs = new ArrayList<Object>();
 
         if(distinct) selectString.append("DISTINCT ");
         if(top > 0) {
@@ -79,8 +88,9 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
             // append where if necessary
             if(!whereClause.toLowerCase(Locale.getDefault()).startsWith("where"))
                 whereString.append(" WHERE ");
-            // safely prepare the where part
-            whereString.append(Utils.bindArgs(whereClause, args));
+            // args are bound when the query is executed
+            whereString.append(whereClause);
+            Utils.appendArgs(whereArgs, whereClause, args);
         }
         return this;
     }
@@ -140,11 +150,32 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
     @SuppressWarnings("unchecked")
     public <E extends IEntity> void query(IEntityList<E> entityList) {
         final Cursor cursor = query();
-        EntityUtils.mapEntityListFromCursor(table, entityList, query());
+        EntityUtils.mapEntityListFromCursor(table, entityList, cursor);
 
         cursor.close();
     }
 
+    @Override
+    public QueryFuture<Cursor> queryAsync(Executor executor) {
+        return table.getDatabase().queryAsync(executor, this);
+    }
+
+    @Override
+    public <E extends IEntity> QueryFuture<IEntityList<E>> queryAsync(final IEntityList<E> entityList, Executor executor) {
+        return table.getDatabase().queryAsync(executor, new QueryImpl<IEntityList<E>>(){
+            @Override
+            public IEntityList<E> query() {
+                SelectImpl.this.query(entityList);
+                return entityList;
+            }
+        });
+    }
+
+    @Override
+    public Subscription observe(QueryFuture.Callback<Cursor> callback, Executor executor) {
+        return table.getDatabase().observe(this, callback, executor);
+    }
+
     @Override
     public Paging paging(int row) {
         return new PagingImpl(this, row);
@@ -170,8 +201,10 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
     public Having having(String clause, Object... args) {
         if(havingString == null) havingString = new StringBuilder();
         else havingString.delete(0, havingString.length());
+        havingArgs.clear();
         if(clause != null){
-            havingString.append("HAVING ").append(Utils.bindArgs(clause, args));
+            havingString.append("HAVING ").append(clause);
+            Utils.appendArgs(havingArgs, clause, args);
         }
 
         return this;
@@ -201,6 +234,18 @@ public abstract class SelectImpl extends QueryImpl<Cursor> implements Select, Se
         return value;
     }
 
+    /**
+     * Returns the arguments to bind to the sql returned by {@link #toString()}
+     * @return the arguments, in the order they appear in the sql
+     */
+    public Object[] getArgs(){
+        Object[] args = new Object[whereArgs.size() + havingArgs.size()];
+        int i = 0;
+        for(Object arg : whereArgs) args[i++] = arg;
+        for(Object arg : havingArgs) args[i++] = arg;
+        return args;
+    }
+
     @Override
     public String toString(){
         StringBuilder sql = new StringBuilder();
@@ -21,7 +21,7 @@ import com.bingzer.android.dbv.queries.Sum;
 * Created by Ricky on 4/26/2014.
 */
 public class SumImpl extends FunctionImpl implements Sum {
-    public SumImpl(String tableName, String columnName, String condition){
-        super("SUM", tableName, columnName, condition);
+    public SumImpl(String tableName, String columnName, String condition, Object... args){
+        super("SUM", tableName, columnName, condition, args);
     }
 }
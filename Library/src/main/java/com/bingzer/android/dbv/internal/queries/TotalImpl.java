@@ -21,7 +21,12 @@ import com.bingzer.android.dbv.queries.Total;
 * Created by Ricky on 4/26/2014.
 */
 public class TotalImpl extends FunctionImpl implements Total {
-    public TotalImpl(String tableName, String columnName, String condition){
-        super("TOTAL", tableName, columnName, condition);
+    public TotalImpl(String tableName, String columnName, String condition, Object... args){
+        super("TOTAL", tableName, columnName, condition, args);
+    }
+
+    @Override
+    public boolean isReal() {
+        return true;
     }
 }
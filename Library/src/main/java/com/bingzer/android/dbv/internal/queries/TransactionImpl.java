@@ -20,7 +20,9 @@ import com.bingzer.android.dbv.IDatabase;
 import com.bingzer.android.dbv.internal.Database;
 
 /**
- * Implements of {@link com.bingzer.android.dbv.IDatabase.Transaction}
+ * Implements of {@link com.bingzer.android.dbv.IDatabase.Transaction}.
+ * A transaction started inside another one is a savepoint
+ * (see {@link com.bingzer.android.dbv.internal.Database#begin()})
  *
  * Created by Ricky Tobing on 8/12/13.
  */
@@ -28,6 +30,7 @@ public class TransactionImpl implements IDatabase.Transaction {
 
     final Database database;
     final IDatabase.Batch batch;
+    IDatabase.ProgressListener listener;
 
     public TransactionImpl(Database database, IDatabase.Batch batch){
         this.database = database;
@@ -36,11 +39,16 @@ public class TransactionImpl implements IDatabase.Transaction {
 
     @Override
     public void commit() {
-        synchronized (this){
-            database.begin();
-            batch.exec(database);
-            database.commit();
-        }
+        database.begin();
+        if(listener != null) database.setProgressListener(listener);
+        batch.exec(database);
+        database.commit();
+    }
+
+    @Override
+    public IDatabase.Transaction setProgressListener(IDatabase.ProgressListener listener) {
+        this.listener = listener;
+        return this;
     }
 
     @Override
@@ -116,8 +116,23 @@ public abstract class UnionImpl extends SelectImpl implements Union, Distinguish
         return this;
     }
 
+    @Override
+    public Object[] getArgs() {
+        Object[] firstArgs = argsOf(firstSelect);
+        Object[] secondArgs = argsOf(secondSelect);
+        Object[] args = new Object[firstArgs.length + secondArgs.length];
+        System.arraycopy(firstArgs, 0, args, 0, firstArgs.length);
+        System.arraycopy(secondArgs, 0, args, firstArgs.length, secondArgs.length);
+        return args;
+    }
+
     @Override
     public String toString() {
         return String.valueOf(firstSelect) + " UNION " + (unionAll ? " ALL " : "") + secondSelect;
     }
+
+    private static Object[] argsOf(Select select){
+        if(select instanceof SelectImpl) return ((SelectImpl) select).getArgs();
+        return new Object[0];
+    }
 }
@@ -25,14 +25,13 @@ import com.bingzer.android.dbv.utils.ContentValuesUtils;
 * Created by Ricky on 4/26/2014.
 */
 public class UpdateImpl extends QueryImpl<Integer> implements Update, IQuery<Integer> {
-    private ContentSet<UpdateImpl> query;
-    protected ContentValues contentValues;
+    private ValueSet<UpdateImpl> query;
 
     public UpdateImpl(){
         this(null);
     }
 
-    public UpdateImpl(ContentSet<UpdateImpl> query){
+    public UpdateImpl(ValueSet<UpdateImpl> query){
         this.query = query;
         this.value = 0;
     }
@@ -49,33 +48,27 @@ public class UpdateImpl extends QueryImpl<Integer> implements Update, IQuery<Int
 
     @Override
     public IQuery<Integer> val(ContentValues values) {
-        contentValues = values;
+        String[] columnNames = new String[values.size()];
+        Object[] columnValues = new Object[values.size()];
+        ContentValuesUtils.mapColumnsAndValues(values, columnNames, columnValues);
 
-        return notifyContentValuesSet();
+        return notifyValuesSet(columnNames, columnValues);
     }
 
     @Override
     public IQuery<Integer> val(String column, Object value) {
-        contentValues = new ContentValues();
-        ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, column, value);
-
-        return notifyContentValuesSet();
+        return notifyValuesSet(new String[]{ column }, new Object[]{ value });
     }
 
     @Override
     public IQuery<Integer> val(String[] columnNames, Object[] values) {
-        contentValues = new ContentValues();
-        for(int i = 0; i < columnNames.length; i++){
-            ContentValuesUtils.mapContentValuesFromGenericObject(contentValues, columnNames[i], values[i]);
-        }
-
-        return notifyContentValuesSet();
+        return notifyValuesSet(columnNames, values);
     }
 
     // notify so that we can execute the update
-    private IQuery<Integer> notifyContentValuesSet(){
+    private IQuery<Integer> notifyValuesSet(String[] columnNames, Object[] values){
         if(query != null)
-            query.onContentValuesSet(this, contentValues);
+            query.onValuesSet(this, columnNames, values);
         return this;
     }
 }
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.internal.queries;
+
+import com.bingzer.android.dbv.queries.Upsert;
+
+/**
+ * Created by Ricky Tobing on 8/9/14.
+ */
+public class UpsertImpl extends QueryImpl<Integer> implements Upsert {
+
+    private int insertedCount;
+    private int updatedCount;
+
+    public UpsertImpl(){
+        // default if any error.
+        // -1 should be returned
+        this.value = -1;
+    }
+
+    /**
+     * Sets the counts, the value becomes the sum of them
+     * @param insertedCount number of entities inserted
+     * @param updatedCount number of entities updated
+     */
+    public void setCounts(int insertedCount, int updatedCount){
+        this.insertedCount = insertedCount;
+        this.updatedCount = updatedCount;
+        setValue(insertedCount + updatedCount);
+    }
+
+    @Override
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    @Override
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+}
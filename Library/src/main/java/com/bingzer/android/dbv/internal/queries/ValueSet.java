@@ -15,15 +15,13 @@
  */
 package com.bingzer.android.dbv.internal.queries;
 
-import android.content.ContentValues;
-
 import com.bingzer.android.dbv.queries.IQuery;
 
 /**
 * Created by Ricky on 4/26/2014.
 */
-public interface ContentSet<E extends IQuery> {
+public interface ValueSet<E extends IQuery> {
 
-    void onContentValuesSet(E query, ContentValues contentValues);
+    void onValuesSet(E query, String[] columns, Object[] values);
 
 }
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.queries;
+
+import com.bingzer.android.dbv.contracts.AsyncQueryable;
+
+import java.util.Map;
+
+/**
+ * Computes several aggregates in one query.
+ * <pre><code>
+ * Aggregate.Result result = db.get("Orders").aggregate("CustomerId = ?", 10)
+ *         .avg("Price").sum("Quantity").max("Date").count()
+ *         .query();
+ * double avgPrice = result.get(0).asDouble();
+ * long quantity = result.get(1).asLong();
+ * </code></pre>
+ * The aggregates above compile into a single
+ * <code>SELECT AVG(Price), SUM(Quantity), MAX(Date), COUNT(*) FROM Orders WHERE CustomerId = ?</code>.
+ * Values keep the type returned by sqlite: an integer is a <code>Long</code>,
+ * so large sums are never rounded to a <code>double</code>.
+ * <p>
+ *     Find a complete <code>Wiki</code> and documentation here:<br/>
+ *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
+ * </p>
+ */
+public interface Aggregate extends IQuery<Aggregate.Result>, AsyncQueryable<Aggregate.Result> {
+
+    /**
+     * Adds <code>AVG(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate avg(String columnName);
+
+    /**
+     * Adds <code>SUM(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate sum(String columnName);
+
+    /**
+     * Adds <code>TOTAL(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate total(String columnName);
+
+    /**
+     * Adds <code>MAX(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate max(String columnName);
+
+    /**
+     * Adds <code>MIN(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate min(String columnName);
+
+    /**
+     * Adds <code>COUNT(*)</code>
+     * @return this
+     */
+    Aggregate count();
+
+    /**
+     * Adds <code>COUNT(columnName)</code>
+     * @param columnName column name
+     * @return this
+     */
+    Aggregate count(String columnName);
+
+    /**
+     * Computes the aggregates for each group
+     * @param columns the columns to group by
+     * @return {@link com.bingzer.android.dbv.queries.Aggregate.Grouped}
+     */
+    Grouped groupBy(String... columns);
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Aggregates by group. <code>query()</code> returns the results keyed by group,
+     * in the order returned by sqlite. The key is the value of the group column,
+     * or a <code>List</code> of values when grouped by more than one column.
+     */
+    public static interface Grouped extends IQuery<Map<Object, Result>>, AsyncQueryable<Map<Object, Result>> {
+    }
+
+    /**
+     * The result of an {@link com.bingzer.android.dbv.queries.Aggregate}
+     */
+    public static interface Result {
+
+        /**
+         * Returns the number of aggregates
+         * @return the number of aggregates
+         */
+        int size();
+
+        /**
+         * Returns the value of an aggregate
+         * @param index index of the aggregate, in the order they are added
+         * @return the value
+         */
+        IFunction get(int index);
+    }
+}
@@ -17,9 +17,12 @@ package com.bingzer.android.dbv.queries;
 
 import android.database.Cursor;
 
+import com.bingzer.android.dbv.contracts.AsyncEntitySelectable;
+import com.bingzer.android.dbv.contracts.AsyncQueryable;
 import com.bingzer.android.dbv.contracts.ColumnSelectable;
 import com.bingzer.android.dbv.contracts.CursorEnumerable;
 import com.bingzer.android.dbv.contracts.EntitySelectable;
+import com.bingzer.android.dbv.contracts.ObservableQueryable;
 import com.bingzer.android.dbv.contracts.Pagination;
 
 /**
@@ -33,7 +36,9 @@ import com.bingzer.android.dbv.contracts.Pagination;
  */
 public interface GroupBy extends IQuery<Cursor>,
                                     EntitySelectable, ColumnSelectable,
-                                    Pagination, CursorEnumerable {
+                                    Pagination, CursorEnumerable,
+                                    AsyncQueryable<Cursor>, AsyncEntitySelectable,
+                                    ObservableQueryable<Cursor> {
 
     /**
      * Adds a <code>HAVING</code> statement
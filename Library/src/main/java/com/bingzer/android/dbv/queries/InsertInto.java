@@ -29,4 +29,48 @@ public interface InsertInto {
      * @return {@link com.bingzer.android.dbv.queries.IQuery}
      */
     IQuery<Long> val(Object... values);
+
+    /**
+     * Starts a batch to insert many rows with the same columns.
+     * The rows are inserted in a single transaction using one compiled statement.
+     * {@link com.bingzer.android.dbv.queries.InsertInto.Batch#query()} must be called
+     * to finish the batch.
+     * <p>
+     * <pre><code>
+     * InsertInto.Batch batch = db.get("Products").insertInto("Name", "Price").batch();
+     * for(Product product : products){
+     *     batch.val(product.name, product.price);
+     * }
+     * long numInserted = batch.query();
+     * </code></pre>
+     * </p>
+     * @return {@link com.bingzer.android.dbv.queries.InsertInto.Batch}
+     */
+    Batch batch();
+
+    /**
+     * Represents a batch of rows to insert
+     */
+    public static interface Batch extends IQuery<Long> {
+
+        /**
+         * Inserts a row
+         * @param values values for each column
+         * @return this batch
+         */
+        Batch val(Object... values);
+
+        /**
+         * Finishes the batch (commits the transaction)
+         * @return the number of rows inserted
+         */
+        @Override
+        Long query();
+
+        /**
+         * Returns how many rows are inserted per second
+         * @return rows per second
+         */
+        double getRowsPerSecond();
+    }
 }
@@ -19,6 +19,8 @@ import android.database.Cursor;
 
 import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.IEntityList;
+import com.bingzer.android.dbv.contracts.AsyncEntitySelectable;
+import com.bingzer.android.dbv.contracts.AsyncQueryable;
 import com.bingzer.android.dbv.contracts.ColumnSelectable;
 import com.bingzer.android.dbv.contracts.CursorEnumerable;
 import com.bingzer.android.dbv.contracts.EntitySelectable;
@@ -30,7 +32,8 @@ import com.bingzer.android.dbv.contracts.EntitySelectable;
  *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
  * </p>
  */
-public interface Paging extends IQuery<Cursor>, EntitySelectable, CursorEnumerable {
+public interface Paging extends IQuery<Cursor>, EntitySelectable, CursorEnumerable,
+                                    AsyncQueryable<Cursor>, AsyncEntitySelectable {
 
     /**
      * Returns the number of row set in the beginning.
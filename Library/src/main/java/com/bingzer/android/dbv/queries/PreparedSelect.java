@@ -0,0 +1,63 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.queries;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.IEntity;
+import com.bingzer.android.dbv.IEntityList;
+
+/**
+ * Represents a prepared select statement.
+ * The sql is rendered once, only the arguments change
+ * between queries. A prepared select holds no state between queries
+ * and can be shared across threads.
+ * <p>
+ *     Find a complete <code>Wiki</code> and documentation here:<br/>
+ *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
+ * </p>
+ *
+ * @see com.bingzer.android.dbv.contracts.Preparable
+ */
+public interface PreparedSelect {
+
+    /**
+     * Query with the given arguments
+     * @param args arguments, one for each '?'. When none are given the arguments
+     *             passed to the prepared select are used
+     * @return the cursor
+     * @throws IllegalArgumentException if the number of arguments doesn't match
+     */
+    Cursor query(Object... args);
+
+    /**
+     * Query with the given arguments and store the first row
+     * to an {@link com.bingzer.android.dbv.IEntity}
+     * @param entity the IEntity object
+     * @param args arguments, one for each '?'
+     */
+    void query(IEntity entity, Object... args);
+
+    /**
+     * Query with the given arguments and store the result
+     * to an {@link com.bingzer.android.dbv.IEntityList}
+     * @param entityList the IEntityList object
+     * @param args arguments, one for each '?'
+     * @param <E> IEntity
+     */
+    <E extends IEntity> void query(IEntityList<E> entityList, Object... args);
+
+}
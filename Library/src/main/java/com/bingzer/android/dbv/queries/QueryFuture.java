@@ -0,0 +1,72 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.queries;
+
+import java.util.concurrent.Future;
+
+/**
+ * The pending result of a query running on an executor.
+ * <code>cancel(true)</code> stops the query in sqlite (Jelly Bean and later)
+ * and cursors returned after the future has been cancelled are closed.
+ * <pre><code>
+ * db.get("Customers").select("Country = ?", "US").queryAsync(null)
+ *         .setCallback(new QueryFuture.Callback&lt;Cursor&gt;(){
+ *             public void onResult(Cursor cursor){
+ *                 ...
+ *             }
+ *             public void onError(Throwable error){
+ *                 ...
+ *             }
+ *         });
+ * </code></pre>
+ * <p>
+ *     Find a complete <code>Wiki</code> and documentation here:<br/>
+ *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
+ * </p>
+ */
+public interface QueryFuture<T> extends Future<T> {
+
+    /**
+     * Sets the callback to call when the query is done.
+     * The callback is called on the thread that ran the query
+     * (or right away on the caller's thread if the query is already done).
+     * Post to a <code>Handler</code> to get back to the main thread.
+     * @param callback the callback
+     * @return this
+     */
+    QueryFuture<T> setCallback(Callback<T> callback);
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Called once when the query is done
+     */
+    public static interface Callback<T> {
+
+        /**
+         * Called with the result of the query
+         * @param result the result
+         */
+        void onResult(T result);
+
+        /**
+         * Called when the query has failed or has been cancelled
+         * (with a <code>CancellationException</code>)
+         * @param error the error
+         */
+        void onError(Throwable error);
+    }
+}
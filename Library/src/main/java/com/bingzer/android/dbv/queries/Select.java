@@ -17,10 +17,13 @@ package com.bingzer.android.dbv.queries;
 
 import android.database.Cursor;
 
+import com.bingzer.android.dbv.contracts.AsyncEntitySelectable;
+import com.bingzer.android.dbv.contracts.AsyncQueryable;
 import com.bingzer.android.dbv.contracts.ColumnSelectable;
 import com.bingzer.android.dbv.contracts.CursorEnumerable;
 import com.bingzer.android.dbv.contracts.EntitySelectable;
 import com.bingzer.android.dbv.contracts.Groupable;
+import com.bingzer.android.dbv.contracts.ObservableQueryable;
 import com.bingzer.android.dbv.contracts.Pagination;
 
 /**
@@ -31,6 +34,7 @@ import com.bingzer.android.dbv.contracts.Pagination;
  * </p>
  */
 public interface Select extends IQuery<Cursor>, EntitySelectable,
+                                    AsyncQueryable<Cursor>, AsyncEntitySelectable, ObservableQueryable<Cursor>,
                                     CursorEnumerable, ColumnSelectable,
                                     Pagination, Groupable /*,Unionable*/ {
 
@@ -61,6 +65,7 @@ public interface Select extends IQuery<Cursor>, EntitySelectable,
      * Order By
      */
     public static interface OrderBy extends IQuery<Cursor>, EntitySelectable,
+                                                AsyncQueryable<Cursor>, AsyncEntitySelectable, ObservableQueryable<Cursor>,
                                                 CursorEnumerable, ColumnSelectable,
                                                 Pagination, Groupable {
 
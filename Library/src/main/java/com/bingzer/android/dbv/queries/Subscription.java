@@ -0,0 +1,40 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.queries;
+
+/**
+ * An observed query, returned by
+ * {@link com.bingzer.android.dbv.contracts.ObservableQueryable#observe(com.bingzer.android.dbv.queries.QueryFuture.Callback, java.util.concurrent.Executor)}
+ * <p>
+ *     Find a complete <code>Wiki</code> and documentation here:<br/>
+ *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
+ * </p>
+ */
+public interface Subscription {
+
+    /**
+     * Stops observing. A query that is running is cancelled,
+     * results that come after are dropped (and their cursors closed)
+     */
+    void unsubscribe();
+
+    /**
+     * True if {@link #unsubscribe()} has been called
+     * @return true if unsubscribed
+     */
+    boolean isUnsubscribed();
+
+}
@@ -17,8 +17,11 @@ package com.bingzer.android.dbv.queries;
 
 import android.database.Cursor;
 
+import com.bingzer.android.dbv.contracts.AsyncEntitySelectable;
+import com.bingzer.android.dbv.contracts.AsyncQueryable;
 import com.bingzer.android.dbv.contracts.ColumnSelectable;
 import com.bingzer.android.dbv.contracts.EntitySelectable;
+import com.bingzer.android.dbv.contracts.ObservableQueryable;
 import com.bingzer.android.dbv.contracts.Selectable;
 
 /**
@@ -30,6 +33,7 @@ import com.bingzer.android.dbv.contracts.Selectable;
  */
 public interface Union extends IQuery<Cursor>,
                                     EntitySelectable, ColumnSelectable,
-                                    Selectable {
+                                    Selectable, AsyncQueryable<Cursor>, AsyncEntitySelectable,
+                                    ObservableQueryable<Cursor> {
 
 }
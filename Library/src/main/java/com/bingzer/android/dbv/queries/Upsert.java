@@ -0,0 +1,40 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.queries;
+
+/**
+ * Represents an upsert (update or insert) of entities.
+ * <code>query()</code> returns the number of entities written
+ * (or -1 if there's an error and the transaction is rollback-ed).
+ * <p>
+ *     Find a complete <code>Wiki</code> and documentation here:<br/>
+ *     <a href="https://github.com/bingzer/DbQuery/wiki">https://github.com/bingzer/DbQuery/wiki</a>
+ * </p>
+ */
+public interface Upsert extends IQuery<Integer> {
+
+    /**
+     * Returns the number of entities inserted
+     * @return the number of entities inserted
+     */
+    int getInsertedCount();
+
+    /**
+     * Returns the number of entities updated
+     * @return the number of entities updated
+     */
+    int getUpdatedCount();
+}
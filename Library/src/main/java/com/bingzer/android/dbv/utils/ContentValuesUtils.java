@@ -18,10 +18,11 @@ package com.bingzer.android.dbv.utils;
 import android.content.ContentValues;
 
 import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.EntityBinder;
 import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.contracts.PrimaryKeyIdentifier;
 
-import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Created by Ricky on 4/26/2014.
@@ -52,6 +53,23 @@ public final class ContentValuesUtils {
         else throw new IllegalArgumentException("Unmapped");
     }
 
+    /**
+     * Copy the columns and values of a ContentValues into arrays.
+     * Both arrays must be as long as {@link ContentValues#size()}
+     *
+     * @param contentValues the content values
+     * @param columns array to receive the column names
+     * @param values array to receive the values
+     */
+    public static void mapColumnsAndValues(ContentValues contentValues, String[] columns, Object[] values){
+        int i = 0;
+        for(Map.Entry<String, Object> entry : contentValues.valueSet()){
+            columns[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+    }
+
     /**
      * Map {@link com.bingzer.android.dbv.Delegate} to ContentValues.
      * The value will be retrieved get action.get()
@@ -61,7 +79,12 @@ public final class ContentValuesUtils {
      * @param delegate the action
      */
     public static void mapContentValuesFromDelegate(ContentValues contentValues, String key, Delegate delegate){
-        if(delegate.get() == null) contentValues.putNull(key);
+        // primitives are never null
+        if(delegate instanceof Delegate.IntDelegate) contentValues.put(key, ((Delegate.IntDelegate) delegate).getInt());
+        else if(delegate instanceof Delegate.LongDelegate) contentValues.put(key, ((Delegate.LongDelegate) delegate).getLong());
+        else if(delegate instanceof Delegate.DoubleDelegate) contentValues.put(key, ((Delegate.DoubleDelegate) delegate).getDouble());
+        else if(delegate instanceof Delegate.BooleanDelegate) contentValues.put(key, ((Delegate.BooleanDelegate) delegate).getBoolean());
+        else if(delegate.get() == null) contentValues.putNull(key);
         else if(delegate.getType() == String.class) contentValues.put(key, (String) delegate.get());
         else if(delegate.getType() == Integer.class) contentValues.put(key, (Integer) delegate.get());
         else if(delegate.getType() == Boolean.class) contentValues.put(key, (Boolean) delegate.get());
@@ -110,9 +133,17 @@ public final class ContentValuesUtils {
      * @param entity the entity
      * @return ContentValues
      */
+    @SuppressWarnings("unchecked")
     public static ContentValues generateContentValuesFromEntity(PrimaryKeyIdentifier identifier, IEntity entity){
         final ContentValues contentValues = new ContentValues();
-        mapContentValuesFromEntity(contentValues, identifier, entity);
+        EntityBinder binder = EntityUtils.getBinder(entity.getClass());
+        if(binder != null){
+            contentValues.put(identifier.getPrimaryKeyColumn(), entity.getId());
+            binder.writeToContentValues(entity, contentValues);
+        }
+        else {
+            mapContentValuesFromEntity(contentValues, identifier, entity);
+        }
 
         return contentValues;
     }
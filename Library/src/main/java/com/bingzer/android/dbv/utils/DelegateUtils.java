@@ -18,6 +18,8 @@ package com.bingzer.android.dbv.utils;
 import android.annotation.TargetApi;
 import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteProgram;
 import android.os.Build;
 
 import com.bingzer.android.dbv.Delegate;
@@ -26,6 +28,20 @@ import com.bingzer.android.dbv.Delegate;
  * Created by Ricky on 4/26/2014.
  */
 public final class DelegateUtils {
+    static final int TYPE_STRING = 1;
+    static final int TYPE_INTEGER = 2;
+    static final int TYPE_BOOLEAN = 3;
+    static final int TYPE_DOUBLE = 4;
+    static final int TYPE_LONG = 5;
+    static final int TYPE_SHORT = 6;
+    static final int TYPE_FLOAT = 7;
+    static final int TYPE_BYTES = 8;
+    static final int TYPE_OBJECT = 9;
+    static final int TYPE_INT_PRIMITIVE = 10;
+    static final int TYPE_LONG_PRIMITIVE = 11;
+    static final int TYPE_DOUBLE_PRIMITIVE = 12;
+    static final int TYPE_BOOLEAN_PRIMITIVE = 13;
+
     /**
      * Map action get a cursor. Based on what type of an action is, this method will
      * map the value get cursor.getXXX() where XXX is a type.
@@ -34,22 +50,119 @@ public final class DelegateUtils {
      * @param cursor the target cursor
      * @param index the index in the cursor
      */
-    @SuppressWarnings("unchecked")
     public static void mapDelegateFromCursor(Delegate delegate, Cursor cursor, int index){
-        if(delegate.getType() == String.class) delegate.set(cursor.getString(index));
-        else if(delegate.getType() == Integer.class) delegate.set(cursor.getInt(index));
-        else if(delegate.getType() == Boolean.class) delegate.set(cursor.getInt(index) == 1);
-        else if(delegate.getType() == Double.class) delegate.set(cursor.getDouble(index));
-        else if(delegate.getType() == Long.class) delegate.set(cursor.getLong(index));
-        else if(delegate.getType() == Short.class) delegate.set(cursor.getShort(index));
-        else if(delegate.getType() == Float.class) delegate.set(cursor.getFloat(index));
-        else if(delegate.getType() == byte[].class) delegate.set(cursor.getBlob(index));
-        else if(delegate.getType() == Object.class) delegate.set(getObjectFromCursor(cursor, index));
+        mapDelegateFromCursor(delegate, getTypeOf(delegate), cursor, index);
+    }
+
+    /**
+     * Returns the type of the delegate as one of the TYPE_XXX constants
+     * @param delegate the delegate
+     * @return the type
+     */
+    static int getTypeOf(Delegate delegate){
+        if(delegate instanceof Delegate.IntDelegate) return TYPE_INT_PRIMITIVE;
+        else if(delegate instanceof Delegate.LongDelegate) return TYPE_LONG_PRIMITIVE;
+        else if(delegate instanceof Delegate.DoubleDelegate) return TYPE_DOUBLE_PRIMITIVE;
+        else if(delegate instanceof Delegate.BooleanDelegate) return TYPE_BOOLEAN_PRIMITIVE;
+
+        Class<?> type = delegate.getType();
+        if(type == String.class) return TYPE_STRING;
+        else if(type == Integer.class) return TYPE_INTEGER;
+        else if(type == Boolean.class) return TYPE_BOOLEAN;
+        else if(type == Double.class) return TYPE_DOUBLE;
+        else if(type == Long.class) return TYPE_LONG;
+        else if(type == Short.class) return TYPE_SHORT;
+        else if(type == Float.class) return TYPE_FLOAT;
+        else if(type == byte[].class) return TYPE_BYTES;
+        else if(type == Object.class) return TYPE_OBJECT;
 
         // TODO: Fix the exception message
         else throw new IllegalArgumentException("Unmapped");
     }
 
+    /**
+     * Map action get a cursor using a type already resolved by {@link #getTypeOf(Delegate)}
+     * @param delegate the action to map
+     * @param type the type of the delegate
+     * @param cursor the target cursor
+     * @param index the index in the cursor
+     */
+    @SuppressWarnings("unchecked")
+    static void mapDelegateFromCursor(Delegate delegate, int type, Cursor cursor, int index){
+        switch (type){
+            case TYPE_STRING:
+                delegate.set(cursor.getString(index));
+                break;
+            case TYPE_INTEGER:
+                delegate.set(cursor.getInt(index));
+                break;
+            case TYPE_BOOLEAN:
+                delegate.set(cursor.getInt(index) == 1);
+                break;
+            case TYPE_DOUBLE:
+                delegate.set(cursor.getDouble(index));
+                break;
+            case TYPE_LONG:
+                delegate.set(cursor.getLong(index));
+                break;
+            case TYPE_SHORT:
+                delegate.set(cursor.getShort(index));
+                break;
+            case TYPE_FLOAT:
+                delegate.set(cursor.getFloat(index));
+                break;
+            case TYPE_BYTES:
+                delegate.set(cursor.getBlob(index));
+                break;
+            case TYPE_OBJECT:
+                delegate.set(getObjectFromCursor(cursor, index));
+                break;
+            case TYPE_INT_PRIMITIVE:
+                ((Delegate.IntDelegate) delegate).setInt(cursor.getInt(index));
+                break;
+            case TYPE_LONG_PRIMITIVE:
+                ((Delegate.LongDelegate) delegate).setLong(cursor.getLong(index));
+                break;
+            case TYPE_DOUBLE_PRIMITIVE:
+                ((Delegate.DoubleDelegate) delegate).setDouble(cursor.getDouble(index));
+                break;
+            case TYPE_BOOLEAN_PRIMITIVE:
+                ((Delegate.BooleanDelegate) delegate).setBoolean(cursor.getInt(index) == 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Unmapped");
+        }
+    }
+
+    /**
+     * Binds the value of a delegate to a compiled statement.
+     * Primitive delegates (i.e: {@link com.bingzer.android.dbv.Delegate.IntDelegate})
+     * are bound without boxing.
+     *
+     * @param program the compiled statement
+     * @param index the index of the parameter (starts at 1)
+     * @param delegate the delegate to get the value from
+     */
+    public static void bindDelegate(SQLiteProgram program, int index, Delegate delegate){
+        switch (getTypeOf(delegate)){
+            case TYPE_INT_PRIMITIVE:
+                program.bindLong(index, ((Delegate.IntDelegate) delegate).getInt());
+                break;
+            case TYPE_LONG_PRIMITIVE:
+                program.bindLong(index, ((Delegate.LongDelegate) delegate).getLong());
+                break;
+            case TYPE_DOUBLE_PRIMITIVE:
+                program.bindDouble(index, ((Delegate.DoubleDelegate) delegate).getDouble());
+                break;
+            case TYPE_BOOLEAN_PRIMITIVE:
+                program.bindLong(index, ((Delegate.BooleanDelegate) delegate).getBoolean() ? 1 : 0);
+                break;
+            default:
+                DatabaseUtils.bindObjectToProgram(program, index, delegate.get());
+                break;
+        }
+    }
+
     /**
      * Try to get an 'object' get a cursor
      * @param cursor the target cursor
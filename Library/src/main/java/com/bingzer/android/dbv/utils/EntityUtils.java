@@ -17,15 +17,28 @@ package com.bingzer.android.dbv.utils;
 
 import android.database.Cursor;
 
-import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.EntityBinder;
 import com.bingzer.android.dbv.IEntity;
 import com.bingzer.android.dbv.IEntityList;
 import com.bingzer.android.dbv.contracts.PrimaryKeyIdentifier;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created by Ricky on 4/26/2014.
  */
 public final class EntityUtils {
+
+    /**
+     * Suffix of the binders generated by the annotation processor
+     */
+    public static final String BINDER_SUFFIX = "_DbQueryBinder";
+
+    private static final Map<Class<?>, EntityBinder> binders = new HashMap<Class<?>, EntityBinder>();
+
     /**
      * Maps an entity get a cursor. Cursor will NOT be automatically closed.
      * <br/>IMPORTANT: Close it after calling this method
@@ -44,17 +57,15 @@ public final class EntityUtils {
      * @param entity the entity to map
      * @param cursor the cursor
      */
+    @SuppressWarnings("unchecked")
     public static void mapEntityFromCursor(PrimaryKeyIdentifier identifier, IEntity entity, Cursor cursor){
-        Delegate.Mapper mapper = new Delegate.Mapper(identifier);
-        entity.map(mapper);
-
-        for(int i = 0; i < cursor.getColumnCount(); i++){
-            String columnName = cursor.getColumnName(i);
-            Delegate delegate = mapper.get(columnName);
-            if(delegate != null){
-                DelegateUtils.mapDelegateFromCursor(delegate, cursor, i);
-            }
+        EntityBinder binder = getBinder(entity.getClass());
+        if(binder != null){
+            binder.readFromCursor(entity, cursor, binder.getColumnIndexes(identifier, cursor));
+            return;
         }
+
+        MappingPlan.get(identifier, entity, cursor).newBinder(identifier, cursor).bind(entity);
     }
 
     /**
@@ -65,40 +76,130 @@ public final class EntityUtils {
      * @param cursor the cursor
      * @param <E> type of IEntity
      */
-    @SuppressWarnings("unchecked")
     public static <E extends IEntity> void mapEntityListFromCursor(PrimaryKeyIdentifier identifier, IEntityList<E> entityList, Cursor cursor){
-        Delegate.Mapper mapper = new Delegate.Mapper(identifier);
+        mapEntityListFromCursor(identifier, entityList, cursor, null);
+    }
+
+    /**
+     * Maps an entity list get cursor. Cursor will NOT be automatically closed.
+     * It's important for you to close it after calling this method.
+     * <p>
+     * Entities already in the list are merged by their id: a row whose id
+     * is found in the list updates that entity, other rows are added as new entities.
+     * The existing entities are indexed once so each row is matched in O(1).
+     * </p>
+     * <p><pre><code>
+     *   EntityUtils.MergeReport&lt;Person&gt; report = new EntityUtils.MergeReport&lt;Person&gt;();
+     *   Cursor cursor = db.get(\"Person\").select().query();
+     *   EntityUtils.mapEntityListFromCursor(db.get(\"Person\"), personList, cursor, report);
+     *   cursor.close();
+     *   ...
+     *   report.getAdded();
+     * </code></pre></p>
+     *
+     * @param identifier the table
+     * @param entityList the list to map
+     * @param cursor the cursor
+     * @param report receives the updated, added and untouched entities (may be null)
+     * @param <E> type of IEntity
+     */
+    public static <E extends IEntity> void mapEntityListFromCursor(PrimaryKeyIdentifier identifier, IEntityList<E> entityList, Cursor cursor, MergeReport<E> report){
+        // index the entities that are already in the list (once)
+        final List<E> entities = new ArrayList<E>();
+        for(E e : entityList){
+            entities.add(e);
+        }
+        final int existingCount = entities.size();
+        final LongIndex index = new LongIndex(existingCount);
+        for(int i = 0; i < existingCount; i++){
+            index.putIfAbsent(entities.get(i).getId(), i);
+        }
+        final boolean[] merged = new boolean[existingCount];
+
+        final int columnIdIndex = cursor.getColumnIndex(identifier.getPrimaryKeyColumn());
+        MappingPlan.Binder binder = null;
+        EntityBinder entityBinder = null;
+        int[] indexes = null;
         while(cursor.moveToNext()){
-            int columnIdIndex = cursor.getColumnIndex(identifier.getPrimaryKeyColumn());
-            int id = -1;
-            if(columnIdIndex >= 0) id = cursor.getInt(columnIdIndex);
-
-            E entity = null;
-            for(IEntity e : entityList){
-                if(e.getId() == id){
-                    entity = (E)e;
-                    break;
+            long id = -1;
+            if(columnIdIndex >= 0) id = cursor.getLong(columnIdIndex);
+
+            E entity;
+            int position = index.get(id);
+            if(position >= 0){
+                entity = entities.get(position);
+                if(position < existingCount && !merged[position]){
+                    merged[position] = true;
+                    if(report != null) report.updated.add(entity);
                 }
             }
-            if(entity == null){
+            else{
                 // creates new generic entity
                 entity = entityList.newEntity();
                 // add to the collection
                 entityList.add(entity);
+                index.putIfAbsent(id, entities.size());
+                entities.add(entity);
+                if(report != null) report.added.add(entity);
             }
 
-            // clear the mapper
-            mapper.clear();
-            // assign the mapper
-            entity.map(mapper);
-            for(int i = 0; i < cursor.getColumnCount(); i++){
-                String columnName = cursor.getColumnName(i);
-                Delegate delegate = mapper.get(columnName);
-                if(delegate != null){
-                    DelegateUtils.mapDelegateFromCursor(delegate, cursor, i);
-                }
+            // generated binder or the plan is worked out from the first entity
+            if(indexes == null && binder == null){
+                entityBinder = getBinder(entity.getClass());
+                if(entityBinder != null) indexes = entityBinder.getColumnIndexes(identifier, cursor);
+                else binder = MappingPlan.get(identifier, entity, cursor).newBinder(identifier, cursor);
             }
+
+            if(entityBinder != null) readFromCursor(entityBinder, entity, cursor, indexes);
+            else binder.bind(entity);
         }// end while
+
+        if(report != null){
+            for(int i = 0; i < existingCount; i++){
+                if(!merged[i]) report.untouched.add(entities.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the binder generated by the annotation processor for an entity class.
+     * The generated class is looked up once per entity class.
+     * A class that has no binder of its own uses the binder of its super class.
+     * @param entityClass the entity class (annotated with {@link com.bingzer.android.dbv.annotations.Bindable})
+     * @param <E> type of IEntity
+     * @return the binder or null if the class was not processed
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends IEntity> EntityBinder<E> getBinder(Class<E> entityClass){
+        synchronized (binders){
+            if(binders.containsKey(entityClass)) return binders.get(entityClass);
+
+            EntityBinder<E> binder = null;
+            try{
+                Class<?> binderClass = Class.forName(entityClass.getName() + BINDER_SUFFIX, true, entityClass.getClassLoader());
+                binder = (EntityBinder<E>) binderClass.newInstance();
+            }
+            catch (ClassNotFoundException e){
+                // not annotated (Delegates are used) or only inherits the annotation
+                Class<?> superclass = entityClass.getSuperclass();
+                if(superclass != null && IEntity.class.isAssignableFrom(superclass))
+                    binder = (EntityBinder<E>) getBinder((Class<E>) superclass);
+            }
+            catch (InstantiationException e){
+                throw new IllegalStateException(e);
+            }
+            catch (IllegalAccessException e){
+                throw new IllegalStateException(e);
+            }
+
+            binders.put(entityClass, binder);
+            return binder;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readFromCursor(EntityBinder binder, IEntity entity, Cursor cursor, int[] indexes){
+        binder.readFromCursor(entity, cursor, indexes);
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -106,4 +207,41 @@ public final class EntityUtils {
     private EntityUtils() {
         // nothing
     }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Tells what happened to each entity after
+     * {@link #mapEntityListFromCursor(PrimaryKeyIdentifier, IEntityList, Cursor, MergeReport)}
+     * @param <E> type of IEntity
+     */
+    public static class MergeReport<E extends IEntity> {
+        final List<E> updated = new ArrayList<E>();
+        final List<E> added = new ArrayList<E>();
+        final List<E> untouched = new ArrayList<E>();
+
+        /**
+         * Returns the entities that were already in the list and found in the cursor
+         * @return the updated entities
+         */
+        public List<E> getUpdated() {
+            return updated;
+        }
+
+        /**
+         * Returns the entities created for rows that were not in the list
+         * @return the added entities
+         */
+        public List<E> getAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the entities that were already in the list and not found in the cursor
+         * @return the untouched entities
+         */
+        public List<E> getUntouched() {
+            return untouched;
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.utils;
+
+/**
+ * Open addressing hash map of primitive <code>long</code> keys to
+ * <code>int</code> positions. No boxing, so finding an entity by its id
+ * is O(1) even for very large lists.
+ *
+ * Created by Ricky Tobing on 8/6/14.
+ */
+final class LongIndex {
+
+    private long[] keys;
+    // position + 1, 0 means the slot is empty
+    private int[] values;
+    private int size;
+
+    LongIndex(int expectedSize){
+        int capacity = 16;
+        while(capacity < expectedSize * 2) capacity <<= 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Returns the position of the key
+     * @param key the key
+     * @return the position or -1 if the key is not found
+     */
+    int get(long key){
+        int mask = keys.length - 1;
+        for(int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask){
+            if(keys[slot] == key) return values[slot] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Puts the key unless it is already in the index
+     * (the first position of a key wins)
+     * @param key the key
+     * @param position the position (0 or more)
+     */
+    void putIfAbsent(long key, int position){
+        if((size + 1) * 2 > keys.length) grow();
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        for(; values[slot] != 0; slot = (slot + 1) & mask){
+            if(keys[slot] == key) return;
+        }
+        keys[slot] = key;
+        values[slot] = position + 1;
+        size++;
+    }
+
+    int size(){
+        return size;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void grow(){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+
+        int mask = keys.length - 1;
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldValues[i] == 0) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while(values[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int hash(long key){
+        int h = (int) (key ^ (key >>> 32));
+        // spread the bits, ids are usually sequential
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.utils;
+
+import android.database.Cursor;
+
+import com.bingzer.android.dbv.Delegate;
+import com.bingzer.android.dbv.IEntity;
+import com.bingzer.android.dbv.contracts.PrimaryKeyIdentifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mapping plan for an entity class and a cursor column layout.
+ * The plan is worked out once: for every column the entity maps (in the
+ * order the entity maps them), the plan knows the cursor index and the
+ * type of the delegate. Mapping a row is then a walk through
+ * {@link IEntity#map(IEntity.Mapper)} with no column name lookup
+ * and no type checks.
+ *
+ * Created by Ricky Tobing on 8/3/14.
+ */
+final class MappingPlan {
+
+    private static final int MAX_PLANS = 64;
+    private static final Map<String, MappingPlan> plans = new LinkedHashMap<String, MappingPlan>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MappingPlan> eldest) {
+            return size() > MAX_PLANS;
+        }
+    };
+
+    private final String[] columns;
+    private final Class<?>[] types;
+    private final int[] typeIds;
+    private final int[] indexes;
+
+    private MappingPlan(List<String> columns, List<Delegate> delegates, String[] cursorColumns){
+        int size = columns.size();
+        this.columns = columns.toArray(new String[size]);
+        this.types = new Class<?>[size];
+        this.typeIds = new int[size];
+        this.indexes = new int[size];
+
+        for(int i = 0; i < size; i++){
+            Delegate delegate = delegates.get(i);
+            types[i] = delegate.getClass();
+            indexes[i] = lastIndexOf(cursorColumns, this.columns[i]);
+            // only resolve types that will be read
+            if(indexes[i] >= 0) typeIds[i] = DelegateUtils.getTypeOf(delegate);
+        }
+    }
+
+    /**
+     * Returns the plan to map the entity from the cursor.
+     * The plan is computed once for each entity class and cursor columns.
+     * @param identifier the table
+     * @param entity an entity of the class to map
+     * @param cursor the cursor
+     * @return the mapping plan
+     */
+    static MappingPlan get(PrimaryKeyIdentifier identifier, IEntity entity, Cursor cursor){
+        String[] cursorColumns = cursor.getColumnNames();
+        String key = entity.getClass().getName() + "|" + identifier.getPrimaryKeyColumn() + "|" + Utils.join(",", cursorColumns);
+
+        MappingPlan plan;
+        synchronized (plans){
+            plan = plans.get(key);
+        }
+
+        if(plan == null){
+            // record what the entity maps
+            Recorder recorder = new Recorder(identifier);
+            entity.map(recorder);
+            plan = new MappingPlan(recorder.columns, recorder.delegates, cursorColumns);
+
+            synchronized (plans){
+                plans.put(key, plan);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Creates a binder that maps entities from the current row of the cursor.
+     * A binder is not thread-safe, create one per cursor.
+     * @param identifier the table
+     * @param cursor the cursor
+     * @return the binder
+     */
+    Binder newBinder(PrimaryKeyIdentifier identifier, Cursor cursor){
+        return new Binder(identifier, cursor);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private static int lastIndexOf(String[] cursorColumns, String column){
+        // when the same column name appears twice (i.e: joins)
+        // the last one wins
+        for(int i = cursorColumns.length - 1; i >= 0; i--){
+            if(cursorColumns[i].equals(column)) return i;
+        }
+        return -1;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Maps the entity from the current row
+     */
+    final class Binder implements IEntity.Mapper {
+        private final PrimaryKeyIdentifier identifier;
+        private final Cursor cursor;
+        private final String[] cursorColumns;
+        private int position;
+
+        Binder(PrimaryKeyIdentifier identifier, Cursor cursor){
+            this.identifier = identifier;
+            this.cursor = cursor;
+            this.cursorColumns = cursor.getColumnNames();
+        }
+
+        void bind(IEntity entity){
+            position = 0;
+            entity.map(this);
+        }
+
+        @Override
+        public void map(String column, Delegate delegate) {
+            int i = position++;
+            if(i < columns.length && types[i] == delegate.getClass()
+                    && (columns[i] == column || columns[i].equals(column))){
+                if(indexes[i] >= 0) DelegateUtils.mapDelegateFromCursor(delegate, typeIds[i], cursor, indexes[i]);
+            }
+            else{
+                // the entity did not map the same way as planned
+                int index = lastIndexOf(cursorColumns, column);
+                if(index >= 0) DelegateUtils.mapDelegateFromCursor(delegate, cursor, index);
+            }
+        }
+
+        @Override
+        public void mapId(Delegate<Long> delegate) {
+            map(identifier.getPrimaryKeyColumn(), delegate);
+        }
+
+        @Override
+        public void clear() {
+            // nothing is kept
+        }
+
+        @Override
+        public Delegate get(String column) {
+            // nothing is kept
+            return null;
+        }
+    }
+
+    /**
+     * Records what an entity maps
+     */
+    static final class Recorder implements IEntity.Mapper {
+        private final PrimaryKeyIdentifier identifier;
+        final List<String> columns = new ArrayList<String>();
+        final List<Delegate> delegates = new ArrayList<Delegate>();
+
+        Recorder(PrimaryKeyIdentifier identifier){
+            this.identifier = identifier;
+        }
+
+        @Override
+        public void map(String column, Delegate delegate) {
+            columns.add(column);
+            delegates.add(delegate);
+        }
+
+        @Override
+        public void mapId(Delegate<Long> delegate) {
+            map(identifier.getPrimaryKeyColumn(), delegate);
+        }
+
+        @Override
+        public void clear() {
+            columns.clear();
+            delegates.clear();
+        }
+
+        @Override
+        public Delegate get(String column) {
+            int index = columns.lastIndexOf(column);
+            return index < 0 ? null : delegates.get(index);
+        }
+    }
+}
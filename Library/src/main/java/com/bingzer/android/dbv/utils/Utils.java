@@ -31,6 +31,9 @@
  */
 package com.bingzer.android.dbv.utils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Utility methods
  */
@@ -93,6 +96,49 @@ public final class Utils {
         }
     }
 
+    /**
+     * Collects the arguments to bind to each '?' in the clause,
+     * in order. Use this instead of {@link #bindArgs(String, Object...)}
+     * when the clause is executed as a compiled statement.
+     * A '?' inside a quoted literal is not a parameter and is skipped.
+     * Every parameter gets exactly one argument: missing arguments
+     * are bound as null and extra arguments are ignored.
+     * @param bindArgs the list to add the arguments to
+     * @param clause any clause that has '?'
+     * @param args arguments
+     */
+    public static void appendArgs(List<Object> bindArgs, String clause, Object... args){
+        if(clause == null) return;
+
+        char quote = 0;
+        for(int i = 0, counter = 0; i < clause.length(); i++){
+            final char c = clause.charAt(i);
+            if(quote != 0){
+                if(c == quote) quote = 0;
+            }
+            else if(c == '\'' || c == '"'){
+                quote = c;
+            }
+            else if(c == QUESTION_MARK_CHAR){
+                bindArgs.add(args != null && counter < args.length ? args[counter] : null);
+                counter++;
+            }
+        }
+    }
+
+    /**
+     * Returns the arguments to bind to each '?' in the clause.
+     * @see #appendArgs(java.util.List, String, Object...)
+     * @param clause any clause that has '?'
+     * @param args arguments
+     * @return arguments to bind, in order
+     */
+    public static Object[] toBindArgs(String clause, Object... args){
+        List<Object> bindArgs = new ArrayList<Object>();
+        appendArgs(bindArgs, clause, args);
+        return bindArgs.toArray();
+    }
+
     /**
      * Safe escape /sanitize an object. Object is checked to see
      * if it's a String/Integer/null/Character or custom.
@@ -0,0 +1,320 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates an <code>EntityBinder</code> for every class annotated with
+ * <code>com.bingzer.android.dbv.annotations.Bindable</code>.
+ * The binder reads and writes the annotated fields directly, so entities
+ * no longer need Delegates or reflection at runtime.
+ * The processor has no dependency on the (android) library,
+ * every type is referred by its name.
+ *
+ * Created by Ricky Tobing on 8/5/14.
+ */
+public class BinderProcessor extends AbstractProcessor {
+
+    static final String BINDABLE = "com.bingzer.android.dbv.annotations.Bindable";
+    static final String COLUMN = "com.bingzer.android.dbv.annotations.Column";
+    static final String ID = "com.bingzer.android.dbv.annotations.Id";
+    static final String BASE_ENTITY = "com.bingzer.android.dbv.IBaseEntity";
+    static final String BINDER_SUFFIX = "_DbQueryBinder";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(BINDABLE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(TypeElement annotation : annotations){
+            for(Element element : roundEnv.getElementsAnnotatedWith(annotation)){
+                if(element.getKind() != ElementKind.CLASS){
+                    error(element, "@Bindable is only allowed on classes");
+                    continue;
+                }
+
+                try{
+                    generate((TypeElement) element);
+                }
+                catch (IOException e){
+                    error(element, "Unable to write binder: " + e.getMessage());
+                }
+            }
+        }
+
+        return true;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void generate(TypeElement entity) throws IOException {
+        // a subclass that only inherits @Bindable gets its own binder when possible,
+        // otherwise the binder of its super class is used at runtime
+        Diagnostic.Kind kind = getAnnotation(entity, BINDABLE) == null ? Diagnostic.Kind.WARNING : Diagnostic.Kind.ERROR;
+        if(entity.getModifiers().contains(Modifier.PRIVATE)){
+            report(kind, entity, "@Bindable class must not be private");
+            return;
+        }
+        if(!entity.getTypeParameters().isEmpty()){
+            report(kind, entity, "@Bindable class must not be generic");
+            return;
+        }
+
+        String packageName = getPackage(entity).getQualifiedName().toString();
+        VariableElement idField = null;
+        List<Field> fields = new ArrayList<Field>();
+        boolean valid = true;
+
+        // walk up the hierarchy, fields of the super classes are included
+        TypeElement type = entity;
+        while(type != null){
+            for(VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements())){
+                boolean isId = getAnnotation(variable, ID) != null;
+                AnnotationMirror column = getAnnotation(variable, COLUMN);
+                if(!isId && column == null) continue;
+                if(!isAccessible(variable, packageName)){
+                    valid = report(kind, variable, "Field must not be private (or must be in the same package as " + entity.getSimpleName() + ")");
+                    continue;
+                }
+                if(variable.getModifiers().contains(Modifier.FINAL) || variable.getModifiers().contains(Modifier.STATIC)){
+                    valid = report(kind, variable, "Field must not be final or static");
+                    continue;
+                }
+
+                if(isId){
+                    if(variable.asType().getKind() != TypeKind.LONG) valid = report(kind, variable, "@Id must be a long");
+                    else if(idField == null) idField = variable;
+                }
+                else {
+                    FieldType fieldType = FieldType.of(variable.asType());
+                    if(fieldType == null) valid = report(kind, variable, "Unsupported type: " + variable.asType());
+                    else fields.add(new Field(getValue(column), variable.getSimpleName().toString(), fieldType));
+                }
+            }
+            type = getSuperclass(type);
+        }
+
+        boolean isBaseEntity = isAssignable(entity, BASE_ENTITY);
+        if(idField == null && !isBaseEntity){
+            report(kind, entity, "@Bindable class needs an @Id field (or implements IBaseEntity)");
+            return;
+        }
+        if(!valid && kind == Diagnostic.Kind.WARNING) return;
+
+        String entityName = entity.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(entity).toString();
+        String binderName = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1)) + BINDER_SUFFIX;
+        String idName = idField == null ? null : idField.getSimpleName().toString();
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.length() == 0 ? binderName : packageName + "." + binderName, entity);
+        Writer writer = file.openWriter();
+        try{
+            writer.write(new BinderWriter(packageName, binderName, entityName, idName, fields).toString());
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private PackageElement getPackage(Element element){
+        while(element.getKind() != ElementKind.PACKAGE){
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    private TypeElement getSuperclass(TypeElement type){
+        TypeMirror superclass = type.getSuperclass();
+        if(superclass.getKind() != TypeKind.DECLARED) return null;
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    private boolean isAccessible(VariableElement variable, String packageName){
+        Set<Modifier> modifiers = variable.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE)) return false;
+        if(modifiers.contains(Modifier.PUBLIC)) return true;
+        return getPackage(variable).getQualifiedName().contentEquals(packageName);
+    }
+
+    private boolean isAssignable(TypeElement type, String typeName){
+        TypeElement other = processingEnv.getElementUtils().getTypeElement(typeName);
+        return other != null && processingEnv.getTypeUtils().isAssignable(type.asType(), other.asType());
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String annotationName){
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()){
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if(annotation.getQualifiedName().contentEquals(annotationName)) return mirror;
+        }
+        return null;
+    }
+
+    private String getValue(AnnotationMirror mirror){
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()){
+            if(entry.getKey().getSimpleName().contentEquals("value")) return entry.getValue().getValue().toString();
+        }
+        return null;
+    }
+
+    private void error(Element element, String message){
+        report(Diagnostic.Kind.ERROR, element, message);
+    }
+
+    /**
+     * Prints the message
+     * @return always false
+     */
+    private boolean report(Diagnostic.Kind kind, Element element, String message){
+        processingEnv.getMessager().printMessage(kind, message, element);
+        return false;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    static class Field {
+        final String column;
+        final String name;
+        final FieldType type;
+
+        Field(String column, String name, FieldType type){
+            this.column = column;
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Supported field types and how each one is read, bound and mapped
+     */
+    enum FieldType {
+        INT("int", "cursor.getInt(%s)", "bindLong", null, "Delegate.IntDelegate", "Int"),
+        LONG("long", "cursor.getLong(%s)", "bindLong", null, "Delegate.LongDelegate", "Long"),
+        DOUBLE("double", "cursor.getDouble(%s)", "bindDouble", null, "Delegate.DoubleDelegate", "Double"),
+        BOOLEAN("boolean", "cursor.getInt(%s) == 1", "bindLong", null, "Delegate.BooleanDelegate", "Boolean"),
+        SHORT("short", "cursor.getShort(%s)", "bindLong", "Short", "Delegate.TypeShort", "(short) 0"),
+        FLOAT("float", "cursor.getFloat(%s)", "bindDouble", "Float", "Delegate.TypeFloat", "0f"),
+        STRING("String", "cursor.getString(%s)", "bindString", "String", "Delegate.TypeString", null),
+        BYTES("byte[]", "cursor.getBlob(%s)", "bindBlob", "byte[]", "Delegate.TypeBytes", null),
+        INTEGER_OBJECT("Integer", "Integer.valueOf(cursor.getInt(%s))", "bindLong", "Integer", "Delegate.TypeInteger", null),
+        LONG_OBJECT("Long", "Long.valueOf(cursor.getLong(%s))", "bindLong", "Long", "Delegate.TypeLong", null),
+        DOUBLE_OBJECT("Double", "Double.valueOf(cursor.getDouble(%s))", "bindDouble", "Double", "Delegate.TypeDouble", null),
+        BOOLEAN_OBJECT("Boolean", "Boolean.valueOf(cursor.getInt(%s) == 1)", "bindLong", "Boolean", "Delegate.TypeBoolean", null),
+        SHORT_OBJECT("Short", "Short.valueOf(cursor.getShort(%s))", "bindLong", "Short", "Delegate.TypeShort", null),
+        FLOAT_OBJECT("Float", "Float.valueOf(cursor.getFloat(%s))", "bindDouble", "Float", "Delegate.TypeFloat", null);
+
+        final String javaType;
+        final String read;
+        final String bind;
+        /** the boxed type used by the delegate, null for primitive delegates */
+        final String delegateType;
+        final String delegateClass;
+        /** the primitive accessor suffix, or the default value for null */
+        final String extra;
+
+        FieldType(String javaType, String read, String bind, String delegateType, String delegateClass, String extra){
+            this.javaType = javaType;
+            this.read = read;
+            this.bind = bind;
+            this.delegateType = delegateType;
+            this.delegateClass = delegateClass;
+            this.extra = extra;
+        }
+
+        boolean isPrimitive(){
+            return Character.isLowerCase(javaType.charAt(0)) && !javaType.equals("byte[]");
+        }
+
+        boolean isPrimitiveDelegate(){
+            return delegateType == null;
+        }
+
+        String read(String index){
+            String value = String.format(read, index);
+            // nullable types
+            if(!isPrimitive() && this != STRING && this != BYTES)
+                return "cursor.isNull(" + index + ") ? null : " + value;
+            return value;
+        }
+
+        String bindValue(String value){
+            if(this == BOOLEAN || this == BOOLEAN_OBJECT) return value + " ? 1 : 0";
+            return value;
+        }
+
+        static FieldType of(TypeMirror type){
+            switch (type.getKind()){
+                case INT: return INT;
+                case LONG: return LONG;
+                case DOUBLE: return DOUBLE;
+                case BOOLEAN: return BOOLEAN;
+                case SHORT: return SHORT;
+                case FLOAT: return FLOAT;
+                case ARRAY:
+                    return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? BYTES : null;
+                case DECLARED:
+                    String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+                    if(name.equals("java.lang.String")) return STRING;
+                    if(name.equals("java.lang.Integer")) return INTEGER_OBJECT;
+                    if(name.equals("java.lang.Long")) return LONG_OBJECT;
+                    if(name.equals("java.lang.Double")) return DOUBLE_OBJECT;
+                    if(name.equals("java.lang.Boolean")) return BOOLEAN_OBJECT;
+                    if(name.equals("java.lang.Short")) return SHORT_OBJECT;
+                    if(name.equals("java.lang.Float")) return FLOAT_OBJECT;
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Ricky Tobing
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance insert the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bingzer.android.dbv.processor;
+
+import java.util.List;
+
+/**
+ * Writes the source of a generated binder
+ *
+ * Created by Ricky Tobing on 8/5/14.
+ */
+class BinderWriter {
+
+    private final String packageName;
+    private final String binderName;
+    private final String entityName;
+    private final String idName;
+    private final List<BinderProcessor.Field> fields;
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * @param idName the name of the @Id field, null to use IBaseEntity.setId()
+     */
+    BinderWriter(String packageName, String binderName, String entityName, String idName, List<BinderProcessor.Field> fields){
+        this.packageName = packageName;
+        this.binderName = binderName;
+        this.entityName = entityName;
+        this.idName = idName;
+        this.fields = fields;
+    }
+
+    @Override
+    public String toString() {
+        out.setLength(0);
+        line(0, "// Generated by the DbQuery annotation processor. Do not modify!");
+        if(packageName.length() > 0) line(0, "package " + packageName + ";");
+        line(0, "");
+        line(0, "import android.content.ContentValues;");
+        line(0, "import android.database.Cursor;");
+        line(0, "import android.database.sqlite.SQLiteProgram;");
+        line(0, "");
+        line(0, "import com.bingzer.android.dbv.Delegate;");
+        line(0, "import com.bingzer.android.dbv.EntityBinder;");
+        line(0, "import com.bingzer.android.dbv.IEntity;");
+        line(0, "");
+        line(0, "public final class " + binderName + " extends EntityBinder<" + entityName + "> {");
+        line(0, "");
+        writeConstructor();
+        writeSetId();
+        writeReadFromCursor();
+        writeWriteToContentValues();
+        writeBindToProgram();
+        writeMap();
+        line(0, "}");
+        return out.toString();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void writeConstructor(){
+        StringBuilder columns = new StringBuilder();
+        for(BinderProcessor.Field field : fields){
+            if(columns.length() > 0) columns.append(", ");
+            columns.append(quote(field.column));
+        }
+
+        line(1, "public " + binderName + "() {");
+        line(2, "super(new String[]{ " + columns + " });");
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeSetId(){
+        line(1, "@Override");
+        line(1, "public void setId(" + entityName + " entity, long id) {");
+        line(2, setId("id") + ";");
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeReadFromCursor(){
+        line(1, "@Override");
+        line(1, "public void readFromCursor(" + entityName + " entity, Cursor cursor, int[] indexes) {");
+        line(2, "if(indexes[0] >= 0) " + setId("cursor.getLong(indexes[0])") + ";");
+        for(int i = 0; i < fields.size(); i++){
+            BinderProcessor.Field field = fields.get(i);
+            String index = "indexes[" + (i + 1) + "]";
+            line(2, "if(" + index + " >= 0) entity." + field.name + " = " + field.type.read(index) + ";");
+        }
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeWriteToContentValues(){
+        line(1, "@Override");
+        line(1, "public void writeToContentValues(" + entityName + " entity, ContentValues contentValues) {");
+        for(BinderProcessor.Field field : fields){
+            line(2, "contentValues.put(" + quote(field.column) + ", entity." + field.name + ");");
+        }
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeBindToProgram(){
+        line(1, "@Override");
+        line(1, "public void bindToProgram(" + entityName + " entity, SQLiteProgram program, int startIndex) {");
+        for(int i = 0; i < fields.size(); i++){
+            BinderProcessor.Field field = fields.get(i);
+            String index = "startIndex + " + i;
+            String value = "entity." + field.name;
+            String bind = "program." + field.type.bind + "(" + index + ", " + field.type.bindValue(value) + ");";
+            if(field.type.isPrimitive()) line(2, bind);
+            else line(2, "if(" + value + " == null) program.bindNull(" + index + "); else " + bind);
+        }
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeMap(){
+        line(1, "@Override");
+        // not 'entity', Delegate.TypeId has a field with that name
+        line(1, "public void map(final " + entityName + " instance, IEntity.Mapper mapper) {");
+        if(idName != null){
+            line(2, "mapper.mapId(new Delegate.LongDelegate() {");
+            line(3, "@Override public void setLong(long value) { instance." + idName + " = value; }");
+            line(3, "@Override public long getLong() { return instance." + idName + "; }");
+        }
+        else {
+            line(2, "mapper.mapId(new Delegate.TypeId(instance) {");
+            line(3, "@Override public void set(Long value) { instance.setId(value == null ? 0 : value); }");
+        }
+        line(2, "});");
+
+        for(BinderProcessor.Field field : fields){
+            BinderProcessor.FieldType type = field.type;
+            String value = "instance." + field.name;
+            line(2, "mapper.map(" + quote(field.column) + ", new " + type.delegateClass + "() {");
+            if(type.isPrimitiveDelegate()){
+                line(3, "@Override public void set" + type.extra + "(" + type.javaType + " value) { " + value + " = value; }");
+                line(3, "@Override public " + type.javaType + " get" + type.extra + "() { return " + value + "; }");
+            }
+            else {
+                // primitives mapped to a boxed delegate, null becomes the default value
+                String set = type.isPrimitive() ? "value == null ? " + type.extra + " : value" : "value";
+                line(3, "@Override public void set(" + type.delegateType + " value) { " + value + " = " + set + "; }");
+                line(3, "@Override public " + type.delegateType + " get() { return " + value + "; }");
+            }
+            line(2, "});");
+        }
+        line(1, "}");
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+
+    private String setId(String value){
+        if(idName != null) return "entity." + idName + " = " + value;
+        return "entity.setId(" + value + ")";
+    }
+
+    private void line(int indent, String line){
+        for(int i = 0; i < indent; i++){
+            out.append("    ");
+        }
+        out.append(line).append("\n");
+    }
+
+    private static String quote(String value){
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}